@@ -18,24 +18,19 @@ package org.terracotta.angela;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terracotta.angela.agent.kit.InstallerIntegrity;
 import org.terracotta.angela.common.TerracottaCommandLineEnvironment;
 import org.terracotta.angela.common.net.PortAllocator;
 import org.terracotta.angela.common.tcconfig.License;
 import org.terracotta.angela.common.topology.LicenseType;
 import org.terracotta.angela.common.topology.PackageType;
 import org.terracotta.angela.common.topology.Version;
-import org.terracotta.angela.common.util.FileUtils;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Objects;
 
 import static org.terracotta.angela.common.topology.PackageType.KIT;
 
@@ -117,59 +112,52 @@ public abstract class KitResolver {
   public void downloadLocalInstaller(Version version, LicenseType licenseType, PackageType packageType, Path localInstallerFile) {
     URL[] urls = resolveKitUrls(version, licenseType, packageType);
     URL kitUrl = urls[0];
-    URL md5Url = urls[1];
-    download(kitUrl, localInstallerFile);
-
-    // snapshots and SAG installer have no MD5
-    if (!version.isSnapshot() && packageType == KIT) {
-      download(md5Url, Paths.get(localInstallerFile + ".md5"));
+    URL hashUrl = urls[1];
+
+    // snapshots and SAG installer have no secure hash
+    if (version.isSnapshot() || packageType != KIT) {
+      download(kitUrl, localInstallerFile);
+    } else {
+      Path hashFile = InstallerIntegrity.hashFile(localInstallerFile, hashUrl);
+      download(hashUrl, hashFile);
+      String algorithm = InstallerIntegrity.algorithm(hashFile);
+      // hashed while downloaded, and recorded as verified so that the installer is not read again to be verified
+      String digest = download(kitUrl, localInstallerFile, algorithm);
+      try {
+        String expectedDigest = InstallerIntegrity.expectedDigest(hashFile);
+        if (!digest.equalsIgnoreCase(expectedDigest)) {
+          Files.deleteIfExists(localInstallerFile);
+          throw new IOException("Secure hash of downloaded " + localInstallerFile + " does not match the contents of " + hashFile + ": " + digest + " instead of: " + expectedDigest);
+        }
+        InstallerIntegrity.record(localInstallerFile, algorithm, digest);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
     }
     logger.debug("Success -> file downloaded successfully");
   }
 
   protected void download(URL url, Path dest) {
-    logger.info("Downloading: {} to: {}", url, dest);
+    download(url, dest, null);
+  }
 
+  /**
+   * Downloads a file by segments, in parallel, see {@link SegmentedDownload}.
+   * A failed download is resumed by the next call.
+   *
+   * @param digestAlgorithm the algorithm of the digest to compute during the download, like {@code SHA-256}, or null for none
+   * @return the hexadecimal digest of the file, or null if no digest algorithm was given
+   */
+  protected String download(URL url, Path dest, String digestAlgorithm) {
+    logger.info("Downloading: {} to: {}", url, dest);
     try {
-      URLConnection urlConnection = url.openConnection();
-      urlConnection.connect();
-
-      int contentLength = urlConnection.getContentLength();
-
-      createParentDirs(dest);
-
-      long lastProgress = -1;
-      try (OutputStream fos = Files.newOutputStream(dest);
-           InputStream is = url.openStream()) {
-        byte[] buffer = new byte[8192];
-        long len = 0;
-        int count;
-        while ((count = is.read(buffer)) != -1) {
-          len += count;
-
-          long progress = 100 * len / contentLength;
-          if (progress % 10 == 0 && progress > lastProgress) {
-            logger.debug("Download progress = {}%", progress);
-            lastProgress = progress;
-          }
-          fos.write(buffer, 0, count);
-        }
-      }
-
+      String digest = new SegmentedDownload(url, dest, SegmentedDownload.DEFAULT_SEGMENT_SIZE, SegmentedDownload.DEFAULT_PARALLELISM, digestAlgorithm).run();
       logger.debug("Success -> file downloaded successfully");
+      return digest;
     } catch (IOException e) {
-      // messed up download -> delete it
-      logger.debug("Deleting: " + dest.getParent() + " dir as it's messed up");
-      FileUtils.deleteQuietly(dest.getParent());
+      // the partial download is kept, to be resumed
+      logger.debug("Download of: {} failed, the next attempt will resume it", url);
       throw new UncheckedIOException(e);
     }
   }
-
-  private static void createParentDirs(Path file) throws IOException {
-    Objects.requireNonNull(file);
-    Path parent = file.getParent();
-    if (parent != null) {
-      Files.createDirectories(parent);
-    }
-  }
 }
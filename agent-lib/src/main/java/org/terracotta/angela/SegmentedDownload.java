@@ -0,0 +1,491 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.angela.agent.kit.InstallerIntegrity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Downloads a file with parallel HTTP range requests, each one fetching a segment of the file.
+ * <p>
+ * The data is written to a {@code .part} file next to the destination, and the segments downloaded so far are recorded
+ * in a {@code .part.state} sidecar file, with what identifies the remote file (URL, length, ETag or Last-Modified):
+ * a failed download is resumed from the missing segments by the next attempt, as long as the remote file did not change.
+ * Without an ETag or Last-Modified, a change of the remote file cannot be detected: the download is not resumed.
+ * The destination only appears once complete.
+ * <p>
+ * The servers which do not support ranges, and the URLs which are not HTTP ones, are downloaded with a single stream.
+ * So is a file which changes during its download: the server then answers the range requests with the whole new file.
+ * <p>
+ * The digest of the file can be computed during the download, so that the file does not have to be read again
+ * to be verified: the segments are hashed in order as soon as they are complete, while they are still in the page cache.
+ */
+final class SegmentedDownload {
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentedDownload.class);
+
+  static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+  static final int DEFAULT_PARALLELISM = 4;
+  static final int MAX_ATTEMPTS = 3;
+
+  private static final int BUFFER_SIZE = 256 * 1024;
+  private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+  private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+  private final URL url;
+  private final Path dest;
+  private final Path partFile;
+  private final Path stateFile;
+  private final int segmentSize;
+  private final int parallelism;
+  private final MessageDigest digest;
+  private final ReentrantLock digestLock = new ReentrantLock();
+  private final AtomicLong downloaded = new AtomicLong();
+  private int digestedSegments;
+  private long length = -1;
+  private long lastDecile = -1;
+
+  SegmentedDownload(URL url, Path dest, int segmentSize, int parallelism) {
+    this(url, dest, segmentSize, parallelism, null);
+  }
+
+  /**
+   * @param digestAlgorithm the algorithm of the digest computed during the download, like {@code SHA-256}, or null for none
+   */
+  SegmentedDownload(URL url, Path dest, int segmentSize, int parallelism, String digestAlgorithm) {
+    this.url = url;
+    this.dest = dest;
+    this.partFile = Paths.get(dest + ".part");
+    this.stateFile = Paths.get(dest + ".part.state");
+    this.segmentSize = segmentSize;
+    this.parallelism = parallelism;
+    this.digest = digestAlgorithm == null ? null : InstallerIntegrity.newDigest(digestAlgorithm);
+  }
+
+  /**
+   * @return the hexadecimal digest of the file, or null if no digest algorithm was given
+   */
+  String run() throws IOException {
+    Path parent = dest.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    State remote = probe();
+    if (remote == null) {
+      stream();
+    } else {
+      try {
+        downloadSegments(remote);
+      } catch (RangeNotHonoredException e) {
+        logger.info("{}, downloading it with a single stream", e.getMessage());
+        Files.deleteIfExists(stateFile);
+        restart();
+        stream();
+      }
+    }
+    Files.move(partFile, dest, StandardCopyOption.REPLACE_EXISTING);
+    Files.deleteIfExists(stateFile);
+    return digest == null ? null : InstallerIntegrity.toHex(digest.digest());
+  }
+
+  /**
+   * @return what identifies the remote file, or null if it cannot be downloaded by segments
+   */
+  private State probe() throws IOException {
+    URLConnection connection = url.openConnection();
+    if (!(connection instanceof HttpURLConnection)) {
+      return null;
+    }
+    HttpURLConnection http = (HttpURLConnection) connection;
+    try {
+      http.setRequestMethod("HEAD");
+      http.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+      http.setReadTimeout(READ_TIMEOUT_MILLIS);
+      if (http.getResponseCode() != HttpURLConnection.HTTP_OK || !"bytes".equalsIgnoreCase(http.getHeaderField("Accept-Ranges"))) {
+        return null;
+      }
+      long contentLength = http.getContentLengthLong();
+      if (contentLength <= 0) {
+        return null;
+      }
+      // a weak entity tag cannot be used in If-Range (RFC 7233)
+      String validator = http.getHeaderField("ETag");
+      if (validator == null || validator.startsWith("W/")) {
+        validator = http.getHeaderField("Last-Modified");
+      }
+      return new State(url.toString(), contentLength, validator == null ? "" : validator, segmentSize);
+    } finally {
+      http.disconnect();
+    }
+  }
+
+  private void downloadSegments(State remote) throws IOException {
+    length = remote.length;
+    State state = State.load(stateFile);
+    if (state == null || !state.sameRemoteFile(remote) || !Files.isRegularFile(partFile)) {
+      state = remote;
+      Files.newByteChannel(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING).close();
+      state.save(stateFile);
+    } else {
+      logger.info("Resuming the download of: {} with {}/{} segment(s) already downloaded", url, state.done.cardinality(), state.segmentCount());
+    }
+
+    Queue<Integer> missing = new ConcurrentLinkedQueue<>();
+    for (int index = 0; index < state.segmentCount(); index++) {
+      if (state.done.get(index)) {
+        downloaded.addAndGet(state.segmentEnd(index) - state.segmentStart(index));
+      } else {
+        missing.add(index);
+      }
+    }
+
+    State progress = state;
+    int workers = Math.min(parallelism, missing.size());
+    AtomicInteger threadCounter = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+      Thread thread = new Thread(r, "angela-kit-download-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        futures.add(executor.submit(() -> {
+          // one buffer per worker, reused for all its segments
+          ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+          Integer index;
+          while ((index = missing.poll()) != null) {
+            downloadSegment(channel, buffer, progress, index);
+            progress.markDone(index, stateFile);
+            digestCompleted(channel, buffer, progress, false);
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      // including the segments of a previous attempt
+      digestCompleted(channel, ByteBuffer.allocateDirect(BUFFER_SIZE), progress, true);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while downloading: " + url, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Download of: " + url + " failed: " + cause.getMessage(), cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void downloadSegment(FileChannel channel, ByteBuffer buffer, State state, int index) throws IOException {
+    long start = state.segmentStart(index);
+    long end = state.segmentEnd(index);
+    for (int attempt = 1; ; attempt++) {
+      try {
+        HttpURLConnection http = (HttpURLConnection) url.openConnection();
+        http.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        http.setReadTimeout(READ_TIMEOUT_MILLIS);
+        http.setRequestProperty("Range", "bytes=" + start + "-" + (end - 1));
+        if (!state.validator.isEmpty()) {
+          // the whole file is sent instead of the range if it changed
+          http.setRequestProperty("If-Range", state.validator);
+        }
+        int code = http.getResponseCode();
+        if (code == HttpURLConnection.HTTP_OK) {
+          http.disconnect();
+          throw new RangeNotHonoredException("The range request of bytes " + start + "-" + (end - 1) + " of: " + url + " was answered with the whole file, which may have changed");
+        }
+        if (code != HttpURLConnection.HTTP_PARTIAL) {
+          http.disconnect();
+          throw new IOException("Unexpected response to the range request of bytes " + start + "-" + (end - 1) + " of: " + url + ": HTTP " + code);
+        }
+        long written;
+        try (InputStream in = http.getInputStream()) {
+          written = copy(in, channel, buffer, start, end - start, false);
+        }
+        if (written != end - start) {
+          throw new IOException("Truncated segment of: " + url + " at offset: " + start + ": " + written + " bytes received instead of: " + (end - start));
+        }
+        progress(written);
+        return;
+      } catch (IOException e) {
+        // the bytes of this attempt are downloaded again
+        if (e instanceof RangeNotHonoredException || attempt >= MAX_ATTEMPTS) {
+          throw e;
+        }
+        logger.debug("Attempt {} to download the segment at offset: {} of: {} failed, retrying", attempt, start, url, e);
+      }
+    }
+  }
+
+  /**
+   * Hashes the segments following the ones already hashed which are complete
+   *
+   * @param wait whether to wait for another thread hashing, otherwise the segments are left to it
+   */
+  private void digestCompleted(FileChannel channel, ByteBuffer buffer, State state, boolean wait) throws IOException {
+    if (digest == null) {
+      return;
+    }
+    if (wait) {
+      digestLock.lock();
+    } else if (!digestLock.tryLock()) {
+      return;
+    }
+    try {
+      while (digestedSegments < state.segmentCount() && state.isDone(digestedSegments)) {
+        long position = state.segmentStart(digestedSegments);
+        long end = state.segmentEnd(digestedSegments);
+        while (position < end) {
+          buffer.clear();
+          buffer.limit((int) Math.min(buffer.capacity(), end - position));
+          int read = channel.read(buffer, position);
+          if (read < 0) {
+            throw new IOException("Unexpected end of: " + partFile + " at offset: " + position);
+          }
+          buffer.flip();
+          digest.update(buffer);
+          position += read;
+        }
+        digestedSegments++;
+      }
+    } finally {
+      digestLock.unlock();
+    }
+  }
+
+  /**
+   * Forgets the progress and the digest of the segments, before the whole file is downloaded again
+   */
+  private void restart() {
+    // waits for a worker of the segments still hashing
+    digestLock.lock();
+    try {
+      if (digest != null) {
+        digest.reset();
+      }
+      digestedSegments = 0;
+    } finally {
+      digestLock.unlock();
+    }
+    downloaded.set(0);
+    synchronized (this) {
+      lastDecile = -1;
+    }
+  }
+
+  /**
+   * Downloads the whole file with a single request
+   */
+  private void stream() throws IOException {
+    URLConnection connection = url.openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+    connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+    connection.connect();
+    length = connection.getContentLengthLong();
+    try (InputStream in = connection.getInputStream();
+         FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      long written = copy(in, channel, ByteBuffer.allocateDirect(BUFFER_SIZE), 0, Long.MAX_VALUE, true);
+      if (length >= 0 && written != length) {
+        throw new IOException("Truncated download of: " + url + ": " + written + " bytes received instead of: " + length);
+      }
+    }
+  }
+
+  /**
+   * @param inOrder whether the bytes are the whole file in order, for the progress and the digest to be updated as they are copied.
+   *                Otherwise the caller takes care of them once the copy is complete.
+   * @return the number of bytes copied, at most the maximum
+   */
+  private long copy(InputStream in, FileChannel out, ByteBuffer buffer, long position, long max, boolean inOrder) throws IOException {
+    ReadableByteChannel src = Channels.newChannel(in);
+    long written = 0;
+    buffer.clear();
+    while (written < max) {
+      buffer.limit((int) Math.min(buffer.capacity(), max - written));
+      int read = src.read(buffer);
+      if (read < 0) {
+        break;
+      }
+      buffer.flip();
+      if (inOrder && digest != null) {
+        digest.update(buffer.duplicate());
+      }
+      while (buffer.hasRemaining()) {
+        written += out.write(buffer, position + written);
+      }
+      buffer.clear();
+      if (inOrder) {
+        progress(read);
+      }
+    }
+    return written;
+  }
+
+  private void progress(long bytes) {
+    long total = downloaded.addAndGet(bytes);
+    if (length <= 0) {
+      return;
+    }
+    long decile = 10 * total / length;
+    synchronized (this) {
+      if (decile > lastDecile) {
+        logger.debug("Download progress = {}%", decile * 10);
+        lastDecile = decile;
+      }
+    }
+  }
+
+  /**
+   * Thrown when a range request is answered with the whole file
+   */
+  private static class RangeNotHonoredException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    RangeNotHonoredException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * The remote file and the segments of it already downloaded
+   */
+  static class State {
+    final String url;
+    final long length;
+    final String validator;
+    final int segmentSize;
+    final BitSet done = new BitSet();
+
+    State(String url, long length, String validator, int segmentSize) {
+      this.url = url;
+      this.length = length;
+      this.validator = validator;
+      this.segmentSize = segmentSize;
+    }
+
+    int segmentCount() {
+      return (int) ((length + segmentSize - 1) / segmentSize);
+    }
+
+    long segmentStart(int index) {
+      return (long) index * segmentSize;
+    }
+
+    long segmentEnd(int index) {
+      return Math.min(length, segmentStart(index) + segmentSize);
+    }
+
+    /**
+     * @return whether both states are known to be about the same remote file, which requires a validator
+     */
+    boolean sameRemoteFile(State other) {
+      return !validator.isEmpty() && url.equals(other.url) && length == other.length && validator.equals(other.validator) && segmentSize == other.segmentSize;
+    }
+
+    synchronized boolean isDone(int index) {
+      return done.get(index);
+    }
+
+    synchronized void markDone(int index, Path file) throws IOException {
+      done.set(index);
+      save(file);
+    }
+
+    synchronized void save(Path file) throws IOException {
+      Properties properties = new Properties();
+      properties.setProperty("url", url);
+      properties.setProperty("length", Long.toString(length));
+      properties.setProperty("validator", validator);
+      properties.setProperty("segmentSize", Integer.toString(segmentSize));
+      properties.setProperty("done", done.toString().replaceAll("[{} ]", ""));
+      // replaced at once, so that an interrupted save leaves the previous state
+      Path tmp = Paths.get(file + ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        properties.store(out, null);
+      }
+      try {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+
+    /**
+     * @return the saved state, or null if there is none or it cannot be read
+     */
+    static State load(Path file) {
+      if (!Files.isRegularFile(file)) {
+        return null;
+      }
+      Properties properties = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+        State state = new State(Objects.requireNonNull(properties.getProperty("url")),
+            Long.parseLong(properties.getProperty("length")),
+            Objects.requireNonNull(properties.getProperty("validator")),
+            Integer.parseInt(properties.getProperty("segmentSize")));
+        for (String index : properties.getProperty("done", "").split(",")) {
+          if (!index.isEmpty()) {
+            state.done.set(Integer.parseInt(index));
+          }
+        }
+        return state;
+      } catch (IOException | RuntimeException e) {
+        logger.debug("Ignoring the unreadable download state: {}", file, e);
+        return null;
+      }
+    }
+  }
+}
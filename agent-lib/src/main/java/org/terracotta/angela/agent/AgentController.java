@@ -23,6 +23,10 @@ import org.slf4j.LoggerFactory;
 import org.terracotta.angela.agent.client.RemoteClientManager;
 import org.terracotta.angela.agent.com.AgentGroup;
 import org.terracotta.angela.agent.com.AgentID;
+import org.terracotta.angela.agent.com.FileChunk;
+import org.terracotta.angela.agent.com.FileDelta;
+import org.terracotta.angela.agent.com.FileDigest;
+import org.terracotta.angela.agent.com.FileEntry;
 import org.terracotta.angela.agent.kit.MonitoringInstance;
 import org.terracotta.angela.agent.kit.RemoteKitManager;
 import org.terracotta.angela.agent.kit.TerracottaInstall;
@@ -34,6 +38,7 @@ import org.terracotta.angela.common.TerracottaManagementServerInstance;
 import org.terracotta.angela.common.TerracottaManagementServerState;
 import org.terracotta.angela.common.TerracottaServerInstance;
 import org.terracotta.angela.common.TerracottaServerState;
+import org.terracotta.angela.common.TerracottaServerStateChange;
 import org.terracotta.angela.common.TerracottaToolInstance;
 import org.terracotta.angela.common.TerracottaVoter;
 import org.terracotta.angela.common.TerracottaVoterInstance;
@@ -52,7 +57,11 @@ import org.terracotta.angela.common.tms.security.config.TmsServerSecurityConfig;
 import org.terracotta.angela.common.topology.InstanceId;
 import org.terracotta.angela.common.topology.Topology;
 import org.terracotta.angela.common.util.FileUtils;
+import org.terracotta.angela.common.util.Grep;
+import org.terracotta.angela.common.util.GrepOptions;
+import org.terracotta.angela.common.util.GrepResult;
 import org.terracotta.angela.common.util.Jcmd;
+import org.terracotta.angela.common.util.LogSegment;
 import org.terracotta.angela.common.util.ProcessUtil;
 
 import java.io.ByteArrayOutputStream;
@@ -61,9 +70,21 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -74,9 +95,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import static java.util.stream.Collectors.toList;
 
@@ -86,11 +109,15 @@ import static java.util.stream.Collectors.toList;
 public class AgentController {
   private final static Logger logger = LoggerFactory.getLogger(AgentController.class);
 
-  private final Map<InstanceId, TerracottaInstall> tsaInstalls = new HashMap<>();
-  private final Map<InstanceId, TmsInstall> tmsInstalls = new HashMap<>();
-  private final Map<InstanceId, VoterInstall> voterInstalls = new HashMap<>();
-  private final Map<InstanceId, ToolInstall> clusterToolInstalls = new HashMap<>();
-  private final Map<InstanceId, ToolInstall> configToolInstalls = new HashMap<>();
+  private final Map<InstanceId, TerracottaInstall> tsaInstalls = new ConcurrentHashMap<>();
+  private final Map<InstanceId, TmsInstall> tmsInstalls = new ConcurrentHashMap<>();
+  private final Map<InstanceId, VoterInstall> voterInstalls = new ConcurrentHashMap<>();
+  private final Map<InstanceId, ToolInstall> clusterToolInstalls = new ConcurrentHashMap<>();
+  private final Map<InstanceId, ToolInstall> configToolInstalls = new ConcurrentHashMap<>();
+
+  private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  private final LogStreamer logStreamer = new LogStreamer();
 
   private final AgentID localAgentID;
   private final PortAllocator portAllocator;
@@ -406,23 +433,48 @@ public class AgentController {
     }
   }
 
-  public void createTsa(InstanceId instanceId, TerracottaServer terracottaServer, TerracottaCommandLineEnvironment tcEnv, Map<String, String> envOverrides, List<String> startUpArgs, Duration inactivityKillerDelay) {
+  /**
+   * @return the state of the server once created
+   */
+  public TerracottaServerState createTsa(InstanceId instanceId, TerracottaServer terracottaServer, TerracottaCommandLineEnvironment tcEnv, Map<String, String> envOverrides, List<String> startUpArgs, Duration inactivityKillerDelay) {
     TerracottaServerInstance serverInstance = tsaInstalls.get(instanceId).getTerracottaServerInstance(terracottaServer);
     serverInstance.create(tcEnv, envOverrides, startUpArgs, inactivityKillerDelay);
+    return serverInstance.getTerracottaServerState();
   }
 
-  public void stopTsa(InstanceId instanceId, TerracottaServer terracottaServer) {
+  /**
+   * @return the state of the server once stopped
+   */
+  public TerracottaServerState stopTsa(InstanceId instanceId, TerracottaServer terracottaServer) {
     TerracottaInstall terracottaInstall = tsaInstalls.get(instanceId);
     if (terracottaInstall == null) {
-      return;
+      return TerracottaServerState.NOT_INSTALLED;
     }
     TerracottaServerInstance serverInstance = terracottaInstall.getTerracottaServerInstance(terracottaServer);
     serverInstance.stop();
+    return serverInstance.getTerracottaServerState();
+  }
+
+  /**
+   * @return the current state of the server
+   */
+  public TerracottaServerState addTsaStateListener(InstanceId instanceId, TerracottaServer terracottaServer, Consumer<TerracottaServerStateChange> listener) {
+    TerracottaInstall terracottaInstall = tsaInstalls.get(instanceId);
+    TerracottaServerInstance serverInstance = terracottaInstall == null ? null : terracottaInstall.getTerracottaServerInstance(terracottaServer);
+    if (serverInstance == null) {
+      throw new IllegalStateException("Cannot listen to state changes: server " + terracottaServer.getServerSymbolicName() + " has not been installed");
+    }
+    serverInstance.addStateListener(listener);
+    return serverInstance.getTerracottaServerState();
   }
 
-  public void waitForTsaInState(InstanceId instanceId, TerracottaServer terracottaServer, Set<TerracottaServerState> wanted) {
+  /**
+   * @return the reached state
+   */
+  public TerracottaServerState waitForTsaInState(InstanceId instanceId, TerracottaServer terracottaServer, Set<TerracottaServerState> wanted) {
     TerracottaServerInstance serverInstance = tsaInstalls.get(instanceId).getTerracottaServerInstance(terracottaServer);
     serverInstance.waitForState(wanted);
+    return serverInstance.getTerracottaServerState();
   }
 
   public ToolExecutionResult configure(InstanceId instanceId, Topology topology, Map<ServerSymbolicName, Integer> proxyTsaPorts, License license, SecurityRootDirectory securityRootDirectory, TerracottaCommandLineEnvironment tcEnv, Map<String, String> env, List<String> command) {
@@ -455,6 +507,17 @@ public class AgentController {
     return serverInstance.getTerracottaServerState();
   }
 
+  /**
+   * @return the states of the servers, by server ID
+   */
+  public Map<UUID, TerracottaServerState> getTsaStates(InstanceId instanceId, Collection<TerracottaServer> terracottaServers) {
+    Map<UUID, TerracottaServerState> states = new HashMap<>();
+    for (TerracottaServer terracottaServer : terracottaServers) {
+      states.put(terracottaServer.getId(), getTsaState(instanceId, terracottaServer));
+    }
+    return states;
+  }
+
   public Map<ServerSymbolicName, Integer> getProxyGroupPortsForServer(InstanceId instanceId, TerracottaServer terracottaServer) {
     TerracottaInstall terracottaInstall = tsaInstalls.get(instanceId);
     if (terracottaInstall == null) {
@@ -637,40 +700,165 @@ public class AgentController {
     }
   }
 
-  public byte[] downloadFolder(String file) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-      File root = new File(file);
-      zipFolder(zos, "", root);
+  /**
+   * @return the size and modification time of a file, its path being the file name
+   */
+  public FileEntry stat(String file) {
+    Path path = Paths.get(file);
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+      return new FileEntry(path.getFileName().toString(), attrs.size(), attrs.lastModifiedTime().toMillis());
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Error reading the attributes of file " + file, ioe);
+    }
+  }
+
+  /**
+   * @return the regular files of the folder and its sub-folders, with paths relative to the folder, see {@link #walk(String, int, String)}
+   */
+  public List<FileEntry> listTree(String folder) {
+    Path root = Paths.get(folder);
+    // the symbolic links are listed by the walk without being followed: their size is not the one of their target
+    return walk(folder, Integer.MAX_VALUE, null).stream()
+        .filter(entry -> !entry.isDirectory() && Files.isRegularFile(root.resolve(entry.getRelativePath()), LinkOption.NOFOLLOW_LINKS))
+        .collect(toList());
+  }
+
+  /**
+   * Lists the files and sub-folders of a folder, down to a depth, in a single pass.
+   * The symbolic links are not followed, and the entries which cannot be read are skipped.
+   *
+   * @param maxDepth the depth of the listing, 1 for the direct children of the folder only
+   * @param glob the entries to list, matched on their name, like {@code *.log}, or null for all of them.
+   *             The sub-folders are walked whether they match or not.
+   * @return the entries, with paths relative to the folder
+   */
+  public List<FileEntry> walk(String folder, int maxDepth, String glob) {
+    Path root = Paths.get(folder);
+    if (!Files.isDirectory(root) || !Files.isReadable(root)) {
+      throw new UncheckedIOException(new IOException("Folder does not exist or is not readable : " + folder));
+    }
+    PathMatcher matcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    List<FileEntry> entries = new ArrayList<>();
+    try {
+      Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          add(dir, attrs);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          // including the folders at the maximum depth
+          add(file, attrs);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          logger.debug("Unable to list {}", file, exc);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+          if (exc != null) {
+            logger.debug("Unable to list {}", dir, exc);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        private void add(Path path, BasicFileAttributes attrs) {
+          if (!path.equals(root) && (matcher == null || matcher.matches(path.getFileName()))) {
+            String relativePath = root.relativize(path).toString().replace(File.separatorChar, '/');
+            entries.add(new FileEntry(relativePath, attrs.isDirectory() ? 0 : attrs.size(), attrs.lastModifiedTime().toMillis(), attrs.isDirectory()));
+          }
+        }
+      });
     } catch (IOException ioe) {
-      throw new UncheckedIOException("Error downloading folder " + file, ioe);
+      throw new UncheckedIOException("Error walking folder " + folder, ioe);
+    }
+    return entries;
+  }
+
+  /**
+   * Compares the files of a folder with the local copy of the orchestrator
+   *
+   * @param copies the files of the local copy
+   * @return the files to transfer to bring the copy up to date, the unchanged ones being omitted
+   */
+  public List<FileDelta> planSync(String folder, List<FileDigest> copies) {
+    Map<String, FileDigest> copiesByPath = new HashMap<>();
+    copies.forEach(copy -> copiesByPath.put(copy.getRelativePath(), copy));
+    Path root = Paths.get(folder);
+    List<FileDelta> deltas = new ArrayList<>();
+    for (FileEntry entry : listTree(folder)) {
+      FileDigest copy = copiesByPath.get(entry.getRelativePath());
+      long offset;
+      try {
+        offset = copy == null ? 0 : copy.resumeOffset(root.resolve(entry.getRelativePath()), entry);
+      } catch (IOException ioe) {
+        logger.debug("Unable to compare {} with its copy, transferring it all", entry, ioe);
+        offset = 0;
+      }
+      if (offset >= 0) {
+        deltas.add(new FileDelta(entry, offset));
+      }
     }
-    return baos.toByteArray();
+    return deltas;
   }
 
-  private void zipFolder(ZipOutputStream zos, String parent, File folder) throws IOException {
-    if (!folder.canRead()) {
-      throw new IOException("Folder does not exist or is not readable : " + folder);
+  /**
+   * Reads a range of a file, for the downloads to transfer bounded chunks instead of whole files
+   *
+   * @return the bytes read, fewer than asked at the end of the file
+   */
+  public FileChunk readChunk(String file, long offset, int length) {
+    if (offset < 0 || length < 0 || length > MAX_CHUNK_SIZE) {
+      throw new IllegalArgumentException("Invalid range: offset: " + offset + ", length: " + length);
     }
-    File[] files = folder.listFiles();
-    if (files == null) {
-      throw new IOException("Error listing folder " + folder);
-    }
-    for (File file : files) {
-      if (file.isDirectory()) {
-        zipFolder(zos, parent + file.getName() + "/", file);
-      } else {
-        ZipEntry zipEntry = new ZipEntry(parent + file.getName());
-        zipEntry.setTime(file.lastModified());
-        zos.putNextEntry(zipEntry);
-        try (FileInputStream fis = new FileInputStream(file)) {
-          IOUtils.copy(fis, zos);
+    try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, size - offset)));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          break;
         }
-        zos.closeEntry();
       }
+      byte[] bytes = buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+      return new FileChunk(offset, bytes, size);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Error reading file " + file + " at offset " + offset, ioe);
+    }
+  }
+
+  public GrepResult grep(String folder, Pattern pattern, GrepOptions options) {
+    try {
+      return Grep.grep(Paths.get(folder), pattern, options);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Error searching folder " + folder, ioe);
     }
   }
 
+  /**
+   * Starts pushing the lines appended to a file to a subscriber, see {@link LogStreamer}
+   *
+   * @param filter the lines to push, or null for all of them
+   * @param window the maximum number of segments pushed and not acknowledged yet with {@link #ackLogStream(String, long)}
+   */
+  public void startLogStream(String streamId, String file, Pattern filter, int window, Consumer<LogSegment> sink) {
+    logStreamer.start(streamId, Paths.get(file), filter, window, sink);
+  }
+
+  public void ackLogStream(String streamId, long sequence) {
+    logStreamer.ack(streamId, sequence);
+  }
+
+  public void stopLogStream(String streamId) {
+    logStreamer.stop(streamId);
+  }
+
   private static class Dirs {
     final File kitDir;
     final File workingDir;
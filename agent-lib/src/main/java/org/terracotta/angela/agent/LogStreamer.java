@@ -0,0 +1,206 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.angela.common.util.LogSegment;
+import org.terracotta.angela.common.util.LogTailer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Pushes the lines appended to files of this agent to their subscribers, in segments.
+ * <p>
+ * A single thread polls all the files. A stream stops reading its file while too many of the segments it sent are not
+ * acknowledged yet: a slow subscriber only makes its stream lag behind the file, without buffering anything here.
+ * A stream which window stays full for too long is stopped: its subscriber is considered gone, like an orchestrator
+ * which died without stopping it, and the file is closed.
+ */
+class LogStreamer {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogStreamer.class);
+
+  static final int MAX_SEGMENT_LINES = 1000;
+  static final int MAX_SEGMENT_CHARS = 64 * 1024;
+  static final long POLL_INTERVAL_MILLIS = 100;
+  static final long DEFAULT_STALL_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+  private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+  private final long stallTimeoutMillis;
+  private ScheduledExecutorService poller;
+
+  LogStreamer() {
+    this(DEFAULT_STALL_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param stallTimeoutMillis how long the window of a stream can stay full before the stream is stopped
+   */
+  LogStreamer(long stallTimeoutMillis) {
+    this.stallTimeoutMillis = stallTimeoutMillis;
+  }
+
+  /**
+   * @param filter the lines to send, or null for all of them
+   * @param window the maximum number of segments sent and not acknowledged yet
+   */
+  void start(String streamId, Path file, Pattern filter, int window, Consumer<LogSegment> sink) {
+    if (window < 1) {
+      throw new IllegalArgumentException("Invalid window: " + window);
+    }
+    Stream stream = new Stream(streamId, file, filter, window, sink);
+    if (streams.putIfAbsent(streamId, stream) != null) {
+      throw new IllegalStateException("Log stream: " + streamId + " already started");
+    }
+    logger.debug("Streaming: {} as: {}", file, streamId);
+    stream.future = poller().scheduleWithFixedDelay(stream::poll, 0, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Records that the subscriber consumed the segments up to this one
+   */
+  void ack(String streamId, long sequence) {
+    Stream stream = streams.get(streamId);
+    if (stream != null) {
+      stream.acked.accumulateAndGet(sequence + 1, Math::max);
+    }
+  }
+
+  void stop(String streamId) {
+    Stream stream = streams.remove(streamId);
+    if (stream != null) {
+      logger.debug("Stopped log stream: {}", streamId);
+      stream.close();
+    }
+  }
+
+  private synchronized ScheduledExecutorService poller() {
+    if (poller == null) {
+      poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "angela-log-streamer");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return poller;
+  }
+
+  private class Stream {
+    final String id;
+    final Path file;
+    final Pattern filter;
+    final int window;
+    final Consumer<LogSegment> sink;
+    final LogTailer tailer;
+    // the number of segments consumed by the subscriber
+    final AtomicLong acked = new AtomicLong();
+    long sent;
+    // when the window became full, in nanoseconds, or -1 while it is not
+    long stalledSince = -1;
+    boolean closed;
+    volatile ScheduledFuture<?> future;
+
+    Stream(String id, Path file, Pattern filter, int window, Consumer<LogSegment> sink) {
+      this.id = id;
+      this.file = file;
+      this.filter = filter;
+      this.window = window;
+      this.sink = sink;
+      this.tailer = new LogTailer(file);
+    }
+
+    synchronized void poll() {
+      if (closed) {
+        // closed before its future was known
+        cancel();
+        return;
+      }
+      try {
+        while (!closed && sent - acked.get() < window) {
+          List<String> lines = new ArrayList<>();
+          int[] chars = {0};
+          String last = tailer.readLines(line -> {
+            if (filter == null || filter.matcher(line).find()) {
+              lines.add(line);
+              chars[0] += line.length();
+            }
+            return lines.size() >= MAX_SEGMENT_LINES || chars[0] >= MAX_SEGMENT_CHARS;
+          });
+          if (!lines.isEmpty()) {
+            sink.accept(new LogSegment(id, sent++, lines));
+          }
+          if (last == null) {
+            // all the complete lines were read
+            stalledSince = -1;
+            return;
+          }
+        }
+        if (closed) {
+          return;
+        }
+        long now = System.nanoTime();
+        if (stalledSince < 0) {
+          stalledSince = now;
+        } else if (TimeUnit.NANOSECONDS.toMillis(now - stalledSince) >= stallTimeoutMillis) {
+          logger.warn("Stopping log stream: {} of: {}: no segment acknowledged for {} ms", id, file, stallTimeoutMillis);
+          stop(id);
+        }
+      } catch (IOException e) {
+        logger.debug("Unable to read: {}, reading it again from its start", file, e);
+        closeTailer();
+      } catch (RuntimeException e) {
+        // typically the subscriber node left the cluster
+        logger.warn("Stopping log stream: {} of: {}: {}", id, file, e.getMessage(), e);
+        stop(id);
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+      cancel();
+      closeTailer();
+    }
+
+    private void cancel() {
+      ScheduledFuture<?> future = this.future;
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+
+    private void closeTailer() {
+      try {
+        tailer.close();
+      } catch (IOException e) {
+        logger.debug("Unable to close: {}", file, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.com;
+
+import java.io.Serializable;
+import java.util.zip.CRC32;
+
+/**
+ * A range of bytes of a remote file, read by an agent, with the checksum computed on the agent
+ */
+public class FileChunk implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final long offset;
+  private final byte[] bytes;
+  private final long checksum;
+  private final long fileSize;
+
+  public FileChunk(long offset, byte[] bytes, long fileSize) {
+    this.offset = offset;
+    this.bytes = bytes;
+    this.checksum = checksum(bytes);
+    this.fileSize = fileSize;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return the size of the file when the chunk was read
+   */
+  public long getFileSize() {
+    return fileSize;
+  }
+
+  /**
+   * @throws IllegalStateException if the bytes received do not match the checksum computed on the agent
+   */
+  public FileChunk verify() {
+    long actual = checksum(bytes);
+    if (actual != checksum) {
+      throw new IllegalStateException("Corrupted chunk at offset: " + offset + " of length: " + bytes.length + ": checksum: " + actual + " instead of: " + checksum);
+    }
+    return this;
+  }
+
+  private static long checksum(byte[] bytes) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes, 0, bytes.length);
+    return crc32.getValue();
+  }
+
+  @Override
+  public String toString() {
+    return "[" + offset + ", " + (offset + bytes.length) + "[ of " + fileSize;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.com;
+
+import java.io.Serializable;
+
+/**
+ * A remote file to transfer to synchronize a local copy, from an offset when data was only appended to it
+ */
+public class FileDelta implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final FileEntry entry;
+  private final long offset;
+
+  public FileDelta(FileEntry entry, long offset) {
+    this.entry = entry;
+    this.offset = offset;
+  }
+
+  public FileEntry getEntry() {
+    return entry;
+  }
+
+  /**
+   * @return the offset from which the file must be transferred: the local copy is kept up to it
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  @Override
+  public String toString() {
+    return entry + " from: " + offset;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.com;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32;
+
+/**
+ * What the orchestrator has of a remote file, for the agent to only send what changed since the last synchronization.
+ * <p>
+ * The file is summarized by its size, modification time, and the checksum of its whole content:
+ * a remote file which grew and still starts with the same content is considered to be the same file
+ * with data appended, like a log file. A remote file of the same size but with another modification time
+ * was rewritten in place, and is transferred again.
+ */
+public class FileDigest implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String relativePath; // unix-like
+  private final long size;
+  private final long lastModified;
+  private final long checksum;
+
+  public FileDigest(String relativePath, long size, long lastModified, long checksum) {
+    this.relativePath = relativePath;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Summarizes a local file
+   */
+  public static FileDigest of(Path root, Path file) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    long size = attributes.size();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new FileDigest(root.relativize(file).toString().replace(File.separatorChar, '/'), size, attributes.lastModifiedTime().toMillis(),
+          checksum(channel, size));
+    }
+  }
+
+  public String getRelativePath() {
+    return relativePath;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Compares the summarized copy with the remote file
+   *
+   * @return -1 if the copy is up to date, otherwise the offset from which the remote file must be transferred:
+   * the size of the copy when data was only appended, or 0 when the file changed
+   */
+  public long resumeOffset(Path remoteFile, FileEntry remote) throws IOException {
+    if (remote.getSize() == size && remote.getLastModified() == lastModified) {
+      return -1;
+    }
+    // the same size with another modification time means the file was rewritten in place
+    if (remote.getSize() <= size) {
+      return 0;
+    }
+    try (FileChannel channel = FileChannel.open(remoteFile, StandardOpenOption.READ)) {
+      return checksum(channel, size) == checksum ? size : 0;
+    }
+  }
+
+  /**
+   * @return the checksum of the first bytes of the file
+   */
+  private static long checksum(FileChannel channel, long length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(length, 1)));
+    CRC32 crc32 = new CRC32();
+    long position = 0;
+    while (position < length) {
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), length - position));
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      crc32.update(buffer.array(), 0, read);
+      position += read;
+    }
+    return crc32.getValue();
+  }
+
+  @Override
+  public String toString() {
+    return relativePath + " (" + size + " bytes)";
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.com;
+
+import java.io.Serializable;
+
+/**
+ * A file or a sub-folder of a remote folder, as listed by an agent
+ */
+public class FileEntry implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String relativePath; // unix-like
+  private final long size;
+  private final long lastModified;
+  private final boolean directory;
+
+  public FileEntry(String relativePath, long size, long lastModified) {
+    this(relativePath, size, lastModified, false);
+  }
+
+  public FileEntry(String relativePath, long size, long lastModified, boolean directory) {
+    this.relativePath = relativePath;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.directory = directory;
+  }
+
+  /**
+   * @return the path of the file relative to the listed folder, with {@code /} separators
+   */
+  public String getRelativePath() {
+    return relativePath;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the last modification time, in milliseconds since the epoch
+   */
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public boolean isDirectory() {
+    return directory;
+  }
+
+  @Override
+  public String toString() {
+    return directory ? relativePath + "/" : relativePath + " (" + size + " bytes)";
+  }
+}
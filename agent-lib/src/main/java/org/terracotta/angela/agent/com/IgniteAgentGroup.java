@@ -18,17 +18,20 @@ package org.terracotta.angela.agent.com;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCompute;
 import org.apache.ignite.cluster.ClusterGroup;
 import org.apache.ignite.cluster.ClusterTopologyException;
 import org.apache.ignite.events.DiscoveryEvent;
 import org.apache.ignite.events.Event;
 import org.apache.ignite.events.EventType;
 import org.apache.ignite.lang.IgniteBiPredicate;
+import org.apache.ignite.lang.IgniteCallable;
 import org.apache.ignite.lang.IgnitePredicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terracotta.angela.agent.Agent;
 import org.terracotta.angela.common.util.AngelaVersion;
+import org.terracotta.angela.common.util.ClusterClock;
 
 import java.io.Serializable;
 import java.util.Collection;
@@ -40,6 +43,9 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toMap;
@@ -52,16 +58,32 @@ public class IgniteAgentGroup extends AgentGroup {
 
   private static final Logger logger = LoggerFactory.getLogger(IgniteAgentGroup.class);
 
+  private static final int CLOCK_SYNC_SAMPLES = 8;
+  private static final long CLOCK_SYNC_PERIOD_SECONDS = 30;
+
   private final transient Ignite ignite;
 
   @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
   private final transient Map<AgentID, CompletableFuture<Void>> shutdowns = new ConcurrentHashMap<>();
 
+  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+  private final transient Map<AgentID, ClusterClock.Offset> clockOffsets = new ConcurrentHashMap<>();
+
+  // only set on the orchestrator, which is the reference clock of the group
+  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+  private final transient ScheduledExecutorService clockSync;
+
   private final Map<AgentID, Meta> discoveredAgents = new ConcurrentHashMap<>();
 
   IgniteAgentGroup(UUID id, AgentID me, Ignite ignite) {
     super(id, me);
     this.ignite = ignite;
+    this.clockSync = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "angela-clock-sync-" + id);
+      thread.setDaemon(true);
+      return thread;
+    });
+    clockSync.scheduleWithFixedDelay(this::syncClocks, CLOCK_SYNC_PERIOD_SECONDS, CLOCK_SYNC_PERIOD_SECONDS, TimeUnit.SECONDS);
 
     joined(me, null);
 
@@ -134,6 +156,7 @@ public class IgniteAgentGroup extends AgentGroup {
       }
 
       logger.info("Agent: {} has joined cluster group: {}", agentID, getId());
+      scheduleClockSync(agentID);
 
       return new Meta(attrs, hostname);
     });
@@ -154,6 +177,7 @@ public class IgniteAgentGroup extends AgentGroup {
     Meta meta = discoveredAgents.remove(agentID);
     if (meta != null) {
       meta.hostnames.clear();
+      clockOffsets.remove(agentID);
       getShutdown(agentID).complete(null);
       logger.info("Agent: {} has left cluster group: {}", agentID, getId());
     }
@@ -200,6 +224,64 @@ public class IgniteAgentGroup extends AgentGroup {
     return Optional.of(clusterGroup);
   }
 
+  // clock sync
+
+  /**
+   * @return the last measured offset of the agent clock compared to the orchestrator clock
+   */
+  public Optional<ClusterClock.Offset> getClockOffset(AgentID agentID) {
+    return getLocalAgentID().equals(agentID) ? Optional.of(ClusterClock.Offset.NONE) : Optional.ofNullable(clockOffsets.get(agentID));
+  }
+
+  private void scheduleClockSync(AgentID agentID) {
+    // clockSync is null when the group was deserialized on a remote agent
+    if (clockSync != null && !getLocalAgentID().equals(agentID)) {
+      clockSync.execute(() -> syncClock(agentID));
+    }
+  }
+
+  private void syncClocks() {
+    discoveredAgents.keySet().stream()
+        .filter(agentID -> !getLocalAgentID().equals(agentID))
+        .forEach(this::syncClock);
+  }
+
+  /**
+   * NTP-style exchange: the sample with the smallest round-trip time gives the most accurate offset,
+   * which is then pushed to the agent so that its cluster time is aligned on the orchestrator.
+   */
+  private void syncClock(AgentID agentID) {
+    ClusterGroup clusterGroup = clusterGroup(agentID).orElse(null);
+    if (clusterGroup == null) {
+      return;
+    }
+    try {
+      IgniteCompute compute = ignite.compute(clusterGroup);
+      IgniteCallable<Long> remoteTime = ClusterClock::localTimeNanos;
+      ClusterClock.Offset best = null;
+      for (int i = 0; i < CLOCK_SYNC_SAMPLES; i++) {
+        long sent = ClusterClock.localTimeNanos();
+        long remote = compute.call(remoteTime);
+        ClusterClock.Offset sample = ClusterClock.Offset.estimate(sent, remote, ClusterClock.localTimeNanos());
+        if (best == null || sample.getRoundTripNanos() < best.getRoundTripNanos()) {
+          best = sample;
+        }
+      }
+      final ClusterClock.Offset offset = best;
+      compute.run(() -> ClusterClock.setOffset(offset));
+      clockOffsets.put(agentID, offset);
+      logger.debug("Agent: {} clock {}", agentID, offset);
+    } catch (RuntimeException e) {
+      logger.warn("Unable to sync clock of agent: {}: {}", agentID, e.getMessage());
+    }
+  }
+
+  void close() {
+    if (clockSync != null) {
+      clockSync.shutdownNow();
+    }
+  }
+
   // shutdown
 
   Optional<CompletableFuture<Void>> requestShutdown(AgentID agentID) {
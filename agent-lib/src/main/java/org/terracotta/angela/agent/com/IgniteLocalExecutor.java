@@ -91,6 +91,8 @@ public class IgniteLocalExecutor implements Executor {
       throw new AssertionError(e.getCause());
     } catch (TimeoutException e) {
       logger.warn("Some agents did not shutdown within {}: {}", timeout, agentGroup.getSpawnedAgents(), e);
+    } finally {
+      agentGroup.close();
     }
   }
 
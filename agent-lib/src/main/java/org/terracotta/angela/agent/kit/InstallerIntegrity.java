@@ -0,0 +1,154 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.kit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * The verification of an installer against its secure hash file ({@code .sha256} or {@code .md5}).
+ * <p>
+ * Once an installer is verified, a record of the verification is kept next to it, with the size, modification time
+ * and file key (the inode on unix) of the installer: as long as they do not change, the installer is considered
+ * verified without hashing it again.
+ */
+public final class InstallerIntegrity {
+
+  public static final String MD5 = "MD5";
+  public static final String SHA_256 = "SHA-256";
+
+  private static final String RECORD_SUFFIX = ".verified";
+
+  private InstallerIntegrity() {
+  }
+
+  /**
+   * @return the secure hash file of the installer, SHA-256 being preferred, or null if there is none
+   */
+  public static Path hashFile(Path installer) {
+    Path sha256 = Paths.get(installer.toAbsolutePath() + ".sha256");
+    if (Files.isRegularFile(sha256)) {
+      return sha256;
+    }
+    Path md5 = Paths.get(installer.toAbsolutePath() + ".md5");
+    return Files.isRegularFile(md5) ? md5 : null;
+  }
+
+  /**
+   * @return where to store the secure hash file of the installer downloaded from the URL
+   */
+  public static Path hashFile(Path installer, URL hashUrl) {
+    return Paths.get(installer + (hashUrl.getPath().endsWith(".sha256") ? ".sha256" : ".md5"));
+  }
+
+  public static String algorithm(Path hashFile) {
+    return hashFile.getFileName().toString().endsWith(".sha256") ? SHA_256 : MD5;
+  }
+
+  /**
+   * @return the hash of the hash file, which may be followed by the name of the file, like with the {@code sha256sum} output
+   */
+  public static String expectedDigest(Path hashFile) throws IOException {
+    String content = new String(Files.readAllBytes(hashFile), StandardCharsets.US_ASCII).trim();
+    return content.split("\\s+")[0];
+  }
+
+  public static String digest(Path file, String algorithm) throws IOException {
+    MessageDigest digest = newDigest(algorithm);
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  public static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Records that the installer, as it is now, has the digest
+   */
+  public static void record(Path installer, String algorithm, String digest) throws IOException {
+    BasicFileAttributes attrs = Files.readAttributes(installer, BasicFileAttributes.class);
+    Properties properties = new Properties();
+    properties.setProperty("size", Long.toString(attrs.size()));
+    properties.setProperty("lastModified", Long.toString(attrs.lastModifiedTime().toMillis()));
+    properties.setProperty("fileKey", String.valueOf(attrs.fileKey()));
+    properties.setProperty("algorithm", algorithm);
+    properties.setProperty("digest", digest);
+    Path record = recordFile(installer);
+    Path tmp = Paths.get(record + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      properties.store(out, null);
+    }
+    Files.move(tmp, record, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * @return true if the installer was recorded with the expected digest, and did not change since
+   */
+  public static boolean isRecorded(Path installer, String algorithm, String expectedDigest) {
+    Path record = recordFile(installer);
+    if (!Files.isRegularFile(record)) {
+      return false;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(record)) {
+      properties.load(in);
+      BasicFileAttributes attrs = Files.readAttributes(installer, BasicFileAttributes.class);
+      return Long.toString(attrs.size()).equals(properties.getProperty("size"))
+          && Long.toString(attrs.lastModifiedTime().toMillis()).equals(properties.getProperty("lastModified"))
+          && String.valueOf(attrs.fileKey()).equals(properties.getProperty("fileKey"))
+          && algorithm.equals(properties.getProperty("algorithm"))
+          && expectedDigest.equalsIgnoreCase(Objects.toString(properties.getProperty("digest"), ""));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static Path recordFile(Path installer) {
+    return Paths.get(installer.toAbsolutePath() + RECORD_SUFFIX);
+  }
+}
@@ -16,7 +16,6 @@
  */
 package org.terracotta.angela.agent.kit;
 
-import org.apache.ignite.internal.util.IgniteUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terracotta.angela.common.distribution.Distribution;
@@ -24,14 +23,9 @@ import org.terracotta.angela.common.topology.PackageType;
 import org.terracotta.angela.common.util.FileUtils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.TimeUnit;
 
 import static org.terracotta.angela.agent.Agent.ROOT_DIR;
@@ -92,36 +86,42 @@ public abstract class KitManager {
       return false;
     }
 
-    // snapshots and SAG installer have no MD5
+    // snapshots and SAG installer have no secure hash
     if (distribution.getVersion().isSnapshot() || distribution.getPackageType() != KIT) {
       return true;
     }
 
-    String md5File = localInstallerFile.toAbsolutePath() + ".md5";
-    String md5FileHash;
-    try {
-      byte[] bytes = Files.readAllBytes(Paths.get(md5File));
-      md5FileHash = new String(bytes, StandardCharsets.US_ASCII).trim();
-    } catch (NoSuchFileException nsfe) {
-      // no MD5 file? let's consider the archive corrupt
-      logger.warn("{} does not have corresponding {} secure hash file on disk, considering it corrupt", localInstallerFile, md5File);
+    Path hashFile = InstallerIntegrity.hashFile(localInstallerFile);
+    if (hashFile == null) {
+      // no secure hash file? let's consider the archive corrupt
+      logger.warn("{} does not have a corresponding .sha256 or .md5 secure hash file on disk, considering it corrupt", localInstallerFile);
       FileUtils.deleteQuietly(localInstallerFile.getParent());
       return false;
+    }
+    String algorithm = InstallerIntegrity.algorithm(hashFile);
+    String expectedDigest;
+    try {
+      expectedDigest = InstallerIntegrity.expectedDigest(hashFile);
     } catch (IOException ioe) {
-      throw new RuntimeException("Error reading " + md5File, ioe);
+      throw new RuntimeException("Error reading " + hashFile, ioe);
     }
 
-    try (InputStream fis = Files.newInputStream(localInstallerFile)) {
-      if (!IgniteUtils.calculateMD5(fis).equalsIgnoreCase(md5FileHash)) {
-        // MD5 does not match? let's consider the archive corrupt
-        logger.warn("{} secure hash does not match the contents of {} secure hash file on disk, considering it corrupt", localInstallerFile, md5File);
+    if (InstallerIntegrity.isRecorded(localInstallerFile, algorithm, expectedDigest)) {
+      logger.debug("{} did not change since it was verified against {}", localInstallerFile, hashFile);
+      return true;
+    }
+
+    try {
+      String digest = InstallerIntegrity.digest(localInstallerFile, algorithm);
+      if (!digest.equalsIgnoreCase(expectedDigest)) {
+        // hash does not match? let's consider the archive corrupt
+        logger.warn("{} secure hash does not match the contents of {} secure hash file on disk, considering it corrupt", localInstallerFile, hashFile);
         FileUtils.deleteQuietly(localInstallerFile.getParent());
         return false;
       }
+      InstallerIntegrity.record(localInstallerFile, algorithm, digest);
     } catch (IOException ioe) {
       throw new RuntimeException("Error reading " + localInstallerFile, ioe);
-    } catch (NoSuchAlgorithmException e) {
-      throw new IllegalStateException(e);
     }
 
     return true;
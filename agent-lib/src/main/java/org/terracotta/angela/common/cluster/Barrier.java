@@ -20,8 +20,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteAtomicLong;
 import org.apache.ignite.IgniteCountDownLatch;
+import org.terracotta.angela.common.util.ClusterClock;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -77,4 +79,50 @@ public class Barrier implements Serializable {
     }
   }
 
+  /**
+   * Waits for all the parties like {@link #await()}, then releases them all at the same instant.
+   * <p>
+   * Before arriving at the barrier, each party proposes a start time of its cluster time plus {@code lead},
+   * and all the parties then wait locally until the latest proposal. The lead must be greater than the
+   * barrier notification latency so that all the parties learn the start time before it is reached.
+   *
+   * @return the barrier index of this party
+   */
+  public int awaitStart(Duration lead) throws InterruptedException {
+    IgniteAtomicLong startTime = proposeStartTime(lead);
+    int index = await();
+    ClusterClock.sleepUntil(startTime.get());
+    return index;
+  }
+
+  /**
+   * Like {@link #awaitStart(Duration)}, with a timeout on the arrival of the other parties
+   */
+  public int awaitStart(Duration lead, long time, TimeUnit unit) throws InterruptedException, TimeoutException {
+    IgniteAtomicLong startTime = proposeStartTime(lead);
+    int index = await(time, unit);
+    ClusterClock.sleepUntil(startTime.get());
+    return index;
+  }
+
+  private IgniteAtomicLong proposeStartTime(Duration lead) {
+    if (resetCount >= 2) {
+      // all the parties arrived at the previous generation, so they are all done reading the start time of the one before it
+      IgniteAtomicLong stale = ignite.atomicLong(startTimeName(resetCount - 2), 0L, false);
+      if (stale != null) {
+        stale.close();
+      }
+    }
+    IgniteAtomicLong startTime = ignite.atomicLong(startTimeName(resetCount), 0L, true);
+    long proposal = ClusterClock.clusterTimeNanos() + lead.toNanos();
+    long current = startTime.get();
+    while (current < proposal && !startTime.compareAndSet(current, proposal)) {
+      current = startTime.get();
+    }
+    return startTime;
+  }
+
+  private String startTimeName(int generation) {
+    return "Barrier-Start-" + name + "#" + generation;
+  }
 }
@@ -20,8 +20,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.ignite.Ignite;
 import org.terracotta.angela.agent.com.AgentID;
 import org.terracotta.angela.common.clientconfig.ClientId;
+import org.terracotta.angela.common.util.ClusterClock;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 import static java.util.Objects.requireNonNull;
 
@@ -59,6 +61,66 @@ public class Cluster implements Serializable {
     return new AtomicReference<>(ignite, name, initialValue);
   }
 
+  /**
+   * A queue of work ranges from which client jobs claim chunks of work,
+   * as an alternative to static partitioning by client ID or barrier index.
+   */
+  public WorkQueue workQueue(String name) {
+    return new WorkQueue(ignite, name);
+  }
+
+  /**
+   * A read-mostly map near-cached in each JVM, to share fixtures with the client jobs
+   * without serializing them in each job.
+   */
+  public <K, V> SharedMap<K, V> sharedMap(String name) {
+    return new SharedMap<>(ignite, name);
+  }
+
+  /**
+   * A publish / subscribe topic to push events to the orchestrator and the client jobs,
+   * with the default publisher batching
+   */
+  public <T extends Serializable> Topic<T> topic(String name) {
+    return topic(name, Topic.DEFAULT_MAX_BATCH_SIZE, Topic.DEFAULT_LINGER_MICROS);
+  }
+
+  /**
+   * A publish / subscribe topic to push events to the orchestrator and the client jobs
+   *
+   * @param maxBatchSize the maximum number of messages sent at once by a publisher
+   * @param lingerMicros how long a publisher waits for more messages before sending a batch, 0 to send each message immediately
+   */
+  public <T extends Serializable> Topic<T> topic(String name, int maxBatchSize, long lingerMicros) {
+    return new Topic<>(ignite, name, maxBatchSize, lingerMicros);
+  }
+
+  /**
+   * A probe for the client jobs to report the failures and recoveries of their operations,
+   * to measure the outages seen by the clients during a failover
+   */
+  public OutageProbe outageProbe(String name) {
+    return new OutageProbe(ignite, name, clientId != null ? clientId.toString() : from.toString());
+  }
+
+  /**
+   * @return the current time in nanoseconds since the epoch, corrected to the orchestrator's timebase,
+   * so that timestamps taken on different hosts can be compared
+   */
+  public long clusterTimeNanos() {
+    return ClusterClock.clusterTimeNanos();
+  }
+
+  /**
+   * Blocks until the given instant of the orchestrator's timebase, so that jobs on different hosts
+   * waiting for the same instant start at the same time.
+   *
+   * @see Barrier#awaitStart(java.time.Duration) to agree on a start instant
+   */
+  public void startAt(Instant instant) throws InterruptedException {
+    ClusterClock.sleepUntil(ClusterClock.toEpochNanos(instant));
+  }
+
   /**
    * @return the client ID if called in the context of a client job,
    * and null otherwise.
@@ -0,0 +1,113 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.cluster;
+
+import org.apache.ignite.Ignite;
+import org.terracotta.angela.common.util.ClusterClock;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets the client jobs report the outcome of the operations they run against a cluster,
+ * so that the orchestrator can time the outages seen by the clients.
+ * <p>
+ * Only the transitions are published: the first failure after a success, and the first success after a failure.
+ * Each transition is timestamped in cluster time when it is reported.
+ */
+public class OutageProbe implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  // several jobs of the same client each get their own probe
+  private static final AtomicInteger PROBE_COUNTER = new AtomicInteger();
+
+  private final Topic<Event> topic;
+  private final String source;
+
+  // publisher state, local to this instance
+  private transient boolean failing;
+
+  OutageProbe(Ignite ignite, String name, String owner) {
+    this.topic = new Topic<>(ignite, "Outage-Probe-" + name, Topic.DEFAULT_MAX_BATCH_SIZE, Topic.DEFAULT_LINGER_MICROS);
+    this.source = owner + "#" + PROBE_COUNTER.incrementAndGet();
+  }
+
+  /**
+   * Reports a successful operation
+   */
+  public synchronized void success() {
+    if (failing) {
+      failing = false;
+      topic.publish(new Event(source, false, ClusterClock.clusterTimeNanos()));
+    }
+  }
+
+  /**
+   * Reports a failed operation
+   */
+  public synchronized void failure() {
+    if (!failing) {
+      failing = true;
+      topic.publish(new Event(source, true, ClusterClock.clusterTimeNanos()));
+    }
+  }
+
+  /**
+   * Registers a listener in this JVM, which receives the transitions reported by all the probes of this name
+   */
+  public Topic.Subscription subscribe(Topic.Listener<Event> listener) {
+    return topic.subscribe(listener);
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public static class Event implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String source;
+    private final boolean failure;
+    private final long clusterTimeNanos;
+
+    Event(String source, boolean failure, long clusterTimeNanos) {
+      this.source = source;
+      this.failure = failure;
+      this.clusterTimeNanos = clusterTimeNanos;
+    }
+
+    public String getSource() {
+      return source;
+    }
+
+    /**
+     * @return true for the first failure after a success, false for the first success after a failure
+     */
+    public boolean isFailure() {
+      return failure;
+    }
+
+    public long getClusterTimeNanos() {
+      return clusterTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+      return source + (failure ? " failed at: " : " recovered at: ") + ClusterClock.toInstant(clusterTimeNanos);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.cluster;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteAtomicLong;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.lang.IgniteBiPredicate;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Collections.singleton;
+
+/**
+ * A read-mostly map shared by the orchestrator and all the client jobs, typically used to distribute test fixtures.
+ * <p>
+ * Entries are stored in an Ignite cache and each JVM keeps the entries it has read in a local near-cache,
+ * so that a value is transferred once per JVM and not once per job or per access.
+ * Each update bumps the map version and broadcasts an invalidation of the updated keys to all the near-caches.
+ * <p>
+ * The values returned are shared by all the jobs running in the same JVM and must not be modified.
+ * The near-caches belong to the Ignite node of the JVM and are dropped with it, or when the map is closed.
+ */
+public class SharedMap<K, V> implements Serializable, AutoCloseable {
+  private static final long serialVersionUID = 1L;
+
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final Ignite ignite;
+  private final String name;
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteCache<K, V> cache;
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteAtomicLong version;
+
+  SharedMap(Ignite ignite, String name) {
+    this.ignite = ignite;
+    this.name = name;
+    this.cache = ignite.getOrCreateCache(new CacheConfiguration<K, V>("Shared-Map-" + name));
+    this.version = ignite.atomicLong("Shared-Map-Version-" + name, 0L, true);
+  }
+
+  public V get(K key) {
+    NearCache<K, V> nearCache = nearCache();
+    V value = nearCache.values.get(key);
+    if (value == null) {
+      long before = nearCache.version;
+      value = cache.get(key);
+      nearCache.cache(before, key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Gets all the requested entries, fetching the ones missing from the near-cache in a single call
+   */
+  public Map<K, V> getAll(Collection<? extends K> keys) {
+    NearCache<K, V> nearCache = nearCache();
+    Map<K, V> result = new HashMap<>();
+    Set<K> missing = new HashSet<>();
+    for (K key : keys) {
+      V value = nearCache.values.get(key);
+      if (value == null) {
+        missing.add(key);
+      } else {
+        result.put(key, value);
+      }
+    }
+    if (!missing.isEmpty()) {
+      long before = nearCache.version;
+      Map<K, V> fetched = cache.getAll(missing);
+      fetched.forEach((key, value) -> nearCache.cache(before, key, value));
+      result.putAll(fetched);
+    }
+    return result;
+  }
+
+  public boolean containsKey(K key) {
+    return get(key) != null;
+  }
+
+  public void put(K key, V value) {
+    cache.put(key, value);
+    invalidate(singleton(key));
+  }
+
+  /**
+   * Puts all the entries in a single call and invalidates them at once
+   */
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    cache.putAll(entries);
+    invalidate(new HashSet<>(entries.keySet()));
+  }
+
+  public void remove(K key) {
+    cache.remove(key);
+    invalidate(singleton(key));
+  }
+
+  public void clear() {
+    cache.clear();
+    invalidate(null);
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * @return the version of the map, incremented on each update
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return name + ":v" + getVersion();
+  }
+
+  /**
+   * Drops the near-cache of this JVM and stops listening to the invalidations.
+   * The map remains usable: the entries are fetched again on the next reads.
+   */
+  @Override
+  public void close() {
+    NearCache<K, V> nearCache = ignite.cluster().<String, NearCache<K, V>>nodeLocalMap().remove(nearCacheKey());
+    if (nearCache != null) {
+      ignite.message().stopLocalListen(topic(), nearCache.listener);
+    }
+  }
+
+  private String topic() {
+    return "Shared-Map-Invalidation-" + name;
+  }
+
+  private String nearCacheKey() {
+    return "Shared-Map-Near-Cache-" + name;
+  }
+
+  private void invalidate(Set<K> keys) {
+    long newVersion = version.incrementAndGet();
+    ignite.message().send(topic(), new Invalidation<>(newVersion, keys));
+  }
+
+  private NearCache<K, V> nearCache() {
+    // local to the Ignite node: a restarted node, even with the same name, does not see the near-caches of the previous one
+    ConcurrentMap<String, NearCache<K, V>> nearCaches = ignite.cluster().nodeLocalMap();
+    return nearCaches.computeIfAbsent(nearCacheKey(), key -> {
+      NearCache<K, V> nearCache = new NearCache<>();
+      // listen before reading the version so that no update can be missed
+      ignite.message().localListen(topic(), nearCache.listener);
+      nearCache.version = version.get();
+      return nearCache;
+    });
+  }
+
+  private static class NearCache<K, V> {
+    final Map<K, V> values = new ConcurrentHashMap<>();
+    final IgniteBiPredicate<UUID, Invalidation<K>> listener = (nodeId, invalidation) -> {
+      invalidate(invalidation);
+      return true;
+    };
+    volatile long version;
+
+    /**
+     * Only caches a fetched value if no invalidation was received while it was fetched,
+     * otherwise the fetched value might be older than the invalidation.
+     */
+    synchronized void cache(long fetchedAtVersion, K key, V value) {
+      if (value != null && version == fetchedAtVersion) {
+        values.put(key, value);
+      }
+    }
+
+    synchronized void invalidate(Invalidation<K> invalidation) {
+      if (invalidation.keys == null) {
+        values.clear();
+      } else {
+        invalidation.keys.forEach(values::remove);
+      }
+      version = Math.max(version, invalidation.version);
+    }
+  }
+
+  private static class Invalidation<K> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final long version;
+    final Set<K> keys; // null means all keys
+
+    Invalidation(long version, Set<K> keys) {
+      this.version = version;
+      this.keys = keys;
+    }
+  }
+}
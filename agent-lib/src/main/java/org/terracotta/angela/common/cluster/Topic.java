@@ -0,0 +1,168 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.cluster;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteMessaging;
+import org.apache.ignite.lang.IgniteBiPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A publish / subscribe topic shared by the orchestrator and the client jobs, built on Ignite messaging.
+ * <p>
+ * Messages from one publisher are delivered in order to all the subscribers.
+ * Publishing is asynchronous: messages are buffered and sent in batches, either when the batch is full
+ * or after a short linger time, so that bursts of messages do not cost one network call each.
+ */
+public class Topic<T extends Serializable> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger logger = LoggerFactory.getLogger(Topic.class);
+
+  public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+  public static final long DEFAULT_LINGER_MICROS = 500;
+
+  // one flusher for all the topics of this JVM
+  private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "angela-topic-flusher");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final Ignite ignite;
+  private final String name;
+  private final int maxBatchSize;
+  private final long lingerMicros;
+  // the only node to send the messages to, or null to send them to all the nodes
+  private final UUID subscriberNodeId;
+
+  // publisher state, local to this instance
+  private transient List<T> batch;
+
+  Topic(Ignite ignite, String name, int maxBatchSize, long lingerMicros) {
+    this(ignite, name, maxBatchSize, lingerMicros, null);
+  }
+
+  private Topic(Ignite ignite, String name, int maxBatchSize, long lingerMicros, UUID subscriberNodeId) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Invalid batch size: " + maxBatchSize);
+    }
+    this.ignite = ignite;
+    this.name = name;
+    this.maxBatchSize = maxBatchSize;
+    this.lingerMicros = lingerMicros;
+    this.subscriberNodeId = subscriberNodeId;
+  }
+
+  /**
+   * For a topic only subscribed to by this JVM, like a stream of events pushed by an agent to the orchestrator
+   *
+   * @return a publisher of this topic sending the messages to this node only, instead of all the nodes of the cluster
+   */
+  public Topic<T> toLocalNode() {
+    return new Topic<>(ignite, name, maxBatchSize, lingerMicros, ignite.cluster().localNode().id());
+  }
+
+  /**
+   * Publishes a message: it is sent with the next batch
+   */
+  public synchronized void publish(T message) {
+    if (batch == null) {
+      batch = new ArrayList<>(maxBatchSize);
+    }
+    batch.add(message);
+    if (batch.size() >= maxBatchSize || lingerMicros <= 0) {
+      flush();
+    } else if (batch.size() == 1) {
+      FLUSHER.schedule(this::flush, lingerMicros, TimeUnit.MICROSECONDS);
+    }
+  }
+
+  /**
+   * Sends the pending messages now
+   */
+  public synchronized void flush() {
+    if (batch == null || batch.isEmpty()) {
+      return;
+    }
+    List<T> toSend = batch;
+    batch = new ArrayList<>(maxBatchSize);
+    try {
+      // 0 means the default ordered message timeout
+      IgniteMessaging messaging = subscriberNodeId == null ? ignite.message() : ignite.message(ignite.cluster().forNodeId(subscriberNodeId));
+      messaging.sendOrdered(topic(), toSend, 0L);
+    } catch (RuntimeException e) {
+      logger.error("Unable to publish {} message(s) on topic: {}: {}", toSend.size(), name, e.getMessage(), e);
+      throw e;
+    }
+  }
+
+  /**
+   * Registers a listener in this JVM, which receives the messages pushed by all the publishers
+   *
+   * @return the subscription, to close to stop receiving messages
+   */
+  public Subscription subscribe(Listener<T> listener) {
+    IgniteBiPredicate<UUID, List<T>> predicate = (nodeId, messages) -> {
+      for (T message : messages) {
+        try {
+          listener.onMessage(message);
+        } catch (RuntimeException e) {
+          logger.error("Listener of topic: {} failed on message: {}: {}", name, message, e.getMessage(), e);
+        }
+      }
+      return true;
+    };
+    ignite.message().localListen(topic(), predicate);
+    return () -> ignite.message().stopLocalListen(topic(), predicate);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  private String topic() {
+    return "Topic-" + name;
+  }
+
+  @FunctionalInterface
+  public interface Listener<T> {
+    void onMessage(T message);
+  }
+
+  @FunctionalInterface
+  public interface Subscription extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.cluster;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteAtomicLong;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.IgniteQueue;
+import org.apache.ignite.IgniteSet;
+import org.apache.ignite.configuration.CollectionConfiguration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A distributed queue of {@code [start, end)} work ranges shared by the client jobs.
+ * <p>
+ * Producers enqueue large ranges which are split into segments and added to the queue in one batch.
+ * Consumers take a segment and claim chunks of it through an atomic cursor, so that a consumer having
+ * nothing left to take can claim chunks from the segments still owned by slower peers.
+ * The chunk size of each consumer adapts to the time it takes to process a chunk.
+ * The cursor of a segment is removed by the consumer claiming its last chunk.
+ * <p>
+ * Instances are not thread-safe: each job should get its own instance through {@link Cluster#workQueue(String)}.
+ */
+public class WorkQueue implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final long DEFAULT_SEGMENT_SIZE = 1L << 20;
+
+  private static final long MIN_CHUNK_SIZE = 1L;
+  private static final long MAX_CHUNK_SIZE = 1L << 16;
+  private static final long TARGET_CLAIM_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long POLL_PERIOD_MILLIS = 100;
+
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final Ignite ignite;
+  private final String name;
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteQueue<Segment> segments;
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteSet<Segment> activeSegments;
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteAtomicLong segmentIds;
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteAtomicLong sealed;
+  // the number of segments enqueued which last chunk is not claimed yet
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final IgniteAtomicLong unclaimed;
+
+  // consumer state, local to this instance
+  private transient Map<Long, IgniteAtomicLong> cursors;
+  private transient Segment currentSegment;
+  private transient long chunkSize = MIN_CHUNK_SIZE;
+  private transient long lastClaimNanos;
+
+  WorkQueue(Ignite ignite, String name) {
+    this.ignite = ignite;
+    this.name = name;
+    CollectionConfiguration collectionConfiguration = new CollectionConfiguration();
+    this.segments = ignite.queue("Work-Queue-" + name, 0, collectionConfiguration);
+    this.activeSegments = ignite.set("Work-Queue-Active-" + name, collectionConfiguration);
+    this.segmentIds = ignite.atomicLong("Work-Queue-Ids-" + name, 0L, true);
+    this.sealed = ignite.atomicLong("Work-Queue-Sealed-" + name, 0L, true);
+    this.unclaimed = ignite.atomicLong("Work-Queue-Unclaimed-" + name, 0L, true);
+  }
+
+  /**
+   * Enqueues the range {@code [start, end)}, split into segments of {@link #DEFAULT_SEGMENT_SIZE}
+   */
+  public void enqueue(long start, long end) {
+    enqueue(start, end, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Enqueues the range {@code [start, end)}, split into segments of {@code segmentSize}.
+   * All the segments are added to the distributed queue in a single batch.
+   */
+  public void enqueue(long start, long end, long segmentSize) {
+    if (end < start) {
+      throw new IllegalArgumentException("Invalid range: [" + start + ", " + end + ")");
+    }
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+    }
+    if (sealed.get() != 0L) {
+      throw new IllegalStateException("Work queue " + name + " is sealed");
+    }
+    long count = (end - start + segmentSize - 1) / segmentSize;
+    if (count == 0) {
+      return;
+    }
+    long id = segmentIds.getAndAdd(count);
+    List<Segment> batch = new ArrayList<>();
+    for (long from = start; from < end; from = Math.min(from + segmentSize, end)) {
+      batch.add(new Segment(id++, from, Math.min(from + segmentSize, end)));
+    }
+    // counted before being visible, so that no consumer can see the queue done in between
+    unclaimed.addAndGet(count);
+    segments.addAll(batch);
+  }
+
+  /**
+   * Marks the end of the production: once all the enqueued work has been claimed,
+   * {@link #claim()} returns null instead of waiting for more work.
+   */
+  public void seal() {
+    sealed.set(1L);
+  }
+
+  public boolean isSealed() {
+    return sealed.get() != 0L;
+  }
+
+  /**
+   * Claims the next chunk of work, waiting for work to be enqueued if needed.
+   *
+   * @return the claimed range, or null if the queue is sealed and all its work has been claimed
+   */
+  public Range claim() throws InterruptedException {
+    onClaim();
+    while (true) {
+      // 1. continue with the segment we own
+      if (currentSegment != null) {
+        Range range = claimFrom(currentSegment, chunkSize);
+        if (range != null) {
+          return range;
+        }
+        currentSegment = null;
+      }
+
+      // 2. take a new segment from the queue
+      Segment segment = segments.poll();
+      if (segment != null) {
+        own(segment);
+        continue;
+      }
+
+      // 3. help slower peers by claiming from their segments
+      Range stolen = steal();
+      if (stolen != null) {
+        return stolen;
+      }
+
+      // 4. nothing to do: either we are done or we wait for some work to come.
+      // The queue and the active set cannot tell: a peer may have polled a segment and not added it to the set yet
+      if (isSealed() && unclaimed.get() == 0L) {
+        return null;
+      }
+      segment = segments.poll(POLL_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+      if (segment != null) {
+        own(segment);
+      }
+    }
+  }
+
+  /**
+   * Claims and processes chunks until the queue is sealed and all its work has been claimed
+   *
+   * @return the number of items processed by this consumer
+   */
+  public long drain(RangeConsumer consumer) throws Exception {
+    long count = 0;
+    for (Range range = claim(); range != null; range = claim()) {
+      consumer.accept(range);
+      count += range.size();
+    }
+    return count;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return name + ":" + segments.size() + " queued, " + activeSegments.size() + " active";
+  }
+
+  private Range steal() {
+    for (Segment segment : activeSegments) {
+      IgniteAtomicLong cursor = cursor(segment);
+      if (cursor == null) {
+        // not started by its owner yet, or already done
+        continue;
+      }
+      long remaining;
+      try {
+        remaining = segment.end - cursor.get();
+      } catch (IllegalStateException | IgniteException e) {
+        // removed by the peer which claimed its last chunk
+        cursors.remove(segment.id);
+        continue;
+      }
+      if (remaining <= 0) {
+        activeSegments.remove(segment);
+        cursors.remove(segment.id);
+        continue;
+      }
+      // never take more than half of what is left to the owner
+      Range range = claimFrom(segment, Math.max(1L, Math.min(chunkSize, remaining / 2)));
+      if (range != null) {
+        currentSegment = segment;
+        return range;
+      }
+    }
+    return null;
+  }
+
+  private Range claimFrom(Segment segment, long size) {
+    IgniteAtomicLong cursor = cursor(segment);
+    if (cursor == null) {
+      return null;
+    }
+    long start;
+    try {
+      start = cursor.getAndAdd(size);
+    } catch (IllegalStateException | IgniteException e) {
+      // removed by the peer which claimed its last chunk
+      cursors.remove(segment.id);
+      return null;
+    }
+    if (start >= segment.end) {
+      activeSegments.remove(segment);
+      cursors.remove(segment.id);
+      return null;
+    }
+    if (start + size >= segment.end) {
+      // the cursor only moves forward: a single claim takes the last chunk
+      activeSegments.remove(segment);
+      unclaimed.decrementAndGet();
+      cursors.remove(segment.id);
+      cursor.close();
+    }
+    return new Range(start, Math.min(start + size, segment.end));
+  }
+
+  /**
+   * Takes a segment polled from the queue: only its owner creates its cursor, so that a cursor removed once its
+   * segment is done is never created again by a peer
+   */
+  private void own(Segment segment) {
+    activeSegments.add(segment);
+    cursors().put(segment.id, ignite.atomicLong(cursorName(segment), segment.start, true));
+    currentSegment = segment;
+  }
+
+  /**
+   * @return the cursor of the segment, or null if it is not created yet or already removed
+   */
+  private IgniteAtomicLong cursor(Segment segment) {
+    IgniteAtomicLong cursor = cursors().get(segment.id);
+    if (cursor == null) {
+      cursor = ignite.atomicLong(cursorName(segment), 0L, false);
+      if (cursor != null) {
+        cursors.put(segment.id, cursor);
+      }
+    }
+    return cursor;
+  }
+
+  private Map<Long, IgniteAtomicLong> cursors() {
+    if (cursors == null) {
+      cursors = new HashMap<>();
+    }
+    return cursors;
+  }
+
+  private String cursorName(Segment segment) {
+    return "Work-Queue-Cursor-" + name + "#" + segment.id;
+  }
+
+  /**
+   * Adapts the chunk size so that claims happen about every {@link #TARGET_CLAIM_PERIOD_NANOS}:
+   * small chunks for slow consumers keep the work balanced, big chunks for fast consumers
+   * keep the per-item overhead low.
+   */
+  private void onClaim() {
+    long now = System.nanoTime();
+    if (lastClaimNanos != 0L) {
+      long elapsed = now - lastClaimNanos;
+      if (elapsed < TARGET_CLAIM_PERIOD_NANOS / 2) {
+        chunkSize = Math.min(MAX_CHUNK_SIZE, chunkSize * 2);
+      } else if (elapsed > TARGET_CLAIM_PERIOD_NANOS * 2) {
+        chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+      }
+    } else {
+      chunkSize = MIN_CHUNK_SIZE;
+    }
+    lastClaimNanos = now;
+  }
+
+  @FunctionalInterface
+  public interface RangeConsumer {
+    void accept(Range range) throws Exception;
+  }
+
+  public static class Range implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long start;
+    private final long end;
+
+    public Range(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * @return the first index of the range, inclusive
+     */
+    public long getStart() {
+      return start;
+    }
+
+    /**
+     * @return the last index of the range, exclusive
+     */
+    public long getEnd() {
+      return end;
+    }
+
+    public long size() {
+      return end - start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Range range = (Range) o;
+      return start == range.start && end == range.end;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + ")";
+    }
+  }
+
+  private static class Segment implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final long id;
+    final long start;
+    final long end;
+
+    Segment(long id, long start, long end) {
+      this.id = id;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      return id == ((Segment) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+      return "#" + id + "[" + start + ", " + end + ")";
+    }
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terracotta.angela.agent.kit.InstallerIntegrity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+public class SegmentedDownloadTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final byte[] kit = new byte[1000];
+  private final AtomicInteger rangeRequests = new AtomicInteger();
+  private final AtomicInteger fullRequests = new AtomicInteger();
+  private volatile boolean acceptRanges = true;
+  private volatile String etag = "\"v1\"";
+  private volatile String lastModified = "Tue, 01 Sep 2026 10:00:00 GMT";
+  // the range request starting at this offset finds the file changed
+  private volatile int changedAt = -1;
+  private final List<String> ifRanges = Collections.synchronizedList(new ArrayList<>());
+  // the range requests to fail, by start offset
+  private volatile IntPredicate failing = start -> false;
+  // the range requests to truncate once, by start offset
+  private volatile IntPredicate truncatedOnce = start -> false;
+  private HttpServer server;
+  private URL url;
+
+  @Before
+  public void setUp() throws IOException {
+    new Random(0).nextBytes(kit);
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/kit.tar.gz", this::handle);
+    server.start();
+    url = new URL("http://localhost:" + server.getAddress().getPort() + "/kit.tar.gz");
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testParallelSegments() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kits/kit.tar.gz");
+
+    String digest = new SegmentedDownload(url, dest, 100, 4, InstallerIntegrity.SHA_256).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(digest, is(sha256(kit)));
+    assertThat(rangeRequests.get(), is(10));
+    assertThat(fullRequests.get(), is(0));
+    assertThat(Files.exists(Paths.get(dest + ".part")), is(false));
+    assertThat(Files.exists(Paths.get(dest + ".part.state")), is(false));
+  }
+
+  @Test
+  public void testResume() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    failing = start -> start >= 500;
+
+    try {
+      new SegmentedDownload(url, dest, 100, 1).run();
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+    assertThat(Files.exists(dest), is(false));
+    assertThat(Files.exists(Paths.get(dest + ".part.state")), is(true));
+
+    failing = start -> false;
+    rangeRequests.set(0);
+    String digest = new SegmentedDownload(url, dest, 100, 2, InstallerIntegrity.SHA_256).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    // only the missing segments
+    assertThat(rangeRequests.get(), is(5));
+    // including the segments of the first attempt
+    assertThat(digest, is(sha256(kit)));
+  }
+
+  @Test
+  public void testRemoteFileChangedBeforeResume() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    failing = start -> start >= 500;
+    try {
+      new SegmentedDownload(url, dest, 100, 1).run();
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+
+    failing = start -> false;
+    kit[0]++;
+    etag = "\"v2\"";
+    rangeRequests.set(0);
+    new SegmentedDownload(url, dest, 100, 2).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(rangeRequests.get(), is(10));
+  }
+
+  @Test
+  public void testNotResumedWithoutValidator() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    etag = null;
+    lastModified = null;
+    failing = start -> start >= 500;
+    try {
+      new SegmentedDownload(url, dest, 100, 1).run();
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+
+    // same length: the change cannot be detected
+    failing = start -> false;
+    kit[0]++;
+    rangeRequests.set(0);
+    new SegmentedDownload(url, dest, 100, 2).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(rangeRequests.get(), is(10));
+    assertThat(ifRanges.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testTruncatedSegmentRetried() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    truncatedOnce = start -> start == 300;
+
+    new SegmentedDownload(url, dest, 100, 3).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(rangeRequests.get(), is(11));
+  }
+
+  @Test
+  public void testWithoutRangeSupport() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    acceptRanges = false;
+
+    String digest = new SegmentedDownload(url, dest, 100, 4, InstallerIntegrity.SHA_256).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(digest, is(sha256(kit)));
+    assertThat(rangeRequests.get(), is(0));
+    assertThat(fullRequests.get(), is(1));
+  }
+
+  @Test
+  public void testWeakEtagNotUsedInIfRange() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    etag = "W/\"v1\"";
+
+    new SegmentedDownload(url, dest, 100, 4).run();
+
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(rangeRequests.get(), is(10));
+    assertThat(new HashSet<>(ifRanges), is(Collections.singleton(lastModified)));
+  }
+
+  @Test
+  public void testRemoteFileChangedDuringDownload() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    changedAt = 300;
+
+    String digest = new SegmentedDownload(url, dest, 100, 1, InstallerIntegrity.SHA_256).run();
+
+    // downloaded again with a single stream, instead of retrying the range request
+    assertArrayEquals(kit, Files.readAllBytes(dest));
+    assertThat(digest, is(sha256(kit)));
+    assertThat(rangeRequests.get(), is(3));
+    assertThat(fullRequests.get(), is(2));
+    assertThat(Files.exists(Paths.get(dest + ".part.state")), is(false));
+  }
+
+  @Test
+  public void testNotFound() throws IOException {
+    Path dest = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    try {
+      new SegmentedDownload(new URL("http://localhost:" + server.getAddress().getPort() + "/missing.tar.gz"), dest, 100, 4).run();
+      fail();
+    } catch (IOException e) {
+      assertThat(Files.exists(dest), is(false));
+    }
+  }
+
+  private static String sha256(byte[] data) {
+    return InstallerIntegrity.toHex(InstallerIntegrity.newDigest(InstallerIntegrity.SHA_256).digest(data));
+  }
+
+  /**
+   * A minimal HTTP server supporting the range requests of a single file
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (acceptRanges) {
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+      }
+      if (etag != null) {
+        exchange.getResponseHeaders().set("ETag", etag);
+      }
+      if (lastModified != null) {
+        exchange.getResponseHeaders().set("Last-Modified", lastModified);
+      }
+      if (exchange.getRequestMethod().equals("HEAD")) {
+        exchange.getResponseHeaders().set("Content-Length", Integer.toString(kit.length));
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      String range = exchange.getRequestHeaders().getFirst("Range");
+      String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+      if (ifRange != null) {
+        ifRanges.add(ifRange);
+      }
+      if (range != null && range.startsWith("bytes=" + changedAt + "-")) {
+        changedAt = -1;
+        kit[0]++;
+        etag = "\"v2\"";
+        lastModified = "Tue, 01 Sep 2026 11:00:00 GMT";
+      }
+      if (range == null || !acceptRanges || (ifRange != null && !ifRange.equals(etag) && !ifRange.equals(lastModified))) {
+        fullRequests.incrementAndGet();
+        send(exchange, 200, kit);
+        return;
+      }
+      rangeRequests.incrementAndGet();
+      String[] bounds = range.substring("bytes=".length()).split("-");
+      int start = Integer.parseInt(bounds[0]);
+      int end = Integer.parseInt(bounds[1]) + 1;
+      if (failing.test(start)) {
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + kit.length);
+      byte[] body = Arrays.copyOfRange(kit, start, end);
+      if (truncatedOnce.test(start)) {
+        truncatedOnce = s -> false;
+        // advertises the whole range but sends half of it
+        exchange.sendResponseHeaders(206, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body, 0, body.length / 2);
+        }
+        return;
+      }
+      send(exchange, 206, body);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static void send(HttpExchange exchange, int code, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(code, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terracotta.angela.agent.com.AgentID;
+import org.terracotta.angela.agent.com.FileEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class AgentControllerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AgentController agentController = new AgentController(AgentID.local(), null);
+
+  @Test
+  public void testWalkDepth() throws Exception {
+    String root = createTree();
+
+    assertThat(paths(agentController.walk(root, 1, null)), is(equalTo(Arrays.asList("a.log", "b.txt", "sub"))));
+    assertThat(paths(agentController.walk(root, 2, null)), is(equalTo(Arrays.asList("a.log", "b.txt", "sub", "sub/c.log", "sub/deeper"))));
+    assertThat(paths(agentController.walk(root, Integer.MAX_VALUE, null)),
+        is(equalTo(Arrays.asList("a.log", "b.txt", "sub", "sub/c.log", "sub/deeper", "sub/deeper/d.log"))));
+  }
+
+  @Test
+  public void testWalkGlob() throws Exception {
+    String root = createTree();
+
+    // the sub-folders do not match, but their files are listed
+    assertThat(paths(agentController.walk(root, Integer.MAX_VALUE, "*.log")), is(equalTo(Arrays.asList("a.log", "sub/c.log", "sub/deeper/d.log"))));
+    assertThat(paths(agentController.walk(root, 2, "*.log")), is(equalTo(Arrays.asList("a.log", "sub/c.log"))));
+  }
+
+  @Test
+  public void testWalkDirectories() throws Exception {
+    String root = createTree();
+
+    for (FileEntry entry : agentController.walk(root, 1, null)) {
+      if (entry.getRelativePath().equals("sub")) {
+        assertThat(entry.isDirectory(), is(true));
+        assertThat(entry.getSize(), is(0L));
+      } else {
+        assertThat(entry.isDirectory(), is(false));
+        assertThat(entry.getSize(), is(Files.size(temporaryFolder.getRoot().toPath().resolve(entry.getRelativePath()))));
+      }
+    }
+  }
+
+  @Test
+  public void testListTree() throws Exception {
+    String root = createTree();
+    Path link = temporaryFolder.getRoot().toPath().resolve("sub").resolve("link.log");
+    assumeTrue(supportsSymbolicLinks(link, temporaryFolder.getRoot().toPath().resolve("a.log")));
+
+    // the folders and the symbolic links are left out
+    assertThat(paths(agentController.listTree(root)), is(equalTo(Arrays.asList("a.log", "b.txt", "sub/c.log", "sub/deeper/d.log"))));
+  }
+
+  @Test
+  public void testWalkMissingFolder() {
+    String folder = temporaryFolder.getRoot().toPath().resolve("missing").toString();
+    try {
+      agentController.walk(folder, 1, null);
+      fail("Expected UncheckedIOException");
+    } catch (UncheckedIOException e) {
+      assertThat(e.getCause().getMessage(), is(equalTo("Folder does not exist or is not readable : " + folder)));
+    }
+  }
+
+  /**
+   * a.log, b.txt, sub/c.log, sub/deeper/d.log
+   */
+  private String createTree() throws IOException {
+    Path root = temporaryFolder.getRoot().toPath();
+    Path deeper = Files.createDirectories(root.resolve("sub").resolve("deeper"));
+    Files.write(root.resolve("a.log"), "a".getBytes(UTF_8));
+    Files.write(root.resolve("b.txt"), "bb".getBytes(UTF_8));
+    Files.write(root.resolve("sub").resolve("c.log"), "ccc".getBytes(UTF_8));
+    Files.write(deeper.resolve("d.log"), "dddd".getBytes(UTF_8));
+    return root.toString();
+  }
+
+  private static boolean supportsSymbolicLinks(Path link, Path target) throws IOException {
+    try {
+      Files.createSymbolicLink(link, target);
+      return true;
+    } catch (UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
+  private static List<String> paths(List<FileEntry> entries) {
+    return entries.stream().map(FileEntry::getRelativePath).sorted().collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terracotta.angela.common.util.LogSegment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class LogStreamerTest {
+
+  private static final long STALL_TIMEOUT_MILLIS = 2000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final LogStreamer logStreamer = new LogStreamer(STALL_TIMEOUT_MILLIS);
+  private final BlockingQueue<LogSegment> segments = new LinkedBlockingQueue<>();
+
+  @After
+  public void tearDown() {
+    logStreamer.stop("stream");
+  }
+
+  @Test
+  public void testFilteredLines() throws Exception {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "INFO started\nERROR boom\n");
+    logStreamer.start("stream", log, Pattern.compile("ERROR|WARN"), 4, segments::add);
+
+    LogSegment segment = segments.poll(10, TimeUnit.SECONDS);
+    assertThat(segment.getStreamId(), is(equalTo("stream")));
+    assertThat(segment.getSequence(), is(0L));
+    assertThat(segment.getLines(), is(equalTo(Arrays.asList("ERROR boom"))));
+
+    append(log, "INFO running\nWARN slow\n");
+    segment = segments.poll(10, TimeUnit.SECONDS);
+    assertThat(segment.getSequence(), is(1L));
+    assertThat(segment.getLines(), is(equalTo(Arrays.asList("WARN slow"))));
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < LogStreamer.MAX_SEGMENT_LINES * 3; i++) {
+      sb.append("line ").append(i).append('\n');
+    }
+    append(log, sb.toString());
+    logStreamer.start("stream", log, null, 2, segments::add);
+
+    assertThat(segments.poll(10, TimeUnit.SECONDS).getSequence(), is(0L));
+    assertThat(segments.poll(10, TimeUnit.SECONDS).getSequence(), is(1L));
+    // the window is full until a segment is acknowledged
+    assertThat(segments.poll(LogStreamer.POLL_INTERVAL_MILLIS * 5, TimeUnit.MILLISECONDS), is(nullValue()));
+
+    logStreamer.ack("stream", 0);
+    LogSegment segment = segments.poll(10, TimeUnit.SECONDS);
+    assertThat(segment.getSequence(), is(2L));
+    assertThat(segment.getLines().get(0), is(equalTo("line " + LogStreamer.MAX_SEGMENT_LINES * 2)));
+  }
+
+  @Test
+  public void testStop() throws Exception {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    logStreamer.start("stream", log, null, 4, segments::add);
+    logStreamer.stop("stream");
+
+    append(log, "after stop\n");
+    assertThat(segments.poll(LogStreamer.POLL_INTERVAL_MILLIS * 5, TimeUnit.MILLISECONDS), is(nullValue()));
+  }
+
+  @Test
+  public void testStalledStreamStopped() throws Exception {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "first\n");
+    logStreamer.start("stream", log, null, 1, segments::add);
+    assertThat(segments.poll(10, TimeUnit.SECONDS).getSequence(), is(0L));
+
+    // the subscriber is gone: the window stays full
+    append(log, "second\n");
+    Thread.sleep(STALL_TIMEOUT_MILLIS + LogStreamer.POLL_INTERVAL_MILLIS * 5);
+
+    logStreamer.ack("stream", 0);
+    assertThat(segments.poll(LogStreamer.POLL_INTERVAL_MILLIS * 5, TimeUnit.MILLISECONDS), is(nullValue()));
+    // forgotten, so the ID can be reused
+    logStreamer.start("stream", log, null, 1, segments::add);
+    assertThat(segments.poll(10, TimeUnit.SECONDS).getLines(), is(equalTo(Arrays.asList("first", "second"))));
+  }
+
+  private static void append(Path file, String text) throws IOException {
+    Files.write(file, text.getBytes(UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.com;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class FileDigestTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testResumeOffset() throws IOException {
+    Path local = temporaryFolder.newFolder("local").toPath();
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    write(local.resolve("server.log"), "line 1\nline 2\n", 1000L);
+    FileDigest digest = FileDigest.of(local, local.resolve("server.log"));
+    assertThat(digest.getRelativePath(), is("server.log"));
+    assertThat(digest.getSize(), is(14L));
+
+    Path remoteFile = remote.resolve("server.log");
+    // unchanged
+    write(remoteFile, "line 1\nline 2\n", 1000L);
+    assertThat(digest.resumeOffset(remoteFile, entry(remoteFile)), is(-1L));
+
+    // appended
+    Files.write(remoteFile, "line 3\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+    assertThat(digest.resumeOffset(remoteFile, entry(remoteFile)), is(14L));
+
+    // rewritten in place with the same size
+    write(remoteFile, "line 1\nline 9\n", 1500L);
+    assertThat(digest.resumeOffset(remoteFile, entry(remoteFile)), is(0L));
+
+    // rewritten with the same start and more data
+    write(remoteFile, "line 1\nline 9\nline 3\n", 2000L);
+    assertThat(digest.resumeOffset(remoteFile, entry(remoteFile)), is(0L));
+
+    // rewritten with more data
+    write(remoteFile, "other 1\nother 2\n", 2000L);
+    assertThat(digest.resumeOffset(remoteFile, entry(remoteFile)), is(0L));
+
+    // shrunk
+    write(remoteFile, "line 1\n", 2000L);
+    assertThat(digest.resumeOffset(remoteFile, entry(remoteFile)), is(0L));
+  }
+
+  private static FileEntry entry(Path file) throws IOException {
+    return new FileEntry(file.getFileName().toString(), Files.size(file), Files.getLastModifiedTime(file).toMillis());
+  }
+
+  private static void write(Path file, String text, long lastModified) throws IOException {
+    Files.write(file, text.getBytes(UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+  }
+}
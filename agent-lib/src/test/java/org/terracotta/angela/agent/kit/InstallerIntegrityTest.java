@@ -0,0 +1,100 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.agent.kit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class InstallerIntegrityTest {
+
+  private static final String ABC_MD5 = "900150983cd24fb0d6963f7d28e17f72";
+  private static final String ABC_SHA_256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testDigest() throws IOException {
+    Path installer = installer("abc");
+
+    assertThat(InstallerIntegrity.digest(installer, InstallerIntegrity.MD5), is(ABC_MD5));
+    assertThat(InstallerIntegrity.digest(installer, InstallerIntegrity.SHA_256), is(ABC_SHA_256));
+  }
+
+  @Test
+  public void testHashFile() throws IOException {
+    Path installer = installer("abc");
+    assertThat(InstallerIntegrity.hashFile(installer), is(nullValue()));
+
+    Path md5 = installer.resolveSibling("kit.zip.md5");
+    Files.write(md5, ABC_MD5.toUpperCase().getBytes(US_ASCII));
+    assertThat(InstallerIntegrity.hashFile(installer), is(md5.toAbsolutePath()));
+    assertThat(InstallerIntegrity.algorithm(md5), is(InstallerIntegrity.MD5));
+    assertThat(InstallerIntegrity.expectedDigest(md5), is(ABC_MD5.toUpperCase()));
+
+    // preferred, in the sha256sum format
+    Path sha256 = installer.resolveSibling("kit.zip.sha256");
+    Files.write(sha256, (ABC_SHA_256 + "  kit.zip\n").getBytes(US_ASCII));
+    assertThat(InstallerIntegrity.hashFile(installer), is(sha256.toAbsolutePath()));
+    assertThat(InstallerIntegrity.algorithm(sha256), is(InstallerIntegrity.SHA_256));
+    assertThat(InstallerIntegrity.expectedDigest(sha256), is(ABC_SHA_256));
+
+    assertThat(InstallerIntegrity.hashFile(installer, new URL("https://example.com/kit.zip.sha256")), is(sha256));
+    assertThat(InstallerIntegrity.hashFile(installer, new URL("https://example.com/kit.zip.md5")), is(md5));
+  }
+
+  @Test
+  public void testRecord() throws IOException {
+    Path installer = installer("abc");
+    assertThat(InstallerIntegrity.isRecorded(installer, InstallerIntegrity.SHA_256, ABC_SHA_256), is(false));
+
+    InstallerIntegrity.record(installer, InstallerIntegrity.SHA_256, ABC_SHA_256);
+    assertThat(InstallerIntegrity.isRecorded(installer, InstallerIntegrity.SHA_256, ABC_SHA_256.toUpperCase()), is(true));
+    // another hash file
+    assertThat(InstallerIntegrity.isRecorded(installer, InstallerIntegrity.SHA_256, ABC_MD5), is(false));
+    assertThat(InstallerIntegrity.isRecorded(installer, InstallerIntegrity.MD5, ABC_SHA_256), is(false));
+
+    // touched
+    Files.setLastModifiedTime(installer, FileTime.fromMillis(Files.getLastModifiedTime(installer).toMillis() - 10_000));
+    assertThat(InstallerIntegrity.isRecorded(installer, InstallerIntegrity.SHA_256, ABC_SHA_256), is(false));
+
+    // replaced with the same modification time
+    InstallerIntegrity.record(installer, InstallerIntegrity.SHA_256, ABC_SHA_256);
+    FileTime lastModified = Files.getLastModifiedTime(installer);
+    Files.write(installer, "abcd".getBytes(US_ASCII));
+    Files.setLastModifiedTime(installer, lastModified);
+    assertThat(InstallerIntegrity.isRecorded(installer, InstallerIntegrity.SHA_256, ABC_SHA_256), is(false));
+  }
+
+  private Path installer(String content) throws IOException {
+    Path installer = temporaryFolder.getRoot().toPath().resolve("kit.zip");
+    Files.write(installer, content.getBytes(US_ASCII));
+    return installer;
+  }
+}
@@ -31,12 +31,13 @@ import org.terracotta.angela.common.topology.InstanceId;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
@@ -45,12 +46,12 @@ import static org.terracotta.angela.common.AngelaProperties.SKIP_UNINSTALL;
 /**
  * @author Aurelien Broszniowski
  */
-public class ClientArray implements AutoCloseable {
+public class ClientArray implements BoundedCloseable {
 
   private final transient Executor executor;
   private final transient Supplier<InstanceId> clientInstanceIdSupplier;
   private final transient LocalKitManager localKitManager;
-  private final transient Map<ClientId, Client> clients = new HashMap<>();
+  private final transient Map<ClientId, Client> clients = new ConcurrentHashMap<>();
   private final transient ClientArrayConfigurationContext clientArrayConfigurationContext;
   private boolean closed = false;
 
@@ -75,19 +76,10 @@ public class ClientArray implements AutoCloseable {
   }
 
   private void uninstallAll() {
-    List<Exception> exceptions = new ArrayList<>();
-
-    for (ClientId clientId : clientArrayConfigurationContext.getClientArrayTopology().getClientIds()) {
-      try {
-        uninstall(clientId);
-      } catch (Exception ioe) {
-        exceptions.add(ioe);
-      }
-    }
-
-    if (!exceptions.isEmpty()) {
+    List<Throwable> failures = ParallelLifecycle.forEach("client-uninstall", clientArrayConfigurationContext.getClientArrayTopology().getClientIds(), ParallelLifecycle.teardownDeadline(), this::uninstall);
+    if (!failures.isEmpty()) {
       RuntimeException ex = new RuntimeException("Error uninstalling some clients");
-      exceptions.forEach(ex::addSuppressed);
+      failures.forEach(ex::addSuppressed);
       throw ex;
     }
   }
@@ -113,19 +105,10 @@ public class ClientArray implements AutoCloseable {
   }
 
   public void stopAll() throws IOException {
-    List<Exception> exceptions = new ArrayList<>();
-
-    for (ClientId clientId : clientArrayConfigurationContext.getClientArrayTopology().getClientIds()) {
-      try {
-        stop(clientId);
-      } catch (Exception e) {
-        exceptions.add(e);
-      }
-    }
-
-    if (!exceptions.isEmpty()) {
+    List<Throwable> failures = ParallelLifecycle.forEach("client-stop", clientArrayConfigurationContext.getClientArrayTopology().getClientIds(), ParallelLifecycle.teardownDeadline(), this::stop);
+    if (!failures.isEmpty()) {
       IOException ioException = new IOException("Error stopping some clients");
-      exceptions.forEach(ioException::addSuppressed);
+      failures.forEach(ioException::addSuppressed);
       throw ioException;
     }
   }
@@ -188,6 +171,33 @@ public class ClientArray implements AutoCloseable {
     }
   }
 
+  /**
+   * Like {@link #download(String, Path)}, but only transfers what changed since the last synchronization
+   * in the same local folder
+   */
+  public void sync(String remoteLocation, Path localRootPath) {
+    List<Exception> exceptions = new ArrayList<>();
+    for (Client client : clients.values()) {
+      try {
+        browse(client, remoteLocation).syncTo(localRootPath.resolve(client.getSymbolicName()));
+      } catch (IOException e) {
+        exceptions.add(e);
+      }
+    }
+
+    if (!exceptions.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error synchronizing client remote files");
+      exceptions.forEach(re::addSuppressed);
+      throw re;
+    }
+  }
+
+  @Override
+  public Duration getCloseDeadline() {
+    // the uninstallation of the clients
+    return ParallelLifecycle.teardownDeadline();
+  }
+
   @Override
   public void close() {
     if (closed) {
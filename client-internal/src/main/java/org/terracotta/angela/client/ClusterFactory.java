@@ -33,17 +33,21 @@ import org.terracotta.angela.common.metrics.MonitoringCommand;
 import org.terracotta.angela.common.net.PortAllocator;
 import org.terracotta.angela.common.topology.InstanceId;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.stream.Collectors.toList;
@@ -106,13 +110,25 @@ public class ClusterFactory implements AutoCloseable {
   }
 
   public Tsa tsa() {
+    return tsa(null);
+  }
+
+  /**
+   * Like {@link #tsa()}, but each server is started as soon as it is installed,
+   * so that the whole cluster comes up in about the time of its slowest server.
+   */
+  public Tsa startedTsa(String... startUpArgs) {
+    return tsa(startUpArgs);
+  }
+
+  private Tsa tsa(String[] startUpArgs) {
     TsaConfigurationContext tsaConfigurationContext = configurationContext.tsa();
     if (tsaConfigurationContext == null) {
       throw new IllegalArgumentException("tsa() configuration missing in the ConfigurationContext");
     }
     InstanceId instanceId = init(TSA, tsaConfigurationContext.getTopology().getServersHostnames());
 
-    Tsa tsa = new Tsa(executor, portAllocator, instanceId, tsaConfigurationContext);
+    Tsa tsa = new Tsa(executor, portAllocator, instanceId, tsaConfigurationContext, startUpArgs);
     controllers.add(tsa);
     return tsa;
   }
@@ -220,14 +236,26 @@ public class ClusterFactory implements AutoCloseable {
   @Override
   public void close() {
     boolean interrupt = false;
-    for (AutoCloseable controller : controllers) {
-      try {
-        controller.close();
-      } catch (Exception e) {
-        logger.error("close() error: " + e.getMessage(), e);
-        if (e instanceof InterruptedException) {
-          interrupt = true;
-        }
+    // the controllers are independent from each other: they are closed concurrently
+    List<Throwable> failures = new ArrayList<>();
+    ExecutorService closer = ParallelLifecycle.newExecutor("close", controllers.size());
+    try {
+      Map<Future<?>, Duration> deadlines = new LinkedHashMap<>();
+      for (AutoCloseable controller : controllers) {
+        Future<?> future = closer.submit(() -> {
+          controller.close();
+          return null;
+        });
+        deadlines.put(future, closeDeadline(controller));
+      }
+      failures.addAll(ParallelLifecycle.awaitAll(deadlines));
+    } finally {
+      closer.shutdownNow();
+    }
+    for (Throwable e : failures) {
+      logger.error("close() error: " + e.getMessage(), e);
+      if (e instanceof InterruptedException) {
+        interrupt = true;
       }
     }
     controllers.clear();
@@ -236,4 +264,11 @@ public class ClusterFactory implements AutoCloseable {
       Thread.currentThread().interrupt();
     }
   }
+
+  /**
+   * @return the time given to the controller to close: the teardown deadline, unless it bounds its own phases
+   */
+  private static Duration closeDeadline(AutoCloseable controller) {
+    return controller instanceof BoundedCloseable ? ((BoundedCloseable) controller).getCloseDeadline() : ParallelLifecycle.teardownDeadline();
+  }
 }
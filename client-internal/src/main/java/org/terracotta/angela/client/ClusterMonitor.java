@@ -129,6 +129,31 @@ public class ClusterMonitor implements AutoCloseable, Serializable {
     }
   }
 
+  /**
+   * Like {@link #downloadTo(Path)}, but only transfers what changed since the metrics were last synchronized
+   * in the same local folder, for periodic collections during long runs
+   */
+  public void syncTo(Path localPath) {
+    List<Exception> exceptions = new ArrayList<>();
+
+    for (Map.Entry<String, AgentExecutor> entry : executors.entrySet()) {
+      try {
+        UniversalPath fromRemote = entry.getValue().execute(() -> UniversalPath.fromLocalPath(getWorkingPath().resolve(HardwareMetricsCollector.METRICS_DIRECTORY)));
+        Path toLocal = localPath.resolve(entry.getKey());
+        logger.info("Synchronizing remote metrics from: {} to: {}", fromRemote, toLocal);
+        new RemoteFolder(entry.getValue(), null, fromRemote.toString()).syncTo(toLocal);
+      } catch (IOException e) {
+        exceptions.add(e);
+      }
+    }
+
+    if (!exceptions.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error synchronizing cluster monitor remote files");
+      exceptions.forEach(re::addSuppressed);
+      throw re;
+    }
+  }
+
   public void processMetrics(BiConsumer<String, TransportableFile> processor) {
     List<Exception> exceptions = new ArrayList<>();
     for (Map.Entry<String, AgentExecutor> entry : executors.entrySet()) {
@@ -136,7 +161,9 @@ public class ClusterMonitor implements AutoCloseable, Serializable {
         // a way to grab a path remotely from an OS (win or lin) and transfer it locally
         UniversalPath metricsPath = entry.getValue().execute(() -> UniversalPath.fromLocalPath(getWorkingPath().resolve(HardwareMetricsCollector.METRICS_DIRECTORY)));
         RemoteFolder remoteFolder = new RemoteFolder(entry.getValue(), null, metricsPath.toString());
-        remoteFolder.list().forEach(remoteFile -> processor.accept(entry.getKey(), remoteFile.toTransportableFile()));
+        remoteFolder.list().stream()
+            .filter(remoteFile -> !remoteFile.getName().equals(HardwareMetricsCollector.CLOCK_FILE))
+            .forEach(remoteFile -> processor.accept(entry.getKey(), remoteFile.toTransportableFile()));
       } catch (Exception e) {
         exceptions.add(e);
       }
@@ -0,0 +1,448 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.angela.client.net.ServerToServerDisruptor;
+import org.terracotta.angela.client.net.SplitCluster;
+import org.terracotta.angela.common.TerracottaServerState;
+import org.terracotta.angela.common.TerracottaServerStateChange;
+import org.terracotta.angela.common.cluster.Cluster;
+import org.terracotta.angela.common.cluster.OutageProbe;
+import org.terracotta.angela.common.cluster.Topic;
+import org.terracotta.angela.common.tcconfig.TerracottaServer;
+import org.terracotta.angela.common.util.ClusterClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_ACTIVE;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_PASSIVE;
+import static org.terracotta.angela.common.TerracottaServerState.STOPPED;
+
+/**
+ * Measures how long a stripe takes to fail over when its active server is lost.
+ * <p>
+ * Each repetition stops or isolates the active server of the stripe, then timestamps in cluster time
+ * the failure, the transition of a passive server to {@link TerracottaServerState#STARTED_AS_ACTIVE},
+ * and the first failure and the last recovery reported by each client through an {@link OutageProbe}.
+ * The lost server is brought back as a passive before the next repetition.
+ * <pre>
+ *   clientArray.executeOnAll(cluster -&gt; {
+ *     OutageProbe probe = cluster.outageProbe("failover");
+ *     while (...) {
+ *       try {
+ *         doSomething();
+ *         probe.success();
+ *       } catch (Exception e) {
+ *         probe.failure();
+ *       }
+ *     }
+ *   });
+ *   FailoverBenchmark.Report report = new FailoverBenchmark(tsa)
+ *       .repetitions(20)
+ *       .clientProbe(factory.cluster(), "failover")
+ *       .run();
+ * </pre>
+ */
+public class FailoverBenchmark {
+
+  private final static Logger logger = LoggerFactory.getLogger(FailoverBenchmark.class);
+
+  public enum Failure {
+    /**
+     * The active server is stopped
+     */
+    KILL,
+    /**
+     * The active server is isolated from the other servers of its stripe, see {@link org.terracotta.angela.client.net.DisruptionController}
+     */
+    PARTITION
+  }
+
+  private final Tsa tsa;
+  private int repetitions = 10;
+  private int stripeIndex = 0;
+  private Failure failure = Failure.KILL;
+  private Duration timeout = Duration.ofMinutes(2);
+  private Duration quietPeriod = Duration.ofSeconds(2);
+  private Cluster cluster;
+  private String probeName;
+
+  public FailoverBenchmark(Tsa tsa) {
+    this.tsa = requireNonNull(tsa);
+  }
+
+  public FailoverBenchmark repetitions(int repetitions) {
+    if (repetitions < 1) {
+      throw new IllegalArgumentException("Invalid number of repetitions: " + repetitions);
+    }
+    this.repetitions = repetitions;
+    return this;
+  }
+
+  public FailoverBenchmark stripe(int stripeIndex) {
+    this.stripeIndex = stripeIndex;
+    return this;
+  }
+
+  public FailoverBenchmark failure(Failure failure) {
+    this.failure = requireNonNull(failure);
+    return this;
+  }
+
+  /**
+   * @param timeout the maximum time for each step of a repetition: failover, client recovery and restoration of the lost server
+   */
+  public FailoverBenchmark timeout(Duration timeout) {
+    this.timeout = requireNonNull(timeout);
+    return this;
+  }
+
+  /**
+   * @param quietPeriod how long no client must report anything before the clients are considered recovered
+   */
+  public FailoverBenchmark quietPeriod(Duration quietPeriod) {
+    this.quietPeriod = requireNonNull(quietPeriod);
+    return this;
+  }
+
+  /**
+   * Times the outages reported by the clients through the {@link OutageProbe} of that name
+   */
+  public FailoverBenchmark clientProbe(Cluster cluster, String probeName) {
+    this.cluster = requireNonNull(cluster);
+    this.probeName = requireNonNull(probeName);
+    return this;
+  }
+
+  public Report run() throws InterruptedException, TimeoutException {
+    List<List<TerracottaServer>> stripes = tsa.getTsaConfigurationContext().getTopology().getStripes();
+    if (stripeIndex < 0 || stripeIndex >= stripes.size()) {
+      throw new IllegalArgumentException("No stripe at index: " + stripeIndex + ", the topology has " + stripes.size() + " stripe(s)");
+    }
+    List<TerracottaServer> stripe = stripes.get(stripeIndex);
+    if (stripe.size() < 2) {
+      throw new IllegalStateException("Stripe: " + stripeIndex + " has no passive server to fail over to");
+    }
+    String description = "stripe " + stripeIndex + " of " + stripes.size() + " " + stripe.stream()
+        .map(server -> server.getServerSymbolicName().getSymbolicName())
+        .collect(Collectors.joining(", ", "[", "]"));
+
+    BlockingQueue<OutageProbe.Event> events = new LinkedBlockingQueue<>();
+    Topic.Subscription subscription = cluster == null ? null : cluster.outageProbe(probeName).subscribe(events::add);
+    try {
+      List<Run> runs = new ArrayList<>(repetitions);
+      for (int i = 0; i < repetitions; i++) {
+        Run run = runOnce(i, stripe, events);
+        logger.info("Failover {}/{} of {}: {}", i + 1, repetitions, description, run);
+        runs.add(run);
+      }
+      Report report = new Report(description, failure, runs);
+      logger.info("{}", report);
+      return report;
+    } finally {
+      if (subscription != null) {
+        subscription.close();
+      }
+    }
+  }
+
+  private Run runOnce(int repetition, List<TerracottaServer> stripe, BlockingQueue<OutageProbe.Event> events) throws InterruptedException, TimeoutException {
+    // start from a healthy stripe: one active, all the others passive
+    TerracottaServer lost = tsa.await(tsa.whenActive(stripe), stripe, timeout);
+    List<TerracottaServer> survivors = stripe.stream().filter(server -> !server.equals(lost)).collect(Collectors.toList());
+    tsa.await(tsa.whenPassives(survivors, survivors.size()), survivors, timeout);
+
+    events.clear();
+    CompletableFuture<TerracottaServer> elected = tsa.whenActive(survivors);
+    ServerToServerDisruptor disruptor = null;
+    long failedAt = ClusterClock.clusterTimeNanos();
+    Run run;
+    try {
+      if (failure == Failure.KILL) {
+        tsa.stop(lost);
+      } else {
+        disruptor = tsa.disruptionController().newServerToServerDisruptor(new SplitCluster(lost), new SplitCluster(survivors));
+        disruptor.disrupt();
+      }
+      TerracottaServer newActive = tsa.await(elected, survivors, timeout);
+      TerracottaServerStateChange stateChange = tsa.getLastStateChange(newActive);
+      long electedAt = stateChange != null && stateChange.getState() == STARTED_AS_ACTIVE ? stateChange.getClusterTimeNanos() : ClusterClock.clusterTimeNanos();
+      ClientOutages outages = awaitClientRecovery(failedAt, events);
+      run = new Run(lost, newActive, failedAt, electedAt, outages.durations, outages.unrecovered);
+    } catch (Throwable t) {
+      // a failure to restore the server must not hide the failure of the run
+      try {
+        restore(lost, disruptor);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        t.addSuppressed(ie);
+      } catch (TimeoutException | RuntimeException e) {
+        t.addSuppressed(e);
+      }
+      throw t;
+    }
+    restore(lost, disruptor);
+    return run;
+  }
+
+  /**
+   * Follows the transitions reported by the clients until none is failing anymore and none reported anything for the quiet period
+   */
+  private ClientOutages awaitClientRecovery(long failedAt, BlockingQueue<OutageProbe.Event> events) throws InterruptedException {
+    ClientOutages outages = new ClientOutages();
+    if (cluster == null) {
+      return outages;
+    }
+    Map<String, Long> firstFailures = new HashMap<>();
+    Map<String, Long> lastRecoveries = new HashMap<>();
+    Map<String, Boolean> failing = new HashMap<>();
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (true) {
+      OutageProbe.Event event = events.poll(quietPeriod.toNanos(), TimeUnit.NANOSECONDS);
+      if (event == null) {
+        if (!failing.containsValue(true)) {
+          break;
+        }
+      } else if (event.getClusterTimeNanos() >= failedAt) {
+        String source = event.getSource();
+        if (event.isFailure()) {
+          firstFailures.putIfAbsent(source, event.getClusterTimeNanos());
+        } else if (firstFailures.containsKey(source)) {
+          lastRecoveries.put(source, event.getClusterTimeNanos());
+        }
+        failing.put(source, event.isFailure());
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        logger.warn("Clients still failing after: {}: {}", timeout, failing.entrySet().stream().filter(Map.Entry::getValue).map(Map.Entry::getKey).collect(Collectors.toList()));
+        break;
+      }
+    }
+    firstFailures.forEach((source, failedTime) -> {
+      Long recoveredTime = lastRecoveries.get(source);
+      if (recoveredTime == null || failing.get(source)) {
+        outages.unrecovered++;
+      } else {
+        outages.durations.add(Duration.ofNanos(recoveredTime - failedTime));
+      }
+    });
+    return outages;
+  }
+
+  /**
+   * Brings the lost server back as a passive
+   */
+  private void restore(TerracottaServer lost, ServerToServerDisruptor disruptor) throws InterruptedException, TimeoutException {
+    List<TerracottaServer> servers = Collections.singletonList(lost);
+    if (disruptor != null) {
+      disruptor.undisrupt();
+      disruptor.close();
+      // once reconnected, the isolated active either syncs again as a passive or stops
+      tsa.await(tsa.whenState(lost, STOPPED, STARTED_AS_PASSIVE), servers, timeout);
+    }
+    if (tsa.getState(lost) == STOPPED) {
+      tsa.start(lost);
+    }
+    tsa.await(tsa.whenState(lost, STARTED_AS_PASSIVE), servers, timeout);
+  }
+
+  private static class ClientOutages {
+    final List<Duration> durations = new ArrayList<>();
+    int unrecovered;
+  }
+
+  /**
+   * The timings of one repetition
+   */
+  public static class Run {
+    private final TerracottaServer lostServer;
+    private final TerracottaServer newActive;
+    private final long failedAtClusterTimeNanos;
+    private final long electedAtClusterTimeNanos;
+    private final List<Duration> clientOutages;
+    private final int unrecoveredClients;
+
+    Run(TerracottaServer lostServer, TerracottaServer newActive, long failedAtClusterTimeNanos, long electedAtClusterTimeNanos, List<Duration> clientOutages, int unrecoveredClients) {
+      this.lostServer = lostServer;
+      this.newActive = newActive;
+      this.failedAtClusterTimeNanos = failedAtClusterTimeNanos;
+      this.electedAtClusterTimeNanos = electedAtClusterTimeNanos;
+      this.clientOutages = Collections.unmodifiableList(clientOutages);
+      this.unrecoveredClients = unrecoveredClients;
+    }
+
+    public TerracottaServer getLostServer() {
+      return lostServer;
+    }
+
+    public TerracottaServer getNewActive() {
+      return newActive;
+    }
+
+    public long getFailedAtClusterTimeNanos() {
+      return failedAtClusterTimeNanos;
+    }
+
+    public long getElectedAtClusterTimeNanos() {
+      return electedAtClusterTimeNanos;
+    }
+
+    /**
+     * @return the time between the loss of the active and the transition of a passive to active
+     */
+    public Duration getElectionTime() {
+      return Duration.ofNanos(electedAtClusterTimeNanos - failedAtClusterTimeNanos);
+    }
+
+    /**
+     * @return for each client which failed, the time between its first failure and its last recovery
+     */
+    public List<Duration> getClientOutages() {
+      return clientOutages;
+    }
+
+    public int getUnrecoveredClients() {
+      return unrecoveredClients;
+    }
+
+    @Override
+    public String toString() {
+      return lostServer.getServerSymbolicName().getSymbolicName() + " -> " + newActive.getServerSymbolicName().getSymbolicName() +
+          ", election: " + Stats.format(getElectionTime()) +
+          ", client outages: " + Stats.of(clientOutages) +
+          (unrecoveredClients > 0 ? ", unrecovered clients: " + unrecoveredClients : "");
+    }
+  }
+
+  /**
+   * The distributions of the timings of all the repetitions
+   */
+  public static class Report {
+    private final String topology;
+    private final Failure failure;
+    private final List<Run> runs;
+
+    Report(String topology, Failure failure, List<Run> runs) {
+      this.topology = topology;
+      this.failure = failure;
+      this.runs = Collections.unmodifiableList(runs);
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public Failure getFailure() {
+      return failure;
+    }
+
+    public List<Run> getRuns() {
+      return runs;
+    }
+
+    public Stats getElectionTime() {
+      return Stats.of(runs.stream().map(Run::getElectionTime).collect(Collectors.toList()));
+    }
+
+    public Stats getClientOutageTime() {
+      return Stats.of(runs.stream().flatMap(run -> run.getClientOutages().stream()).collect(Collectors.toList()));
+    }
+
+    public int getUnrecoveredClients() {
+      return runs.stream().mapToInt(Run::getUnrecoveredClients).sum();
+    }
+
+    @Override
+    public String toString() {
+      return "Failover (" + failure + ") of " + topology + ", " + runs.size() + " repetition(s)" +
+          "\n  election time:      " + getElectionTime() +
+          "\n  client outage time: " + getClientOutageTime() +
+          (getUnrecoveredClients() > 0 ? "\n  unrecovered clients: " + getUnrecoveredClients() : "");
+    }
+  }
+
+  public static class Stats {
+    private final int count;
+    private final Duration p50;
+    private final Duration p99;
+    private final Duration max;
+
+    Stats(int count, Duration p50, Duration p99, Duration max) {
+      this.count = count;
+      this.p50 = p50;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    static Stats of(Collection<Duration> samples) {
+      if (samples.isEmpty()) {
+        return new Stats(0, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+      }
+      List<Duration> sorted = new ArrayList<>(samples);
+      Collections.sort(sorted);
+      return new Stats(sorted.size(), percentile(sorted, 50), percentile(sorted, 99), sorted.get(sorted.size() - 1));
+    }
+
+    // nearest-rank method
+    private static Duration percentile(List<Duration> sorted, int percentile) {
+      int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+      return sorted.get(Math.max(0, rank - 1));
+    }
+
+    static String format(Duration duration) {
+      return String.format("%.1fms", duration.toNanos() / 1_000_000.0);
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public Duration getP50() {
+      return p50;
+    }
+
+    public Duration getP99() {
+      return p99;
+    }
+
+    public Duration getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      if (count == 0) {
+        return "no sample";
+      }
+      return "p50=" + format(p50) + " p99=" + format(p99) + " max=" + format(max) + " (" + count + " sample(s))";
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+import static org.terracotta.angela.common.AngelaProperties.LIFECYCLE_PARALLELISM;
+import static org.terracotta.angela.common.AngelaProperties.TEARDOWN_TIMEOUT_SECONDS;
+
+/**
+ * Runs the lifecycle operations (install, start, stop...) of several components concurrently.
+ * <p>
+ * The operations are mostly blocking remote calls, so they run on a dedicated bounded pool
+ * and not on the common fork-join pool, which is shared with user code and capped to the number of cores.
+ * Failures are returned to the caller so that it can report them the way it always did.
+ */
+final class ParallelLifecycle {
+
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+  private ParallelLifecycle() {
+  }
+
+  /**
+   * @return the maximum time given to stop or uninstall a group of components
+   */
+  static Duration teardownDeadline() {
+    return Duration.ofSeconds(TEARDOWN_TIMEOUT_SECONDS.getIntValue());
+  }
+
+  /**
+   * @param tasks the number of tasks to run, to not start more threads than needed
+   */
+  static ExecutorService newExecutor(String name, int tasks) {
+    int threads = Math.max(1, Math.min(tasks, LIFECYCLE_PARALLELISM.getIntValue()));
+    String prefix = "angela-" + name + "-" + POOL_COUNTER.incrementAndGet() + "-";
+    AtomicInteger threadCounter = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, prefix + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Waits for all the futures and collects their failures.
+   * Once the deadline is reached, the remaining futures are cancelled and reported as timed out.
+   *
+   * @param deadline the maximum time to wait for all the futures, or null to wait without limit
+   */
+  static List<Throwable> awaitAll(Collection<? extends Future<?>> futures, Duration deadline) {
+    Map<Future<?>, Duration> deadlines = new LinkedHashMap<>();
+    futures.forEach(future -> deadlines.put(future, deadline));
+    return awaitAll(deadlines);
+  }
+
+  /**
+   * Waits for all the futures, each one within its own deadline counted from now, and collects their failures.
+   * The futures not done by their deadline are cancelled and reported as timed out.
+   *
+   * @param deadlines the deadline of each future, null to wait for it without limit
+   */
+  static List<Throwable> awaitAll(Map<? extends Future<?>, Duration> deadlines) {
+    List<Throwable> failures = new ArrayList<>();
+    long start = System.nanoTime();
+    for (Map.Entry<? extends Future<?>, Duration> entry : deadlines.entrySet()) {
+      Future<?> future = entry.getKey();
+      Duration deadline = entry.getValue();
+      try {
+        if (deadline == null) {
+          future.get();
+        } else {
+          future.get(Math.max(0L, start + deadline.toNanos() - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+      } catch (ExecutionException e) {
+        failures.add(e.getCause());
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        failures.add(new TimeoutException("Operation did not complete within " + deadline));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        deadlines.keySet().forEach(f -> f.cancel(true));
+        failures.add(e);
+        break;
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * Applies the action concurrently to all the items
+   *
+   * @return the failures, empty if the action succeeded for all the items
+   */
+  static <T> List<Throwable> forEach(String name, Collection<? extends T> items, Duration deadline, Action<? super T> action) {
+    if (items.isEmpty()) {
+      return new ArrayList<>();
+    }
+    ExecutorService executor = newExecutor(name, items.size());
+    try {
+      List<Future<?>> futures = items.stream()
+          .map(item -> executor.submit(() -> {
+            action.accept(item);
+            return null;
+          }))
+          .collect(toList());
+      return awaitAll(futures, deadline);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  static <T> List<Throwable> forEach(String name, Collection<? extends T> items, Action<? super T> action) {
+    return forEach(name, items, null, action);
+  }
+
+  @FunctionalInterface
+  interface Action<T> {
+    void accept(T item) throws Exception;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client;
+
+import org.terracotta.angela.common.tcconfig.TerracottaServer;
+import org.terracotta.angela.common.util.ClusterClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The duration of each step of a rolling restart or upgrade of a TSA, see {@link Tsa#rollingRestart(String...)}
+ * and {@link Tsa#rollingUpgrade(org.terracotta.angela.common.distribution.Distribution, String...)}.
+ * <p>
+ * The {@link StepType#SYNC} steps give the time taken by each restarted passive server to synchronize with its active.
+ */
+public class RollingReport {
+
+  public enum StepType {
+    /**
+     * Resolution of the kit of the new distribution, done once before any server is stopped
+     */
+    PREPARE_KIT,
+    STOP,
+    /**
+     * Uninstallation of the previous kit and installation of the new one
+     */
+    UPGRADE,
+    /**
+     * Launch of the server process
+     */
+    START,
+    /**
+     * From the launch of a passive server until it is synchronized with the active
+     */
+    SYNC,
+    /**
+     * From the stop of the active server until a passive server becomes active
+     */
+    FAILOVER,
+    /**
+     * From the launch of the only server of a stripe until it is active
+     */
+    ACTIVATION
+  }
+
+  private final String operation;
+  private final List<Step> steps = new ArrayList<>();
+
+  RollingReport(String operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * Runs and times a step
+   *
+   * @param stripeIndex the stripe of the server, or -1 for a step involving the whole TSA
+   * @param server the server, or null for a step involving the whole TSA
+   */
+  void time(int stripeIndex, TerracottaServer server, StepType type, Work step) throws Exception {
+    long start = ClusterClock.clusterTimeNanos();
+    step.run();
+    add(new Step(stripeIndex, server, type, start, ClusterClock.clusterTimeNanos() - start));
+  }
+
+  synchronized void add(Step step) {
+    steps.add(step);
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  /**
+   * @return the steps, in the order in which they started
+   */
+  public synchronized List<Step> getSteps() {
+    List<Step> sorted = new ArrayList<>(steps);
+    sorted.sort(Comparator.comparingLong(Step::getStartClusterTimeNanos));
+    return Collections.unmodifiableList(sorted);
+  }
+
+  public List<Step> getSteps(StepType type) {
+    return getSteps().stream().filter(step -> step.getType() == type).collect(Collectors.toList());
+  }
+
+  /**
+   * @return the time from the start of the first step to the end of the last one
+   */
+  public Duration getTotal() {
+    List<Step> steps = getSteps();
+    if (steps.isEmpty()) {
+      return Duration.ZERO;
+    }
+    long start = steps.get(0).getStartClusterTimeNanos();
+    long end = steps.stream().mapToLong(step -> step.getStartClusterTimeNanos() + step.getDuration().toNanos()).max().getAsLong();
+    return Duration.ofNanos(end - start);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("Rolling ").append(operation).append(" in ").append(format(getTotal()));
+    for (Step step : getSteps()) {
+      sb.append("\n  ").append(step);
+    }
+    return sb.toString();
+  }
+
+  private static String format(Duration duration) {
+    return String.format("%.1fms", duration.toNanos() / 1_000_000.0);
+  }
+
+  @FunctionalInterface
+  interface Work {
+    void run() throws Exception;
+  }
+
+  public static class Step {
+    private final int stripeIndex;
+    private final TerracottaServer server;
+    private final StepType type;
+    private final long startClusterTimeNanos;
+    private final Duration duration;
+
+    Step(int stripeIndex, TerracottaServer server, StepType type, long startClusterTimeNanos, long durationNanos) {
+      this.stripeIndex = stripeIndex;
+      this.server = server;
+      this.type = type;
+      this.startClusterTimeNanos = startClusterTimeNanos;
+      this.duration = Duration.ofNanos(durationNanos);
+    }
+
+    /**
+     * @return the stripe of the server, or -1 for a step involving the whole TSA
+     */
+    public int getStripeIndex() {
+      return stripeIndex;
+    }
+
+    /**
+     * @return the server, or null for a step involving the whole TSA
+     */
+    public TerracottaServer getServer() {
+      return server;
+    }
+
+    public StepType getType() {
+      return type;
+    }
+
+    public long getStartClusterTimeNanos() {
+      return startClusterTimeNanos;
+    }
+
+    public Duration getDuration() {
+      return duration;
+    }
+
+    @Override
+    public String toString() {
+      String where = server == null ? "TSA" : "stripe " + stripeIndex + " " + server.getServerSymbolicName().getSymbolicName();
+      return ClusterClock.toInstant(startClusterTimeNanos) + " " + where + " " + type + ": " + format(duration);
+    }
+  }
+}
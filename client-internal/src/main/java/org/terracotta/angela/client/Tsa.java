@@ -26,10 +26,13 @@ import org.terracotta.angela.agent.com.AgentID;
 import org.terracotta.angela.agent.com.Executor;
 import org.terracotta.angela.agent.kit.LocalKitManager;
 import org.terracotta.angela.client.config.TsaConfigurationContext;
+import org.terracotta.angela.client.filesystem.RemoteFile;
 import org.terracotta.angela.client.filesystem.RemoteFolder;
+import org.terracotta.angela.client.filesystem.RemoteLogStream;
 import org.terracotta.angela.client.net.DisruptionController;
 import org.terracotta.angela.common.TerracottaCommandLineEnvironment;
 import org.terracotta.angela.common.TerracottaServerState;
+import org.terracotta.angela.common.TerracottaServerStateChange;
 import org.terracotta.angela.common.distribution.Distribution;
 import org.terracotta.angela.common.net.PortAllocator;
 import org.terracotta.angela.common.provider.ConfigurationManager;
@@ -40,6 +43,7 @@ import org.terracotta.angela.common.tcconfig.TcConfig;
 import org.terracotta.angela.common.tcconfig.TerracottaServer;
 import org.terracotta.angela.common.topology.InstanceId;
 import org.terracotta.angela.common.topology.Topology;
+import org.terracotta.angela.common.util.ClusterClock;
 
 import java.io.File;
 import java.io.IOException;
@@ -50,10 +54,24 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.EnumSet.of;
 import static org.terracotta.angela.client.config.TsaConfigurationContext.TerracottaCommandLineEnvironmentKeys.SERVER_START_PREFIX;
@@ -72,7 +90,7 @@ import static org.terracotta.angela.common.TerracottaServerState.STOPPED;
 /**
  * @author Aurelien Broszniowski
  */
-public class Tsa implements AutoCloseable {
+public class Tsa implements BoundedCloseable {
 
   private final static Logger logger = LoggerFactory.getLogger(Tsa.class);
 
@@ -82,16 +100,49 @@ public class Tsa implements AutoCloseable {
   private final transient TsaConfigurationContext tsaConfigurationContext;
   private final transient LocalKitManager localKitManager;
   private final transient PortAllocator portAllocator;
+  private final transient TsaStateTracker stateTracker;
+  private final transient Object uploadLock = new Object();
   private boolean closed = false;
 
   Tsa(Executor executor, PortAllocator portAllocator, InstanceId instanceId, TsaConfigurationContext tsaConfigurationContext) {
+    this(executor, portAllocator, instanceId, tsaConfigurationContext, null);
+  }
+
+  /**
+   * @param startUpArgs if not null, each server is started with these arguments as soon as it is installed
+   */
+  Tsa(Executor executor, PortAllocator portAllocator, InstanceId instanceId, TsaConfigurationContext tsaConfigurationContext, String[] startUpArgs) {
     this.portAllocator = portAllocator;
     this.tsaConfigurationContext = tsaConfigurationContext;
     this.instanceId = instanceId;
     this.executor = executor;
     this.disruptionController = new DisruptionController(executor, instanceId, tsaConfigurationContext.getTopology());
     this.localKitManager = new LocalKitManager(portAllocator, tsaConfigurationContext.getTopology().getDistribution());
-    installAll();
+    this.stateTracker = new TsaStateTracker(executor, instanceId);
+    try {
+      installAll(startUpArgs);
+    } catch (RuntimeException re) {
+      // nothing holds this TSA yet: the servers already installed or started would never be stopped
+      discard(re);
+      throw re;
+    }
+  }
+
+  /**
+   * Stops and uninstalls the servers of a TSA which failed to come up, the cleanup failures being added to the failure
+   */
+  private void discard(RuntimeException failure) {
+    closed = true;
+    try {
+      stopAll();
+      if (!SKIP_UNINSTALL.getBooleanValue()) {
+        uninstallAll();
+      }
+    } catch (RuntimeException re) {
+      failure.addSuppressed(re);
+    } finally {
+      stateTracker.close();
+    }
   }
 
   public TsaConfigurationContext getTsaConfigurationContext() {
@@ -120,11 +171,46 @@ public class Tsa implements AutoCloseable {
     return executor.execute(agentID, () -> AgentController.getInstance().getTsaLicensePath(instanceId, terracottaServer));
   }
 
-  void installAll() {
+  /**
+   * Installs all the servers concurrently: the servers of a same agent are installed one after another,
+   * while the different agents are installed in parallel. When start-up arguments are given, each server
+   * is started as soon as it is installed, without waiting for the other servers.
+   */
+  private void installAll(String[] startUpArgs) {
     Topology topology = tsaConfigurationContext.getTopology();
     ConfigurationManager configurationManager = topology.getConfigurationManager();
-    for (TerracottaServer terracottaServer : configurationManager.getServers()) {
-      install(terracottaServer, topology);
+    List<TerracottaServer> servers = configurationManager.getServers();
+    if (servers.isEmpty()) {
+      return;
+    }
+    prepareKit(topology, localKitManager);
+
+    Map<AgentID, List<TerracottaServer>> serversByAgent = new LinkedHashMap<>();
+    for (TerracottaServer terracottaServer : servers) {
+      serversByAgent.computeIfAbsent(executor.getAgentID(terracottaServer.getHostName()), agentID -> new ArrayList<>()).add(terracottaServer);
+    }
+
+    ExecutorService lifecycleExecutor = ParallelLifecycle.newExecutor("tsa-lifecycle", servers.size() + serversByAgent.size());
+    try {
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (List<TerracottaServer> agentServers : serversByAgent.values()) {
+        CompletableFuture<Void> installed = CompletableFuture.completedFuture(null);
+        for (TerracottaServer terracottaServer : agentServers) {
+          installed = installed.thenRunAsync(() -> installServer(terracottaServer, topology, localKitManager), lifecycleExecutor);
+          if (startUpArgs != null) {
+            futures.add(installed.thenRunAsync(() -> start(terracottaServer, startUpArgs), lifecycleExecutor));
+          }
+        }
+        futures.add(installed);
+      }
+      List<Throwable> failures = ParallelLifecycle.awaitAll(futures, null);
+      if (!failures.isEmpty()) {
+        RuntimeException re = new RuntimeException(startUpArgs == null ? "Error installing all servers" : "Error installing and starting all servers");
+        failures.stream().map(Tsa::unwrap).distinct().forEach(re::addSuppressed);
+        throw re;
+      }
+    } finally {
+      lifecycleExecutor.shutdownNow();
     }
   }
 
@@ -133,10 +219,20 @@ public class Tsa implements AutoCloseable {
   }
 
   private void installWithKitManager(TerracottaServer terracottaServer, Topology topology, LocalKitManager localKitManager) {
+    prepareKit(topology, localKitManager);
+    installServer(terracottaServer, topology, localKitManager);
+  }
+
+  private void prepareKit(Topology topology, LocalKitManager localKitManager) {
     // this is possible that a server gets dynamically added (DC use case)
     // so we need to ensure a port is allocated
     topology.init(portAllocator);
 
+    String kitInstallationPath = getEitherOf(KIT_INSTALLATION_DIR, KIT_INSTALLATION_PATH);
+    localKitManager.setupLocalInstall(tsaConfigurationContext.getLicense(), kitInstallationPath, OFFLINE.getBooleanValue(), tsaConfigurationContext.getTerracottaCommandLineEnvironment("install"));
+  }
+
+  private void installServer(TerracottaServer terracottaServer, Topology topology, LocalKitManager localKitManager) {
     TerracottaServerState terracottaServerState = getState(terracottaServer);
     if (terracottaServerState != TerracottaServerState.NOT_INSTALLED) {
       throw new IllegalStateException("Cannot install: server " + terracottaServer.getServerSymbolicName() + " in state " + terracottaServerState);
@@ -146,7 +242,6 @@ public class Tsa implements AutoCloseable {
     License license = tsaConfigurationContext.getLicense();
 
     String kitInstallationPath = getEitherOf(KIT_INSTALLATION_DIR, KIT_INSTALLATION_PATH);
-    localKitManager.setupLocalInstall(license, kitInstallationPath, OFFLINE.getBooleanValue(), tsaConfigurationContext.getTerracottaCommandLineEnvironment("install"));
     final String kitInstallationName = localKitManager.getKitInstallationName();
     final AgentID agentID = executor.getAgentID(terracottaServer.getHostName());
 
@@ -159,8 +254,11 @@ public class Tsa implements AutoCloseable {
       boolean isRemoteInstallationSuccessful = executor.execute(agentID, installClosure);
       if (!isRemoteInstallationSuccessful) {
         try {
-          logger.debug("Uploading: {} on: {}", distribution, agentID);
-          executor.uploadKit(agentID, instanceId, distribution, kitInstallationName, localKitManager.getKitInstallationPath());
+          // all the uploads of this instance go through the same file transfer queue
+          synchronized (uploadLock) {
+            logger.debug("Uploading: {} on: {}", distribution, agentID);
+            executor.uploadKit(agentID, instanceId, distribution, kitInstallationName, localKitManager.getKitInstallationPath());
+          }
           executor.execute(agentID, installClosure);
         } catch (Exception e) {
           throw new RuntimeException("Cannot upload kit to " + terracottaServer.getHostName(), e);
@@ -171,6 +269,7 @@ public class Tsa implements AutoCloseable {
       // To end up here, KIT_COPY should be false
       executor.execute(agentID, () -> AgentController.getInstance().installTsa(instanceId, terracottaServer, license, kitInstallationName, distribution, topology, kitInstallationPath));
     }
+    stateTracker.track(agentID, terracottaServer);
   }
 
   public Tsa upgrade(TerracottaServer server, Distribution newDistribution) {
@@ -181,10 +280,111 @@ public class Tsa implements AutoCloseable {
     return this;
   }
 
+  /**
+   * Restarts all the servers while keeping each stripe available. In each stripe, the passive servers are restarted
+   * one after another, each one being synchronized with the active before the next one is stopped.
+   * Then the active is stopped to fail over to a passive, and is restarted as a passive.
+   * The stripes are independent, so they are restarted concurrently.
+   *
+   * @param startUpArgs the arguments to restart the servers with
+   * @return the duration of each step
+   */
+  public RollingReport rollingRestart(String... startUpArgs) {
+    return rolling("restart", null, startUpArgs);
+  }
+
+  /**
+   * Upgrades all the servers to a new distribution while keeping each stripe available, like {@link #rollingRestart(String...)}
+   * does, each server being upgraded after it is stopped.
+   * The kit of the new distribution is prepared once, before any server is stopped.
+   *
+   * @param startUpArgs the arguments to restart the servers with
+   * @return the duration of each step
+   */
+  public RollingReport rollingUpgrade(Distribution newDistribution, String... startUpArgs) {
+    return rolling("upgrade to " + newDistribution, newDistribution, startUpArgs);
+  }
+
+  private RollingReport rolling(String operation, Distribution newDistribution, String[] startUpArgs) {
+    logger.info("Rolling {} of TSA: {}", operation, instanceId);
+    Topology topology = tsaConfigurationContext.getTopology();
+    RollingReport report = new RollingReport(operation);
+    LocalKitManager kitManager = null;
+    if (newDistribution != null) {
+      kitManager = new LocalKitManager(portAllocator, newDistribution);
+      long start = ClusterClock.clusterTimeNanos();
+      prepareKit(topology, kitManager);
+      report.add(new RollingReport.Step(-1, null, RollingReport.StepType.PREPARE_KIT, start, ClusterClock.clusterTimeNanos() - start));
+    }
+    LocalKitManager newKitManager = kitManager;
+    // servers of different stripes may share an agent: they must not install their kit at the same time
+    Map<AgentID, Object> installLocks = new ConcurrentHashMap<>();
+
+    List<List<TerracottaServer>> stripes = topology.getStripes();
+    List<Integer> stripeIndices = IntStream.range(0, stripes.size()).boxed().collect(Collectors.toList());
+    List<Throwable> failures = ParallelLifecycle.forEach("tsa-rolling", stripeIndices,
+        stripeIndex -> rollStripe(stripeIndex, stripes.get(stripeIndex), newKitManager, installLocks, startUpArgs, report));
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error during the rolling " + operation + " of all servers");
+      failures.forEach(re::addSuppressed);
+      throw re;
+    }
+    logger.info("{}", report);
+    return report;
+  }
+
+  private void rollStripe(int stripeIndex, List<TerracottaServer> stripe, LocalKitManager kitManager, Map<AgentID, Object> installLocks, String[] startUpArgs, RollingReport report) throws Exception {
+    if (stripe.size() == 1) {
+      logger.warn("Stripe: {} has a single server: it is unavailable while it restarts", stripeIndex);
+      restartServer(stripeIndex, stripe.get(0), STARTED_AS_ACTIVE, kitManager, installLocks, startUpArgs, report);
+      return;
+    }
+
+    // a healthy stripe is required, so that no data is lost when the active is stopped
+    TerracottaServer active = waitForActive(stripe);
+    List<TerracottaServer> passives = stripe.stream().filter(server -> !server.equals(active)).collect(Collectors.toList());
+    waitForPassives(passives, passives.size());
+
+    for (TerracottaServer passive : passives) {
+      restartServer(stripeIndex, passive, STARTED_AS_PASSIVE, kitManager, installLocks, startUpArgs, report);
+    }
+
+    CompletableFuture<TerracottaServer> newActive = whenActive(passives);
+    report.time(stripeIndex, active, RollingReport.StepType.FAILOVER, () -> {
+      stop(active);
+      stateTracker.await(newActive, () -> resyncStates(passives));
+    });
+    restartServer(stripeIndex, active, STARTED_AS_PASSIVE, kitManager, installLocks, startUpArgs, report);
+  }
+
+  /**
+   * Stops, upgrades if needed, and restarts the server, then waits for it to reach the expected state
+   */
+  private void restartServer(int stripeIndex, TerracottaServer server, TerracottaServerState expected, LocalKitManager kitManager,
+                             Map<AgentID, Object> installLocks, String[] startUpArgs, RollingReport report) throws Exception {
+    report.time(stripeIndex, server, RollingReport.StepType.STOP, () -> stop(server));
+    if (kitManager != null) {
+      Object installLock = installLocks.computeIfAbsent(executor.getAgentID(server.getHostName()), agentID -> new Object());
+      report.time(stripeIndex, server, RollingReport.StepType.UPGRADE, () -> {
+        synchronized (installLock) {
+          uninstall(server);
+          installServer(server, tsaConfigurationContext.getTopology(), kitManager);
+        }
+      });
+    }
+    report.time(stripeIndex, server, RollingReport.StepType.START, () -> spawn(server, startUpArgs));
+    // a passive server reaches STARTED_AS_PASSIVE once it is synchronized with the active
+    RollingReport.StepType waitStep = expected == STARTED_AS_PASSIVE ? RollingReport.StepType.SYNC : RollingReport.StepType.ACTIVATION;
+    report.time(stripeIndex, server, waitStep, () -> waitForState(server, expected));
+  }
+
   private void uninstallAll() {
     Topology topology = tsaConfigurationContext.getTopology();
-    for (TerracottaServer terracottaServer : topology.getServers()) {
-      uninstall(terracottaServer);
+    List<Throwable> failures = ParallelLifecycle.forEach("tsa-uninstall", topology.getServers(), ParallelLifecycle.teardownDeadline(), this::uninstall);
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error uninstalling all servers");
+      failures.forEach(re::addSuppressed);
+      throw re;
     }
   }
 
@@ -206,12 +406,16 @@ public class Tsa implements AutoCloseable {
 
     IgniteRunnable uninstaller = () -> AgentController.getInstance().uninstallTsa(instanceId, topology, terracottaServer, kitInstallationName, kitInstallationPath);
     executor.execute(agentID, uninstaller);
+    stateTracker.forget(terracottaServer);
   }
 
   public Tsa createAll(String... startUpArgs) {
-    tsaConfigurationContext.getTopology().getServers().stream()
-        .map(server -> CompletableFuture.runAsync(() -> create(server, startUpArgs)))
-        .reduce(CompletableFuture::allOf).ifPresent(CompletableFuture::join);
+    List<Throwable> failures = ParallelLifecycle.forEach("tsa-create", tsaConfigurationContext.getTopology().getServers(), server -> create(server, startUpArgs));
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error creating all servers");
+      failures.forEach(re::addSuppressed);
+      throw re;
+    }
     return this;
   }
 
@@ -243,17 +447,20 @@ public class Tsa implements AutoCloseable {
         String whatFor = SERVER_START_PREFIX + terracottaServer.getServerSymbolicName().getSymbolicName();
         TerracottaCommandLineEnvironment cliEnv = tsaConfigurationContext.getTerracottaCommandLineEnvironment(whatFor);
         Duration inactivityKillerDelay = tsaConfigurationContext.getInactivityKillerDelay();
-        IgniteRunnable tsaCreator = () -> AgentController.getInstance().createTsa(instanceId, terracottaServer, cliEnv, envOverrides, Arrays.asList(startUpArgs), inactivityKillerDelay);
-        executor.execute(agentID, tsaCreator);
+        IgniteCallable<TerracottaServerState> tsaCreator = () -> AgentController.getInstance().createTsa(instanceId, terracottaServer, cliEnv, envOverrides, Arrays.asList(startUpArgs), inactivityKillerDelay);
+        record(terracottaServer, executor.execute(agentID, tsaCreator));
         return this;
     }
     throw new IllegalStateException("Cannot create: server " + terracottaServer.getServerSymbolicName() + " in state " + terracottaServerState);
   }
 
   public Tsa startAll(String... startUpArgs) {
-    tsaConfigurationContext.getTopology().getServers().stream()
-        .map(server -> CompletableFuture.runAsync(() -> start(server, startUpArgs)))
-        .reduce(CompletableFuture::allOf).ifPresent(CompletableFuture::join);
+    List<Throwable> failures = ParallelLifecycle.forEach("tsa-start", tsaConfigurationContext.getTopology().getServers(), server -> start(server, startUpArgs));
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error starting all servers");
+      failures.forEach(re::addSuppressed);
+      throw re;
+    }
     return this;
   }
 
@@ -267,17 +474,20 @@ public class Tsa implements AutoCloseable {
 
   public Tsa start(TerracottaServer terracottaServer, Map<String, String> envOverrides, String... startUpArgs) {
     spawn(terracottaServer, envOverrides, startUpArgs);
-    IgniteRunnable runnable = () -> AgentController.getInstance().waitForTsaInState(instanceId, terracottaServer, of(STARTED_AS_ACTIVE, STARTED_AS_PASSIVE, STARTED_IN_DIAGNOSTIC_MODE, START_SUSPENDED, STOPPED));
+    IgniteCallable<TerracottaServerState> callable = () -> AgentController.getInstance().waitForTsaInState(instanceId, terracottaServer, of(STARTED_AS_ACTIVE, STARTED_AS_PASSIVE, STARTED_IN_DIAGNOSTIC_MODE, START_SUSPENDED, STOPPED));
     final AgentID agentID = executor.getAgentID(terracottaServer.getHostName());
-    executor.execute(agentID, runnable);
+    record(terracottaServer, executor.execute(agentID, callable));
     logger.info("TSA: {} started on: {}", instanceId, agentID);
     return this;
   }
 
   public Tsa spawnAll(String... startUpArgs) {
-    tsaConfigurationContext.getTopology().getServers().stream()
-        .map(server -> CompletableFuture.runAsync(() -> spawn(server, startUpArgs)))
-        .reduce(CompletableFuture::allOf).ifPresent(CompletableFuture::join);
+    List<Throwable> failures = ParallelLifecycle.forEach("tsa-spawn", tsaConfigurationContext.getTopology().getServers(), server -> spawn(server, startUpArgs));
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error spawning all servers");
+      failures.forEach(re::addSuppressed);
+      throw re;
+    }
     return this;
   }
 
@@ -293,20 +503,11 @@ public class Tsa implements AutoCloseable {
   }
 
   public Tsa stopAll() {
-    List<Exception> exceptions = new ArrayList<>();
-
     Topology topology = tsaConfigurationContext.getTopology();
-    for (TerracottaServer terracottaServer : topology.getServers()) {
-      try {
-        stop(terracottaServer);
-      } catch (Exception e) {
-        exceptions.add(e);
-      }
-    }
-
-    if (!exceptions.isEmpty()) {
+    List<Throwable> failures = ParallelLifecycle.forEach("tsa-stop", topology.getServers(), ParallelLifecycle.teardownDeadline(), this::stop);
+    if (!failures.isEmpty()) {
       RuntimeException re = new RuntimeException("Error stopping all servers");
-      exceptions.forEach(re::addSuppressed);
+      failures.forEach(re::addSuppressed);
       throw re;
     }
     return this;
@@ -319,10 +520,18 @@ public class Tsa implements AutoCloseable {
     }
     final AgentID agentID = executor.getAgentID(terracottaServer.getHostName());
     logger.info("Stopping TSA: {} on: {}", instanceId, agentID);
-    executor.execute(agentID, () -> AgentController.getInstance().stopTsa(instanceId, terracottaServer));
+    record(terracottaServer, executor.execute(agentID, () -> AgentController.getInstance().stopTsa(instanceId, terracottaServer)));
     return this;
   }
 
+  /**
+   * Records the state returned by a lifecycle call, so that the waiters do not see the state the server had before it.
+   * The state was read by the agent before this call: pushed transitions which happened earlier are older.
+   */
+  private void record(TerracottaServer terracottaServer, TerracottaServerState state) {
+    stateTracker.update(terracottaServer, state, ClusterClock.clusterTimeNanos());
+  }
+
   public Map<ServerSymbolicName, Integer> updateToProxiedPorts() {
     return disruptionController.updateTsaPortsWithProxy(tsaConfigurationContext.getTopology(), portAllocator);
   }
@@ -340,40 +549,71 @@ public class Tsa implements AutoCloseable {
   }
 
   public Collection<TerracottaServer> getStarted() {
+    Map<TerracottaServer, TerracottaServerState> snapshot = snapshot();
     Collection<TerracottaServer> allRunningServers = new ArrayList<>();
-    allRunningServers.addAll(getActives());
-    allRunningServers.addAll(getPassives());
-    allRunningServers.addAll(getDiagnosticModeSevers());
+    allRunningServers.addAll(inState(snapshot, STARTED_AS_ACTIVE));
+    allRunningServers.addAll(inState(snapshot, STARTED_AS_PASSIVE));
+    allRunningServers.addAll(inState(snapshot, STARTED_IN_DIAGNOSTIC_MODE));
     return allRunningServers;
   }
 
-  public Collection<TerracottaServer> getStopped() {
-    Collection<TerracottaServer> result = new ArrayList<>();
-    for (TerracottaServer terracottaServer : tsaConfigurationContext.getTopology().getServers()) {
-      if (getState(terracottaServer) == STOPPED) {
-        result.add(terracottaServer);
+  /**
+   * Gets the states of all the servers, with a single call per agent, the agents being called in parallel
+   *
+   * @return the state of each server, in the order of the topology
+   */
+  public Map<TerracottaServer, TerracottaServerState> snapshot() {
+    return snapshot(tsaConfigurationContext.getTopology().getServers());
+  }
+
+  public Map<TerracottaServer, TerracottaServerState> snapshot(Collection<TerracottaServer> servers) {
+    Map<AgentID, List<TerracottaServer>> serversByAgent = new LinkedHashMap<>();
+    for (TerracottaServer terracottaServer : servers) {
+      serversByAgent.computeIfAbsent(executor.getAgentID(terracottaServer.getHostName()), agentID -> new ArrayList<>()).add(terracottaServer);
+    }
+    long readAt = ClusterClock.clusterTimeNanos();
+    Map<AgentID, Future<Map<UUID, TerracottaServerState>>> futures = new LinkedHashMap<>();
+    serversByAgent.forEach((agentID, agentServers) -> {
+      logger.debug("Getting states for TSA: {} on: {}", instanceId, agentID);
+      futures.put(agentID, executor.executeAsync(agentID, () -> AgentController.getInstance().getTsaStates(instanceId, agentServers)));
+    });
+    Map<UUID, TerracottaServerState> states = new HashMap<>();
+    futures.forEach((agentID, future) -> {
+      try {
+        states.putAll(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Cannot get the states of TSA: " + instanceId + " on: " + agentID, e.getCause());
       }
+    });
+    Map<TerracottaServer, TerracottaServerState> snapshot = new LinkedHashMap<>();
+    for (TerracottaServer terracottaServer : servers) {
+      TerracottaServerState state = states.get(terracottaServer.getId());
+      snapshot.put(terracottaServer, state);
+      stateTracker.update(terracottaServer, state, readAt);
     }
-    return result;
+    return snapshot;
+  }
+
+  private static Collection<TerracottaServer> inState(Map<TerracottaServer, TerracottaServerState> snapshot, TerracottaServerState state) {
+    return snapshot.entrySet().stream()
+        .filter(e -> e.getValue() == state)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+  }
+
+  public Collection<TerracottaServer> getStopped() {
+    return inState(snapshot(), STOPPED);
   }
 
   public Collection<TerracottaServer> getPassives() {
-    Collection<TerracottaServer> result = new ArrayList<>();
-    for (TerracottaServer terracottaServer : tsaConfigurationContext.getTopology().getServers()) {
-      if (getState(terracottaServer) == STARTED_AS_PASSIVE) {
-        result.add(terracottaServer);
-      }
-    }
-    return result;
+    return inState(snapshot(), STARTED_AS_PASSIVE);
   }
 
-  @SuppressWarnings("BusyWait")
   public Collection<TerracottaServer> waitForPassives(int count) throws InterruptedException {
-    Collection<TerracottaServer> terracottaServers;
-    while ((terracottaServers = getPassives()).size() < count) {
-      Thread.sleep(200);
-    }
-    return terracottaServers;
+    return waitForPassives(tsaConfigurationContext.getTopology().getServers(), count);
   }
 
   public TerracottaServer getPassive() {
@@ -388,23 +628,13 @@ public class Tsa implements AutoCloseable {
     }
   }
 
-  @SuppressWarnings("BusyWait")
   public TerracottaServer waitForPassive() throws InterruptedException {
-    TerracottaServer terracottaServer;
-    while ((terracottaServer = getPassive()) == null) {
-      Thread.sleep(200);
-    }
-    return terracottaServer;
+    List<TerracottaServer> servers = tsaConfigurationContext.getTopology().getServers();
+    return stateTracker.await(when(servers, () -> single(servers, STARTED_AS_PASSIVE, "Passive")), this::resyncStates);
   }
 
   public Collection<TerracottaServer> getActives() {
-    Collection<TerracottaServer> result = new ArrayList<>();
-    for (TerracottaServer terracottaServer : tsaConfigurationContext.getTopology().getServers()) {
-      if (getState(terracottaServer) == STARTED_AS_ACTIVE) {
-        result.add(terracottaServer);
-      }
-    }
-    return result;
+    return inState(snapshot(), STARTED_AS_ACTIVE);
   }
 
   public Collection<TerracottaServer> getServer(ServerSymbolicName symbolicName) {
@@ -430,11 +660,105 @@ public class Tsa implements AutoCloseable {
   }
 
   public TerracottaServer waitForActive() throws InterruptedException {
-    TerracottaServer terracottaServer;
-    while ((terracottaServer = getActive()) == null) {
-      Thread.sleep(200);
+    List<TerracottaServer> servers = tsaConfigurationContext.getTopology().getServers();
+    return stateTracker.await(when(servers, () -> single(servers, STARTED_AS_ACTIVE, "Active")), this::resyncStates);
+  }
+
+  /**
+   * @return a future completed as soon as the server reaches one of the states, with the reached state
+   */
+  public CompletableFuture<TerracottaServerState> whenState(TerracottaServer terracottaServer, TerracottaServerState... states) {
+    EnumSet<TerracottaServerState> wanted = EnumSet.copyOf(Arrays.asList(states));
+    return when(Collections.singletonList(terracottaServer), () -> {
+      TerracottaServerState state = stateTracker.getState(terracottaServer);
+      return wanted.contains(state) ? state : null;
+    });
+  }
+
+  /**
+   * Waits until the server reaches one of the states
+   *
+   * @return the reached state
+   */
+  public TerracottaServerState waitForState(TerracottaServer terracottaServer, TerracottaServerState... states) throws InterruptedException {
+    return stateTracker.await(whenState(terracottaServer, states), () -> resyncStates(Collections.singletonList(terracottaServer)));
+  }
+
+  /**
+   * @return a future completed as soon as one of the servers becomes active, with this server
+   */
+  public CompletableFuture<TerracottaServer> whenActive(Collection<TerracottaServer> servers) {
+    return when(servers, () -> servers.stream().filter(server -> stateTracker.getState(server) == STARTED_AS_ACTIVE).findFirst().orElse(null));
+  }
+
+  public TerracottaServer waitForActive(Collection<TerracottaServer> servers) throws InterruptedException {
+    return stateTracker.await(whenActive(servers), () -> resyncStates(servers));
+  }
+
+  /**
+   * @return a future completed as soon as at least {@code count} of the servers are passive, with these passive servers
+   */
+  public CompletableFuture<Collection<TerracottaServer>> whenPassives(Collection<TerracottaServer> servers, int count) {
+    return when(servers, () -> {
+      List<TerracottaServer> passives = servers.stream().filter(server -> stateTracker.getState(server) == STARTED_AS_PASSIVE).collect(Collectors.toList());
+      return passives.size() >= count ? passives : null;
+    });
+  }
+
+  public Collection<TerracottaServer> waitForPassives(Collection<TerracottaServer> servers, int count) throws InterruptedException {
+    return stateTracker.await(whenPassives(servers, count), () -> resyncStates(servers));
+  }
+
+  /**
+   * Waits for a future returned by one of the {@code when...} methods, re-reading the states of the servers
+   * if no transition is received for a while
+   *
+   * @throws TimeoutException if the future is not completed within the timeout
+   */
+  <T> T await(CompletableFuture<T> future, Collection<TerracottaServer> servers, Duration timeout) throws InterruptedException, TimeoutException {
+    return stateTracker.await(future, () -> resyncStates(servers), timeout);
+  }
+
+  /**
+   * @return the last state transition of the server pushed by its agent, with the time when it happened, or null if none was received
+   */
+  public TerracottaServerStateChange getLastStateChange(TerracottaServer terracottaServer) {
+    return stateTracker.getLastStateChange(terracottaServer);
+  }
+
+  /**
+   * Reads the unknown states of the servers from their agents on the calling thread, then registers the condition.
+   * The condition is evaluated on the thread delivering the transitions: it must only read the state tracker.
+   */
+  private <T> CompletableFuture<T> when(Collection<TerracottaServer> servers, Supplier<T> condition) {
+    List<TerracottaServer> unknown = servers.stream().filter(server -> stateTracker.getState(server) == null).collect(Collectors.toList());
+    if (!unknown.isEmpty()) {
+      snapshot(unknown);
+    }
+    return stateTracker.when(condition);
+  }
+
+  private TerracottaServer single(Collection<TerracottaServer> servers, TerracottaServerState state, String kind) {
+    List<TerracottaServer> found = servers.stream().filter(server -> stateTracker.getState(server) == state).collect(Collectors.toList());
+    switch (found.size()) {
+      case 0:
+        return null;
+      case 1:
+        return found.get(0);
+      default:
+        throw new IllegalStateException("There is more than one " + kind + " Terracotta server, found " + found.size());
     }
-    return terracottaServer;
+  }
+
+  private void resyncStates() {
+    resyncStates(tsaConfigurationContext.getTopology().getServers());
+  }
+
+  /**
+   * Re-reads the states from the agents, in case some transitions were not received
+   */
+  private void resyncStates(Collection<TerracottaServer> servers) {
+    snapshot(servers);
   }
 
   public TerracottaServer getActive() {
@@ -450,13 +774,7 @@ public class Tsa implements AutoCloseable {
   }
 
   public Collection<TerracottaServer> getDiagnosticModeSevers() {
-    Collection<TerracottaServer> result = new ArrayList<>();
-    for (TerracottaServer terracottaServer : tsaConfigurationContext.getTopology().getServers()) {
-      if (getState(terracottaServer) == STARTED_IN_DIAGNOSTIC_MODE) {
-        result.add(terracottaServer);
-      }
-    }
-    return result;
+    return inState(snapshot(), STARTED_IN_DIAGNOSTIC_MODE);
   }
 
   public TerracottaServer getDiagnosticModeServer() {
@@ -488,6 +806,20 @@ public class Tsa implements AutoCloseable {
     return new RemoteFolder(agentExecutor, path, root);
   }
 
+  /**
+   * Streams the lines appended to a file of a server, like its log, without downloading it
+   *
+   * @param path the path of the file, relative to the installation of the server, like {@code logs/<server>/terracotta.server.log}
+   * @param filter the lines to receive, matched on the agent, or null for all of them
+   * @see RemoteFile#tail(Pattern, Consumer)
+   */
+  public RemoteLogStream tail(TerracottaServer terracottaServer, String path, Pattern filter, Consumer<String> listener) {
+    final AgentID agentID = executor.getAgentID(terracottaServer.getHostName());
+    final AgentExecutor agentExecutor = executor.forAgent(agentID);
+    String installPath = agentExecutor.execute(() -> AgentController.getInstance().getTsaInstallPath(instanceId, terracottaServer));
+    return new RemoteFile(agentExecutor, installPath, path).tail(filter, listener);
+  }
+
   public RemoteFolder browseFromKitLocation(TerracottaServer terracottaServer, String relativePath) {
     final AgentID agentID = executor.getAgentID(terracottaServer.getHostName());
     final AgentExecutor agentExecutor = executor.forAgent(agentID);
@@ -591,6 +923,16 @@ public class Tsa implements AutoCloseable {
     }
   }
 
+  private static Throwable unwrap(Throwable t) {
+    return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+  }
+
+  @Override
+  public Duration getCloseDeadline() {
+    // the stop and the uninstallation of the servers
+    return ParallelLifecycle.teardownDeadline().multipliedBy(2);
+  }
+
   @Override
   public void close() {
     if (closed) {
@@ -598,9 +940,13 @@ public class Tsa implements AutoCloseable {
     }
     closed = true;
 
-    stopAll();
-    if (!SKIP_UNINSTALL.getBooleanValue()) {
-      uninstallAll();
+    try {
+      stopAll();
+      if (!SKIP_UNINSTALL.getBooleanValue()) {
+        uninstallAll();
+      }
+    } finally {
+      stateTracker.close();
     }
 
     if (tsaConfigurationContext.getTopology().isNetDisruptionEnabled()) {
@@ -610,6 +956,7 @@ public class Tsa implements AutoCloseable {
         logger.error("Error when trying to close traffic controller : {}", e.getMessage());
       }
     }
+
   }
 
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.angela.agent.AgentController;
+import org.terracotta.angela.agent.com.AgentID;
+import org.terracotta.angela.agent.com.Executor;
+import org.terracotta.angela.common.TerracottaServerState;
+import org.terracotta.angela.common.TerracottaServerStateChange;
+import org.terracotta.angela.common.cluster.Topic;
+import org.terracotta.angela.common.tcconfig.TerracottaServer;
+import org.terracotta.angela.common.topology.InstanceId;
+import org.terracotta.angela.common.util.ClusterClock;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last known state of the servers of a TSA, pushed by the agents on each state transition.
+ * <p>
+ * With Ignite, the transitions are published on a topic by the agents. In local mode, the agent controller
+ * runs in this JVM and calls the tracker directly.
+ * Waiters are completed as soon as the transition they wait for is received, instead of polling the agents.
+ */
+class TsaStateTracker implements AutoCloseable {
+
+  private final static Logger logger = LoggerFactory.getLogger(TsaStateTracker.class);
+
+  // the states are re-read from the agents if no transition was received for that long while waiting
+  private static final long RESYNC_PERIOD_MILLIS = 1000;
+
+  private final Executor executor;
+  private final InstanceId instanceId;
+  private final Map<UUID, TerracottaServerStateChange> states = new ConcurrentHashMap<>();
+  private final Queue<Waiter<?>> waiters = new ConcurrentLinkedQueue<>();
+  private final Topic<TerracottaServerStateChange> topic;
+  private final Topic.Subscription subscription;
+
+  TsaStateTracker(Executor executor, InstanceId instanceId) {
+    this.executor = executor;
+    this.instanceId = instanceId;
+    Topic<TerracottaServerStateChange> topic = null;
+    Topic.Subscription subscription = null;
+    if (executor != null) {
+      if (executor.getLocalAgentID().isLocal()) {
+        logger.debug("Local mode: state changes of TSA: {} are received directly", instanceId);
+      } else {
+        // no batching: transitions are rare and must be delivered without delay
+        Topic<TerracottaServerStateChange> allNodes = executor.getCluster().topic("Tsa-State-" + instanceId, 1, 0L);
+        subscription = allNodes.subscribe(this::onStateChange);
+        // only this orchestrator tracks the TSA: the agents send the transitions to this node instead of all the nodes
+        topic = allNodes.toLocalNode();
+      }
+    }
+    this.topic = topic;
+    this.subscription = subscription;
+  }
+
+  /**
+   * Asks the agent of a newly installed server to push its state transitions to this tracker
+   */
+  void track(AgentID agentID, TerracottaServer terracottaServer) {
+    InstanceId instanceId = this.instanceId;
+    long readAt = ClusterClock.clusterTimeNanos();
+    TerracottaServerState state;
+    if (topic != null) {
+      Topic<TerracottaServerStateChange> topic = this.topic;
+      state = executor.execute(agentID, () -> AgentController.getInstance().addTsaStateListener(instanceId, terracottaServer, topic::publish));
+    } else {
+      // the closure is executed in this JVM: it is never serialized
+      state = executor.execute(agentID, () -> AgentController.getInstance().addTsaStateListener(instanceId, terracottaServer, this::onStateChange));
+    }
+    // known right away, without waiting for the first pushed transition
+    update(terracottaServer, state, readAt);
+  }
+
+  void forget(TerracottaServer terracottaServer) {
+    states.remove(terracottaServer.getId());
+  }
+
+  /**
+   * @return the last known state of the server, or null if it is not known
+   */
+  TerracottaServerState getState(TerracottaServer terracottaServer) {
+    TerracottaServerStateChange stateChange = states.get(terracottaServer.getId());
+    return stateChange == null ? null : stateChange.getState();
+  }
+
+  /**
+   * @return the last known transition of the server, or null if it is not known
+   */
+  TerracottaServerStateChange getLastStateChange(TerracottaServer terracottaServer) {
+    return states.get(terracottaServer.getId());
+  }
+
+  /**
+   * Records a state read from an agent, for the servers which state is unknown or which transitions were missed.
+   * The last transition is kept if the server is still in this state, with the time when it happened.
+   */
+  void update(TerracottaServer terracottaServer, TerracottaServerState state, long readAtClusterTimeNanos) {
+    onStateChange(new TerracottaServerStateChange(terracottaServer.getId(), terracottaServer.getServerSymbolicName(), state, readAtClusterTimeNanos));
+  }
+
+  /**
+   * @param condition evaluated on each state transition, it returns null until the awaited condition is met.
+   *                  It is evaluated on the thread delivering the transitions and must not call the agents.
+   * @return a future completed with the first non-null result of the condition
+   */
+  <T> CompletableFuture<T> when(Supplier<T> condition) {
+    Waiter<T> waiter = new Waiter<>(condition);
+    waiters.add(waiter);
+    // the condition may already be met
+    if (waiter.evaluate()) {
+      waiters.remove(waiter);
+    }
+    return waiter.future;
+  }
+
+  /**
+   * Waits for the future of a condition, re-reading the states of the servers if no transition is received for a while
+   */
+  <T> T await(CompletableFuture<T> future, Runnable resync) throws InterruptedException {
+    try {
+      return await(future, resync, null);
+    } catch (TimeoutException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * @param timeout the maximum time to wait, or null to wait without limit
+   */
+  <T> T await(CompletableFuture<T> future, Runnable resync, Duration timeout) throws InterruptedException, TimeoutException {
+    long deadline = timeout == null ? 0L : System.nanoTime() + timeout.toNanos();
+    while (true) {
+      try {
+        return future.get(RESYNC_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        if (timeout != null && System.nanoTime() - deadline >= 0) {
+          future.cancel(false);
+          throw new TimeoutException("Expected state not reached within " + timeout);
+        }
+        resync.run();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new RuntimeException(cause);
+      } catch (InterruptedException e) {
+        future.cancel(false);
+        throw e;
+      }
+    }
+  }
+
+  private void onStateChange(TerracottaServerStateChange stateChange) {
+    // messages from different agents are not ordered: keep the most recent transition,
+    // but not a re-read of the same state which would hide when the transition happened
+    states.merge(stateChange.getServerId(), stateChange, (previous, current) ->
+        current.getState() != previous.getState() && current.getClusterTimeNanos() >= previous.getClusterTimeNanos() ? current : previous);
+    logger.debug("TSA: {} server: {} is: {} at: {}", instanceId, stateChange.getServerSymbolicName(), stateChange.getState(), ClusterClock.toInstant(stateChange.getClusterTimeNanos()));
+    waiters.removeIf(Waiter::evaluate);
+  }
+
+  @Override
+  public void close() {
+    if (subscription != null) {
+      subscription.close();
+    }
+    waiters.forEach(waiter -> waiter.future.cancel(false));
+    waiters.clear();
+  }
+
+  private static class Waiter<T> {
+    final Supplier<T> condition;
+    final CompletableFuture<T> future = new CompletableFuture<>();
+
+    Waiter(Supplier<T> condition) {
+      this.condition = condition;
+    }
+
+    /**
+     * @return true if the waiter is done
+     */
+    boolean evaluate() {
+      if (future.isDone()) {
+        return true;
+      }
+      try {
+        T result = condition.get();
+        if (result != null) {
+          future.complete(result);
+          return true;
+        }
+        return false;
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+        return true;
+      }
+    }
+  }
+}
@@ -34,11 +34,10 @@ import org.terracotta.angela.common.tcconfig.License;
 import org.terracotta.angela.common.tcconfig.SecurityRootDirectory;
 import org.terracotta.angela.common.topology.InstanceId;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 import static org.terracotta.angela.common.AngelaProperties.KIT_COPY;
 import static org.terracotta.angela.common.AngelaProperties.KIT_INSTALLATION_DIR;
@@ -47,7 +46,7 @@ import static org.terracotta.angela.common.AngelaProperties.OFFLINE;
 import static org.terracotta.angela.common.AngelaProperties.SKIP_UNINSTALL;
 import static org.terracotta.angela.common.AngelaProperties.getEitherOf;
 
-public class Voter implements AutoCloseable {
+public class Voter implements BoundedCloseable {
 
   private final static Logger logger = LoggerFactory.getLogger(Voter.class);
 
@@ -78,9 +77,12 @@ public class Voter implements AutoCloseable {
   }
 
   public Voter startAll() {
-    voterConfigurationContext.getTerracottaVoters().stream()
-        .map(voter -> CompletableFuture.runAsync(() -> start(voter)))
-        .reduce(CompletableFuture::allOf).ifPresent(CompletableFuture::join);
+    List<Throwable> failures = ParallelLifecycle.forEach("voter-start", voterConfigurationContext.getTerracottaVoters(), this::start);
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error starting all voters");
+      failures.forEach(re::addSuppressed);
+      throw re;
+    }
     return this;
   }
 
@@ -96,19 +98,10 @@ public class Voter implements AutoCloseable {
   }
 
   public Voter stopAll() {
-    List<Exception> exceptions = new ArrayList<>();
-
-    for (TerracottaVoter terracottaVoter : voterConfigurationContext.getTerracottaVoters()) {
-      try {
-        stop(terracottaVoter);
-      } catch (Exception e) {
-        exceptions.add(e);
-      }
-    }
-
-    if (!exceptions.isEmpty()) {
+    List<Throwable> failures = ParallelLifecycle.forEach("voter-stop", voterConfigurationContext.getTerracottaVoters(), ParallelLifecycle.teardownDeadline(), this::stop);
+    if (!failures.isEmpty()) {
       RuntimeException re = new RuntimeException("Error stopping all voters");
-      exceptions.forEach(re::addSuppressed);
+      failures.forEach(re::addSuppressed);
       throw re;
     }
     return this;
@@ -125,6 +118,12 @@ public class Voter implements AutoCloseable {
     return this;
   }
 
+  @Override
+  public Duration getCloseDeadline() {
+    // the stop and the uninstallation of the voters
+    return ParallelLifecycle.teardownDeadline().multipliedBy(2);
+  }
+
   @Override
   public void close() {
     if (closed) {
@@ -173,8 +172,11 @@ public class Voter implements AutoCloseable {
   }
 
   private void uninstallAll() {
-    for (TerracottaVoter terracottaVoter : voterConfigurationContext.getTerracottaVoters()) {
-      uninstall(terracottaVoter);
+    List<Throwable> failures = ParallelLifecycle.forEach("voter-uninstall", voterConfigurationContext.getTerracottaVoters(), ParallelLifecycle.teardownDeadline(), this::uninstall);
+    if (!failures.isEmpty()) {
+      RuntimeException re = new RuntimeException("Error uninstalling all voters");
+      failures.forEach(re::addSuppressed);
+      throw re;
     }
   }
 
@@ -0,0 +1,37 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.terracotta.angela.agent.AgentController;
+import org.terracotta.angela.agent.com.AgentExecutor;
+import org.terracotta.angela.agent.com.FileChunk;
+
+/**
+ * Reads ranges of remote files
+ */
+@FunctionalInterface
+interface ChunkReader {
+
+  /**
+   * @return the bytes read, fewer than asked at the end of the file
+   */
+  FileChunk read(String file, long offset, int length);
+
+  static ChunkReader of(AgentExecutor agentExecutor) {
+    return (file, offset, length) -> agentExecutor.execute(() -> AgentController.getInstance().readChunk(file, offset, length));
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.terracotta.angela.agent.com.AgentExecutor;
+import org.terracotta.angela.agent.com.FileChunk;
+import org.terracotta.angela.agent.com.FileDelta;
+import org.terracotta.angela.agent.com.FileEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads remote files chunk by chunk, straight to disk.
+ * <p>
+ * The chunks of all the files are fetched in parallel, each one being written at its offset as soon as it is received,
+ * so that at most {@code parallelism} chunks are in memory on each side, whatever the size of the files.
+ * The checksum of each chunk, computed by the agent, is verified before it is written.
+ * When a download fails, the local files which did not receive all their chunks are deleted: with a hole in the middle,
+ * they would otherwise be seen as up to date, or as appended to, by the next synchronization.
+ */
+class ChunkedDownload {
+
+  static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+  static final int DEFAULT_PARALLELISM = 4;
+  // for the chunks being written to complete before the incomplete files are deleted
+  private static final long DISCARD_TIMEOUT_MILLIS = 10_000;
+
+  private final ChunkReader reader;
+  private final int chunkSize;
+  private final int parallelism;
+
+  ChunkedDownload(ChunkReader reader, int chunkSize, int parallelism) {
+    this.reader = reader;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+  }
+
+  static ChunkedDownload from(AgentExecutor agentExecutor) {
+    return new ChunkedDownload(ChunkReader.of(agentExecutor), DEFAULT_CHUNK_SIZE, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Downloads a single file, which size is learnt with its first chunk
+   */
+  void downloadFile(String remoteFile, Path localFile) throws IOException {
+    FileChunk first = reader.read(remoteFile, 0, chunkSize).verify();
+    create(localFile);
+    write(localFile, first);
+    List<Chunk> chunks = new ArrayList<>();
+    for (long offset = first.getBytes().length; offset < first.getFileSize(); offset += chunkSize) {
+      chunks.add(new Chunk(remoteFile, localFile, offset, (int) Math.min(chunkSize, first.getFileSize() - offset)));
+    }
+    download(chunks);
+  }
+
+  /**
+   * Downloads the listed files of a remote folder, with the sizes and modification times of the listing
+   */
+  void downloadFolder(String remoteFolder, List<FileEntry> entries, Path localFolder) throws IOException {
+    List<FileDelta> deltas = new ArrayList<>(entries.size());
+    for (FileEntry entry : entries) {
+      deltas.add(new FileDelta(entry, 0));
+    }
+    syncFolder(remoteFolder, deltas, localFolder);
+  }
+
+  /**
+   * Transfers the changes of the files of a remote folder to a local copy: each file is transferred from the offset
+   * of its delta, the local file being kept up to it
+   */
+  void syncFolder(String remoteFolder, List<FileDelta> deltas, Path localFolder) throws IOException {
+    Files.createDirectories(localFolder);
+    List<Chunk> chunks = new ArrayList<>();
+    for (FileDelta delta : deltas) {
+      FileEntry entry = delta.getEntry();
+      String remoteFile = remoteFolder + "/" + entry.getRelativePath();
+      Path localFile = localFolder.resolve(entry.getRelativePath());
+      if (delta.getOffset() == 0) {
+        create(localFile);
+      } else {
+        try (FileChannel channel = FileChannel.open(localFile, StandardOpenOption.WRITE)) {
+          channel.truncate(delta.getOffset());
+        }
+      }
+      for (long offset = delta.getOffset(); offset < entry.getSize(); offset += chunkSize) {
+        chunks.add(new Chunk(remoteFile, localFile, offset, (int) Math.min(chunkSize, entry.getSize() - offset)));
+      }
+    }
+    download(chunks);
+    for (FileDelta delta : deltas) {
+      Files.setLastModifiedTime(localFolder.resolve(delta.getEntry().getRelativePath()), FileTime.fromMillis(delta.getEntry().getLastModified()));
+    }
+  }
+
+  private void download(List<Chunk> chunks) throws IOException {
+    if (chunks.isEmpty()) {
+      return;
+    }
+    // the files which shrank during the download, with their final size
+    Map<Path, Long> shrunk = new ConcurrentHashMap<>();
+    AtomicInteger threadCounter = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()), r -> {
+      Thread thread = new Thread(r, "angela-download-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<Future<Void>> futures = new ArrayList<>(chunks.size());
+    try {
+      for (Chunk chunk : chunks) {
+        futures.add(executor.submit(() -> {
+          FileChunk fileChunk = reader.read(chunk.remoteFile, chunk.offset, chunk.length).verify();
+          write(chunk.localFile, fileChunk);
+          if (fileChunk.getBytes().length < chunk.length) {
+            shrunk.merge(chunk.localFile, fileChunk.getFileSize(), Math::min);
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw discardIncomplete(executor, chunks, futures, new IOException("Interrupted while downloading", e));
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      IOException failure = cause instanceof IOException ? (IOException) cause : new IOException("Download failed: " + cause.getMessage(), cause);
+      throw discardIncomplete(executor, chunks, futures, failure);
+    } finally {
+      executor.shutdownNow();
+    }
+    for (Map.Entry<Path, Long> entry : shrunk.entrySet()) {
+      try (FileChannel channel = FileChannel.open(entry.getKey(), StandardOpenOption.WRITE)) {
+        channel.truncate(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Deletes the files for which a chunk failed or was not downloaded
+   *
+   * @return the failure of the download, with the failures to delete the files suppressed
+   */
+  private static IOException discardIncomplete(ExecutorService executor, List<Chunk> chunks, List<Future<Void>> futures, IOException failure) {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(DISCARD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    Set<Path> incomplete = new HashSet<>();
+    for (int i = 0; i < chunks.size(); i++) {
+      if (i >= futures.size() || !succeeded(futures.get(i))) {
+        incomplete.add(chunks.get(i).localFile);
+      }
+    }
+    for (Path localFile : incomplete) {
+      try {
+        Files.deleteIfExists(localFile);
+      } catch (IOException e) {
+        failure.addSuppressed(e);
+      }
+    }
+    return failure;
+  }
+
+  private static boolean succeeded(Future<Void> future) {
+    if (!future.isDone() || future.isCancelled()) {
+      return false;
+    }
+    try {
+      future.get();
+      return true;
+    } catch (InterruptedException | ExecutionException e) {
+      return false;
+    }
+  }
+
+  private static void create(Path localFile) throws IOException {
+    Path parent = localFile.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Files.newByteChannel(localFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING).close();
+  }
+
+  private static void write(Path localFile, FileChunk chunk) throws IOException {
+    try (FileChannel channel = FileChannel.open(localFile, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.wrap(chunk.getBytes());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, chunk.getOffset() + buffer.position());
+      }
+    }
+  }
+
+  private static class Chunk {
+    final String remoteFile;
+    final Path localFile;
+    final long offset;
+    final int length;
+
+    Chunk(String remoteFile, Path localFile, long offset, int length) {
+      this.remoteFile = remoteFile;
+      this.localFile = localFile;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
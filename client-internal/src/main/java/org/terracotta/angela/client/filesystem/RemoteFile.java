@@ -18,11 +18,16 @@ package org.terracotta.angela.client.filesystem;
 
 import org.terracotta.angela.agent.AgentController;
 import org.terracotta.angela.agent.com.AgentExecutor;
+import org.terracotta.angela.agent.com.FileEntry;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 public class RemoteFile {
   protected final transient AgentExecutor agentExecutor;
@@ -54,8 +59,68 @@ public class RemoteFile {
     downloadTo(path.toPath());
   }
 
+  /**
+   * Downloads the file chunk by chunk, straight to disk
+   */
   public void downloadTo(Path path) throws IOException {
-    Files.write(path, downloadContents());
+    ChunkedDownload.from(agentExecutor).downloadFile(getAbsoluteName(), path);
+  }
+
+  /**
+   * @return the current size of the file
+   */
+  public long size() {
+    return stat().getSize();
+  }
+
+  /**
+   * @return the last modification time of the file, in milliseconds since the epoch
+   */
+  public long lastModified() {
+    return stat().getLastModified();
+  }
+
+  private FileEntry stat() {
+    String filename = getAbsoluteName();
+    return agentExecutor.execute(() -> AgentController.getInstance().stat(filename));
+  }
+
+  /**
+   * Reads a range of the file, without transferring the rest of it
+   *
+   * @return the bytes read, fewer than asked at the end of the file
+   */
+  public byte[] read(long offset, int length) throws IOException {
+    if (length < 0) {
+      throw new IllegalArgumentException("Negative length: " + length);
+    }
+    try (SeekableByteChannel channel = new RemoteFileChannel(ChunkReader.of(agentExecutor), getAbsoluteName(), 0)) {
+      channel.position(offset);
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          break;
+        }
+      }
+      return buffer.position() == length ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+  }
+
+  /**
+   * @return a read-only channel over the file, see {@link #openChannel(int)}
+   */
+  public SeekableByteChannel openChannel() {
+    return openChannel(RemoteFileChannel.DEFAULT_READ_AHEAD);
+  }
+
+  /**
+   * Opens a read-only channel over the file, each read fetching a range of the file from the agent.
+   * The channel is not bound to any resource on the agent: closing it only releases the cached bytes.
+   *
+   * @param readAheadSize the minimum number of bytes fetched from the agent by a read, to make the sequential reads of small buffers cheap
+   */
+  public SeekableByteChannel openChannel(int readAheadSize) {
+    return new RemoteFileChannel(ChunkReader.of(agentExecutor), getAbsoluteName(), readAheadSize);
   }
 
   private byte[] downloadContents() {
@@ -63,6 +128,24 @@ public class RemoteFile {
     return agentExecutor.execute(() -> AgentController.getInstance().downloadFile(filename));
   }
 
+  /**
+   * Streams the lines of this file, starting at offset 0: the lines already in the file are received first,
+   * then the lines appended to it.
+   * The listener is called from a messaging thread: a slow listener slows down the stream.
+   *
+   * @param filter the lines to receive, matched on the agent, or null for all of them
+   * @return the stream, to close to stop receiving lines
+   */
+  public RemoteLogStream tail(Pattern filter, Consumer<String> listener) {
+    RemoteLogStream stream = new RemoteLogStream(agentExecutor, getAbsoluteName(), listener);
+    stream.start(filter, RemoteLogStream.DEFAULT_WINDOW);
+    return stream;
+  }
+
+  public RemoteLogStream tail(Consumer<String> listener) {
+    return tail(null, listener);
+  }
+
   public TransportableFile toTransportableFile() {
     return new TransportableFile(getName(), downloadContents());
   }
@@ -0,0 +1,148 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.apache.ignite.IgniteException;
+import org.terracotta.angela.agent.com.FileChunk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read-only view of a remote file, each read fetching a range of the file with a positional read on the agent.
+ * <p>
+ * The reads fetch at least the read-ahead size, so that the sequential reads of small buffers only hit the agent
+ * once in a while. The file may change while the channel is open: the cached bytes are only reused for the reads
+ * falling in the range fetched last.
+ */
+class RemoteFileChannel implements SeekableByteChannel {
+
+  static final int DEFAULT_READ_AHEAD = 1024 * 1024;
+
+  // bounded, so that a huge buffer does not turn into a huge message
+  private static final int MAX_FETCH_SIZE = ChunkedDownload.DEFAULT_CHUNK_SIZE;
+
+  private final ChunkReader reader;
+  private final String file;
+  private final int readAheadSize;
+  private long position;
+  private FileChunk cache;
+  private boolean open = true;
+
+  /**
+   * @param readAheadSize the minimum number of bytes fetched by a read, 0 to only fetch what is read
+   */
+  RemoteFileChannel(ChunkReader reader, String file, int readAheadSize) {
+    if (readAheadSize < 0) {
+      throw new IllegalArgumentException("Invalid read-ahead size: " + readAheadSize);
+    }
+    this.reader = reader;
+    this.file = file;
+    this.readAheadSize = Math.min(readAheadSize, MAX_FETCH_SIZE);
+  }
+
+  @Override
+  public synchronized int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    if (!dst.hasRemaining()) {
+      return 0;
+    }
+    if (!cached(position)) {
+      cache = fetch(position, Math.max(readAheadSize, Math.min(dst.remaining(), MAX_FETCH_SIZE)));
+      if (!cached(position)) {
+        return -1;
+      }
+    }
+    int from = (int) (position - cache.getOffset());
+    int length = Math.min(dst.remaining(), cache.getBytes().length - from);
+    dst.put(cache.getBytes(), from, length);
+    position += length;
+    return length;
+  }
+
+  @Override
+  public synchronized long position() throws IOException {
+    ensureOpen();
+    return position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+    ensureOpen();
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("Negative position: " + newPosition);
+    }
+    position = newPosition;
+    return this;
+  }
+
+  /**
+   * @return the current size of the remote file
+   */
+  @Override
+  public synchronized long size() throws IOException {
+    ensureOpen();
+    return fetch(0, 0).getFileSize();
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public synchronized void close() {
+    open = false;
+    cache = null;
+  }
+
+  private boolean cached(long position) {
+    return cache != null && position >= cache.getOffset() && position < cache.getOffset() + cache.getBytes().length;
+  }
+
+  private FileChunk fetch(long offset, int length) throws IOException {
+    try {
+      return reader.read(file, offset, length).verify();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } catch (IgniteException e) {
+      throw new IOException("Error reading remote file '" + file + "'", e);
+    } catch (IllegalStateException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
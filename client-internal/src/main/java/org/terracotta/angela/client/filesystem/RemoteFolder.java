@@ -19,28 +19,34 @@ package org.terracotta.angela.client.filesystem;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.io.IOUtils;
 import org.apache.ignite.IgniteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terracotta.angela.agent.AgentController;
 import org.terracotta.angela.agent.com.AgentExecutor;
+import org.terracotta.angela.agent.com.FileDelta;
+import org.terracotta.angela.agent.com.FileDigest;
+import org.terracotta.angela.agent.com.FileEntry;
+import org.terracotta.angela.common.util.GrepOptions;
+import org.terracotta.angela.common.util.GrepResult;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import static java.util.stream.Collectors.toList;
 
 public class RemoteFolder extends RemoteFile {
 
+  private static final Logger logger = LoggerFactory.getLogger(RemoteFolder.class);
+
   public RemoteFolder(AgentExecutor agentExecutor, String parentName, String name) {
     super(agentExecutor, parentName, name);
   }
@@ -60,6 +66,33 @@ public class RemoteFolder extends RemoteFile {
     return result;
   }
 
+  /**
+   * Lists the files and sub-folders of this folder, down to a depth, with their sizes and modification times,
+   * in a single call to the agent whatever the number of sub-folders
+   *
+   * @param depth the depth of the listing, 1 for the direct children of this folder only
+   * @param glob the entries to list, matched on their name, like {@code *.log}, or null for all of them
+   * @return the entries, with paths relative to this folder
+   */
+  public List<FileEntry> walk(int depth, String glob) throws IOException {
+    if (depth < 0) {
+      throw new IllegalArgumentException("Negative depth: " + depth);
+    }
+    String foldername = getAbsoluteName();
+    try {
+      return agentExecutor.execute(() -> AgentController.getInstance().walk(foldername, depth, glob));
+    } catch (IgniteException ie) {
+      throw new IOException("Error walking remote folder '" + foldername + "'", ie);
+    }
+  }
+
+  /**
+   * @return all the files and sub-folders of this folder and its sub-folders, see {@link #walk(int, String)}
+   */
+  public List<FileEntry> walk() throws IOException {
+    return walk(Integer.MAX_VALUE, null);
+  }
+
   public void upload(File localFile) throws IOException {
     upload(localFile.toPath());
   }
@@ -107,33 +140,63 @@ public class RemoteFolder extends RemoteFile {
     agentExecutor.execute(() -> AgentController.getInstance().uploadFile(filename, data));
   }
 
-  @SuppressFBWarnings({"RV_RETURN_VALUE_IGNORED_BAD_PRACTICE", "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE"})
+  /**
+   * Downloads the files of this folder and its sub-folders, chunk by chunk and in parallel, straight to disk
+   */
   @Override
   public void downloadTo(Path localPath) throws IOException {
     String foldername = getAbsoluteName();
-    byte[] bytes;
+    List<FileEntry> entries;
     try {
-      bytes = agentExecutor.execute(() -> AgentController.getInstance().downloadFolder(foldername));
+      entries = agentExecutor.execute(() -> AgentController.getInstance().listTree(foldername));
     } catch (IgniteException ie) {
       throw new IOException("Error downloading remote folder '" + foldername + "' into local folder '" + localPath + "'", ie);
     }
+    ChunkedDownload.from(agentExecutor).downloadFolder(foldername, entries, localPath);
+  }
 
-    Files.createDirectories(localPath);
-
-    try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
-      while (true) {
-        ZipEntry nextEntry = zis.getNextEntry();
-        if (nextEntry == null) {
-          break;
-        }
-        String name = nextEntry.getName();
-        Path file = localPath.resolve(name);
-        Files.createDirectories(file.getParent());
-        try (OutputStream fos = Files.newOutputStream(file)) {
-          IOUtils.copy(zis, fos);
-        }
+  /**
+   * Brings a local copy of this folder up to date: only the new files and the changed ones are transferred,
+   * and only the appended data of the files which only grew, like logs. The local files which do not exist
+   * anymore in this folder are kept.
+   */
+  public void syncTo(Path localPath) throws IOException {
+    String foldername = getAbsoluteName();
+    List<FileDigest> copies = new ArrayList<>();
+    if (Files.isDirectory(localPath)) {
+      List<Path> files;
+      try (Stream<Path> stream = Files.walk(localPath)) {
+        files = stream.filter(Files::isRegularFile).collect(toList());
+      }
+      for (Path file : files) {
+        copies.add(FileDigest.of(localPath, file));
       }
     }
+    List<FileDelta> deltas;
+    try {
+      deltas = agentExecutor.execute(() -> AgentController.getInstance().planSync(foldername, copies));
+    } catch (IgniteException ie) {
+      throw new IOException("Error synchronizing remote folder '" + foldername + "' into local folder '" + localPath + "'", ie);
+    }
+    logger.debug("Synchronizing {} file(s) of: {} into: {}", deltas.size(), this, localPath);
+    ChunkedDownload.from(agentExecutor).syncFolder(foldername, deltas, localPath);
+  }
+
+  /**
+   * Searches the lines matching the pattern in the files of this folder and its sub-folders.
+   * The search runs on the agent: only the matching lines and their context are sent back.
+   */
+  public GrepResult grep(Pattern pattern, GrepOptions options) throws IOException {
+    String foldername = getAbsoluteName();
+    try {
+      return agentExecutor.execute(() -> AgentController.getInstance().grep(foldername, pattern, options));
+    } catch (IgniteException ie) {
+      throw new IOException("Error searching remote folder '" + foldername + "'", ie);
+    }
+  }
+
+  public GrepResult grep(String regex) throws IOException {
+    return grep(Pattern.compile(regex), GrepOptions.defaults());
   }
 
   @Override
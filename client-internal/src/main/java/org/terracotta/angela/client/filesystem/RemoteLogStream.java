@@ -0,0 +1,136 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.angela.agent.AgentController;
+import org.terracotta.angela.agent.com.AgentExecutor;
+import org.terracotta.angela.common.cluster.Topic;
+import org.terracotta.angela.common.util.LogSegment;
+
+import java.io.Closeable;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * A live stream of the lines appended to a remote file, see {@link RemoteFile#tail(Pattern, Consumer)}.
+ * <p>
+ * The agent follows the file and pushes the new lines, in segments. The filter is applied on the agent, so that only
+ * the interesting lines cross the network. A segment is acknowledged once the listener consumed all its lines,
+ * and the agent stops reading the file while {@link #DEFAULT_WINDOW} segments are not acknowledged:
+ * a slow listener makes the stream lag behind the file, but never makes anything pile up in memory.
+ */
+public class RemoteLogStream implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(RemoteLogStream.class);
+
+  public static final int DEFAULT_WINDOW = 16;
+
+  private final AgentExecutor agentExecutor;
+  private final String file;
+  private final String streamId = UUID.randomUUID().toString();
+  private final Consumer<String> listener;
+  private final AtomicLong expectedSequence = new AtomicLong();
+  private final AtomicLong receivedLines = new AtomicLong();
+  private Topic.Subscription subscription;
+  private volatile boolean closed;
+
+  RemoteLogStream(AgentExecutor agentExecutor, String file, Consumer<String> listener) {
+    this.agentExecutor = agentExecutor;
+    this.file = file;
+    this.listener = listener;
+  }
+
+  void start(Pattern filter, int window) {
+    String streamId = this.streamId;
+    String file = this.file;
+    if (agentExecutor.getExecutor().getLocalAgentID().isLocal()) {
+      logger.debug("Local mode: segments of log stream: {} are received directly", streamId);
+      // the closure is executed in this JVM: it is never serialized
+      agentExecutor.execute(() -> AgentController.getInstance().startLogStream(streamId, file, filter, window, this::onSegment));
+    } else {
+      // no batching: the segments are already batches of lines
+      Topic<LogSegment> topic = agentExecutor.getExecutor().getCluster().topic("Log-Stream-" + streamId, 1, 0L);
+      // subscribed before the agent starts pushing
+      subscription = topic.subscribe(this::onSegment);
+      // sent to this node only: if it leaves the cluster, publishing fails and the agent stops the stream
+      Topic<LogSegment> sink = topic.toLocalNode();
+      agentExecutor.execute(() -> AgentController.getInstance().startLogStream(streamId, file, filter, window, sink::publish));
+    }
+  }
+
+  /**
+   * @return the number of lines received so far
+   */
+  public long getReceivedLines() {
+    return receivedLines.get();
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  /**
+   * Stops the stream: no line is received anymore once closed
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    String streamId = this.streamId;
+    try {
+      agentExecutor.execute(() -> AgentController.getInstance().stopLogStream(streamId));
+    } catch (RuntimeException e) {
+      logger.debug("Unable to stop log stream: {} of: {} on: {}", streamId, file, agentExecutor.getTarget(), e);
+    }
+    if (subscription != null) {
+      subscription.close();
+    }
+  }
+
+  private void onSegment(LogSegment segment) {
+    if (closed) {
+      return;
+    }
+    long expected = expectedSequence.getAndSet(segment.getSequence() + 1);
+    if (segment.getSequence() != expected) {
+      logger.warn("Log stream: {} of: {} received segment: {} instead of: {}", streamId, file, segment.getSequence(), expected);
+    }
+    for (String line : segment.getLines()) {
+      try {
+        listener.accept(line);
+      } catch (RuntimeException e) {
+        logger.error("Listener of log stream: {} of: {} failed on line: {}: {}", streamId, file, line, e.getMessage(), e);
+      }
+    }
+    receivedLines.addAndGet(segment.getLines().size());
+    String streamId = this.streamId;
+    long sequence = segment.getSequence();
+    // asynchronous: this thread delivers the messages and must not wait for the agent
+    agentExecutor.executeAsync(() -> AgentController.getInstance().ackLogStream(streamId, sequence));
+  }
+
+  @Override
+  public String toString() {
+    return "[" + agentExecutor.getTarget() + "]:" + file + " (" + streamId + ")";
+  }
+}
@@ -31,18 +31,22 @@ import org.terracotta.angela.client.Tsa;
 import org.terracotta.angela.client.Voter;
 import org.terracotta.angela.client.config.ConfigurationContext;
 import org.terracotta.angela.client.filesystem.RemoteFolder;
+import org.terracotta.angela.common.TerracottaServerState;
 import org.terracotta.angela.common.ToolExecutionResult;
 import org.terracotta.angela.common.cluster.Cluster;
 import org.terracotta.angela.common.tcconfig.TerracottaServer;
+import org.terracotta.angela.common.util.LogTailer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -55,10 +59,7 @@ import java.util.stream.Stream;
 
 import static java.util.stream.IntStream.rangeClosed;
 import static org.hamcrest.Matchers.containsString;
-import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasItem;
-import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_ACTIVE;
 import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_PASSIVE;
@@ -72,6 +73,8 @@ import static org.terracotta.utilities.test.matchers.Eventually.within;
 public class AngelaRule extends ExtendedTestRule implements AutoCloseable {
 
   private static final Logger logger = LoggerFactory.getLogger(AngelaRule.class);
+  private static final Duration LOG_WAIT_TIMEOUT = Duration.ofDays(1);
+  private static final Duration LOG_POLL_INTERVAL = Duration.ofMillis(100);
 
   private final Supplier<AngelaOrchestrator> angelaOrchestratorSupplier;
   private ConfigurationContext configuration;
@@ -312,15 +315,17 @@ public class AngelaRule extends ExtendedTestRule implements AutoCloseable {
 
   public OptionalInt findActive(int stripeId) {
     List<TerracottaServer> nodes = getStripe(stripeId);
+    Map<TerracottaServer, TerracottaServerState> states = tsa().snapshot(nodes);
     return rangeClosed(1, nodes.size())
-        .filter(nodeId -> tsa().getState(nodes.get(nodeId - 1)) == STARTED_AS_ACTIVE)
+        .filter(nodeId -> states.get(nodes.get(nodeId - 1)) == STARTED_AS_ACTIVE)
         .findFirst();
   }
 
   public int[] findPassives(int stripeId) {
     List<TerracottaServer> nodes = getStripe(stripeId);
+    Map<TerracottaServer, TerracottaServerState> states = tsa().snapshot(nodes);
     return rangeClosed(1, nodes.size())
-        .filter(nodeId -> tsa().getState(nodes.get(nodeId - 1)) == STARTED_AS_PASSIVE)
+        .filter(nodeId -> states.get(nodes.get(nodeId - 1)) == STARTED_AS_PASSIVE)
         .toArray();
   }
 
@@ -341,7 +346,7 @@ public class AngelaRule extends ExtendedTestRule implements AutoCloseable {
   }
 
   public final void waitUntilServerStdOut(TerracottaServer server, String matcher) {
-    assertThat(() -> serverStdOut(server), within(Duration.ofDays(1)).matches(hasItem(containsString(matcher))));
+    waitUntilLogged(serverStdOutFile(server), matcher);
   }
 
   public final void assertThatServerStdOut(TerracottaServer server, String matcher) {
@@ -358,14 +363,18 @@ public class AngelaRule extends ExtendedTestRule implements AutoCloseable {
 
   public List<String> serverStdOut(TerracottaServer server) {
     try {
-      return Files.readAllLines(getServerHome(server).resolve("stdout.txt"));
+      return Files.readAllLines(serverStdOutFile(server));
     } catch (IOException io) {
       return Collections.emptyList();
     }
   }
 
+  private Path serverStdOutFile(TerracottaServer server) {
+    return getServerHome(server).resolve("stdout.txt");
+  }
+
   public final void waitUntilServerLogs(TerracottaServer server, String matcher) {
-    assertThat(() -> serverLogs(server), within(Duration.ofDays(1)).matches(hasItem(containsString(matcher))));
+    waitUntilLogged(serverLogFile(server), matcher);
   }
 
   public final void assertThatServerLogs(TerracottaServer server, String matcher) {
@@ -382,49 +391,103 @@ public class AngelaRule extends ExtendedTestRule implements AutoCloseable {
 
   public List<String> serverLogs(TerracottaServer server) {
     try {
-      return Files.readAllLines(getServerHome(server)
-          .resolve(server.getLogs())
-          .resolve(server.getServerSymbolicName().getSymbolicName())
-          .resolve("terracotta.server.log"));
+      return Files.readAllLines(serverLogFile(server));
     } catch (IOException io) {
       return Collections.emptyList();
     }
   }
 
+  private Path serverLogFile(TerracottaServer server) {
+    return getServerHome(server)
+        .resolve(server.getLogs())
+        .resolve(server.getServerSymbolicName().getSymbolicName())
+        .resolve("terracotta.server.log");
+  }
+
+  /**
+   * Waits until a line of the file contains the text. The file is tailed: each poll only reads the data appended since
+   * the previous one, instead of reading the whole file again.
+   */
+  private static void waitUntilLogged(Path file, String text) {
+    long deadline = System.nanoTime() + LOG_WAIT_TIMEOUT.toNanos();
+    try (LogTailer tailer = new LogTailer(file)) {
+      while (true) {
+        try {
+          if (tailer.next(line -> line.contains(text)) != null) {
+            return;
+          }
+        } catch (IOException e) {
+          logger.debug("Unable to read: {}, reading it again from its start", file, e);
+          tailer.close();
+        }
+        if (System.nanoTime() - deadline >= 0) {
+          throw new AssertionError("No line containing: '" + text + "' in: " + file + " after: " + LOG_WAIT_TIMEOUT);
+        }
+        Thread.sleep(LOG_POLL_INTERVAL.toMillis());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
   public final <T> void waitUntil(Supplier<T> callable, Matcher<T> matcher) {
     assertThat(callable, within(Duration.ofDays(1)).matches(matcher));
   }
 
   public final int waitForActive(int stripeId) {
-    waitUntil(() -> findActive(stripeId).isPresent(), is(true));
-    return findActive(stripeId).getAsInt();
+    List<TerracottaServer> nodes = getStripe(stripeId);
+    return nodes.indexOf(awaitState(() -> tsa().waitForActive(nodes))) + 1;
   }
 
   public final void waitForActive(int stripeId, int nodeId) {
-    waitUntil(() -> tsa().getState(getNode(stripeId, nodeId)), is(equalTo(STARTED_AS_ACTIVE)));
+    waitForState(stripeId, nodeId, STARTED_AS_ACTIVE);
   }
 
   public final void waitForPassive(int stripeId, int nodeId) {
-    waitUntil(() -> tsa().getState(getNode(stripeId, nodeId)), is(equalTo(STARTED_AS_PASSIVE)));
+    waitForState(stripeId, nodeId, STARTED_AS_PASSIVE);
   }
 
   public final void waitForDiagnostic(int stripeId, int nodeId) {
-    waitUntil(() -> tsa().getState(getNode(stripeId, nodeId)), is(equalTo(STARTED_IN_DIAGNOSTIC_MODE)));
+    waitForState(stripeId, nodeId, STARTED_IN_DIAGNOSTIC_MODE);
   }
 
   public final void waitForStopped(int stripeId, int nodeId) {
-    waitUntil(() -> tsa().getState(getNode(stripeId, nodeId)), is(equalTo(STOPPED)));
+    waitForState(stripeId, nodeId, STOPPED);
   }
 
   public final int[] waitForPassives(int stripeId) {
     int expectedPassiveCount = getNodeCount(stripeId) - 1;
-    waitUntil(() -> findPassives(stripeId).length, is(equalTo(expectedPassiveCount)));
-    return findPassives(stripeId);
+    return waitForNPassives(stripeId, expectedPassiveCount);
   }
 
   public final int[] waitForNPassives(int stripeId, int count) {
-    waitUntil(() -> findPassives(stripeId).length, is(greaterThanOrEqualTo(count)));
-    return findPassives(stripeId);
+    List<TerracottaServer> nodes = getStripe(stripeId);
+    Collection<TerracottaServer> passives = awaitState(() -> tsa().waitForPassives(nodes, count));
+    return rangeClosed(1, nodes.size())
+        .filter(nodeId -> passives.contains(nodes.get(nodeId - 1)))
+        .toArray();
+  }
+
+  private void waitForState(int stripeId, int nodeId, TerracottaServerState state) {
+    TerracottaServer node = getNode(stripeId, nodeId);
+    awaitState(() -> tsa().waitForState(node, state));
+  }
+
+  private static <T> T awaitState(StateWait<T> wait) {
+    try {
+      return wait.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface StateWait<T> {
+    T await() throws InterruptedException;
   }
 
   // =========================================
@@ -0,0 +1,110 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client;
+
+import org.junit.Test;
+import org.terracotta.angela.client.config.TsaConfigurationContext;
+import org.terracotta.angela.common.TerracottaServerState;
+import org.terracotta.angela.common.tcconfig.TerracottaServer;
+import org.terracotta.angela.common.topology.Topology;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_PASSIVE;
+import static org.terracotta.angela.common.TerracottaServerState.STOPPED;
+
+public class FailoverBenchmarkTest {
+
+  @Test
+  public void testStats() {
+    List<Duration> samples = new ArrayList<>();
+    for (int i = 100; i >= 1; i--) {
+      samples.add(Duration.ofMillis(i));
+    }
+    FailoverBenchmark.Stats stats = FailoverBenchmark.Stats.of(samples);
+
+    assertThat(stats.getCount(), is(100));
+    assertThat(stats.getP50(), is(Duration.ofMillis(50)));
+    assertThat(stats.getP99(), is(Duration.ofMillis(99)));
+    assertThat(stats.getMax(), is(Duration.ofMillis(100)));
+  }
+
+  @Test
+  public void testStatsOfFewSamples() {
+    FailoverBenchmark.Stats stats = FailoverBenchmark.Stats.of(Collections.singletonList(Duration.ofMillis(7)));
+    assertThat(stats.getP50(), is(Duration.ofMillis(7)));
+    assertThat(stats.getP99(), is(Duration.ofMillis(7)));
+
+    assertThat(FailoverBenchmark.Stats.of(Collections.emptyList()).getCount(), is(0));
+  }
+
+  @Test
+  public void testRestoreFailureSuppressed() throws Exception {
+    TerracottaServer active = TerracottaServer.server("active", "localhost");
+    TerracottaServer passive = TerracottaServer.server("passive", "localhost");
+    List<TerracottaServer> stripe = Arrays.asList(active, passive);
+    Tsa tsa = mock(Tsa.class);
+    TsaConfigurationContext tsaConfigurationContext = mock(TsaConfigurationContext.class);
+    Topology topology = mock(Topology.class);
+    when(tsa.getTsaConfigurationContext()).thenReturn(tsaConfigurationContext);
+    when(tsaConfigurationContext.getTopology()).thenReturn(topology);
+    when(topology.getStripes()).thenReturn(Collections.singletonList(stripe));
+
+    CompletableFuture<TerracottaServer> elected = new CompletableFuture<>();
+    CompletableFuture<TerracottaServerState> restored = new CompletableFuture<>();
+    when(tsa.whenActive(stripe)).thenReturn(CompletableFuture.completedFuture(active));
+    when(tsa.whenPassives(Collections.singletonList(passive), 1)).thenReturn(CompletableFuture.completedFuture(Collections.singletonList(passive)));
+    when(tsa.whenActive(Collections.singletonList(passive))).thenReturn(elected);
+    when(tsa.whenState(active, STARTED_AS_PASSIVE)).thenReturn(restored);
+    when(tsa.getState(active)).thenReturn(STOPPED);
+    when(tsa.await(any(), any(), any())).thenAnswer(invocation -> {
+      CompletableFuture<?> future = invocation.getArgument(0);
+      if (future == elected) {
+        throw new TimeoutException("no election");
+      }
+      if (future == restored) {
+        throw new TimeoutException("not restored");
+      }
+      return future.get();
+    });
+
+    try {
+      new FailoverBenchmark(tsa).repetitions(1).run();
+      fail("Expected TimeoutException");
+    } catch (TimeoutException e) {
+      // the failure of the run is reported, not the one of the restoration
+      assertThat(e.getMessage(), is("no election"));
+      assertThat(e.getSuppressed().length, is(1));
+      assertThat(e.getSuppressed()[0].getMessage(), is("not restored"));
+    }
+    verify(tsa).stop(active);
+    verify(tsa).start(active);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ParallelLifecycleTest {
+
+  @Test
+  public void testFailuresAggregated() {
+    List<Throwable> failures = ParallelLifecycle.forEach("test", Arrays.asList(1, 2, 3), item -> {
+      if (item > 1) {
+        throw new IllegalStateException("failed " + item);
+      }
+    });
+
+    List<String> messages = failures.stream().map(Throwable::getMessage).sorted().collect(Collectors.toList());
+    assertThat(messages, is(Arrays.asList("failed 2", "failed 3")));
+  }
+
+  @Test
+  public void testConcurrent() {
+    // each action waits for all the others: they only all complete if they run concurrently
+    CountDownLatch started = new CountDownLatch(3);
+    List<Throwable> failures = ParallelLifecycle.forEach("test", Arrays.asList(1, 2, 3), Duration.ofSeconds(10), item -> {
+      started.countDown();
+      if (!started.await(10, TimeUnit.SECONDS)) {
+        throw new TimeoutException();
+      }
+    });
+
+    assertThat(failures.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    List<Throwable> failures = ParallelLifecycle.forEach("test", Arrays.asList(1, 2), Duration.ofMillis(200), item -> {
+      if (item == 2) {
+        try {
+          Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+      }
+    });
+
+    assertThat(failures.size(), is(1));
+    assertThat(failures.get(0), is(instanceOf(TimeoutException.class)));
+    // the action which timed out is cancelled
+    assertThat(interrupted.await(10, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void testDeadlinePerFuture() {
+    CompletableFuture<Void> slow = new CompletableFuture<>();
+    CompletableFuture<Void> never = new CompletableFuture<>();
+    Map<Future<?>, Duration> deadlines = new LinkedHashMap<>();
+    deadlines.put(never, Duration.ofMillis(100));
+    deadlines.put(slow, null);
+    new Thread(() -> {
+      try {
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      slow.complete(null);
+    }).start();
+
+    List<Throwable> failures = ParallelLifecycle.awaitAll(deadlines);
+
+    // the future without deadline is waited for after the other one timed out
+    assertThat(failures.size(), is(1));
+    assertThat(failures.get(0), is(instanceOf(TimeoutException.class)));
+    assertThat(never.isCancelled(), is(true));
+    assertThat(slow.isDone() && !slow.isCancelled(), is(true));
+  }
+
+  @Test
+  public void testInterrupt() {
+    ExecutorService executor = ParallelLifecycle.newExecutor("test", 2);
+    try {
+      CountDownLatch never = new CountDownLatch(1);
+      Future<?> first = executor.submit(() -> {
+        never.await();
+        return null;
+      });
+      Future<?> second = executor.submit(() -> {
+        never.await();
+        return null;
+      });
+
+      Thread.currentThread().interrupt();
+      List<Throwable> failures = ParallelLifecycle.awaitAll(Arrays.asList(first, second), null);
+
+      assertThat(failures.size(), is(1));
+      assertThat(failures.get(0), is(instanceOf(InterruptedException.class)));
+      assertThat(first.isCancelled(), is(true));
+      assertThat(second.isCancelled(), is(true));
+      // the interrupt is kept for the caller
+      assertThat(Thread.interrupted(), is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
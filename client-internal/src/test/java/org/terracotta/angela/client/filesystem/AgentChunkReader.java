@@ -0,0 +1,59 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.terracotta.angela.agent.AgentController;
+import org.terracotta.angela.agent.com.AgentID;
+import org.terracotta.angela.agent.com.FileChunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the chunks of local files with the code of the agents, counting the reads
+ */
+class AgentChunkReader implements ChunkReader {
+
+  private final AgentController agentController = new AgentController(AgentID.local(), null);
+  private final AtomicInteger reads = new AtomicInteger();
+
+  @Override
+  public FileChunk read(String file, long offset, int length) {
+    reads.incrementAndGet();
+    return agentController.readChunk(file, offset, length);
+  }
+
+  int getReads() {
+    return reads.get();
+  }
+
+  /**
+   * Writes a file of random bytes, creating its parent folders
+   *
+   * @return the bytes written
+   */
+  static byte[] write(Path file, int size) throws IOException {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Files.write(file, data);
+    return data;
+  }
+}
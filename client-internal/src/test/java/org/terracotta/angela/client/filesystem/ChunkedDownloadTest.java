@@ -0,0 +1,157 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terracotta.angela.agent.com.FileChunk;
+import org.terracotta.angela.agent.com.FileDelta;
+import org.terracotta.angela.agent.com.FileEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+import static org.terracotta.angela.client.filesystem.AgentChunkReader.write;
+
+public class ChunkedDownloadTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AgentChunkReader reader = new AgentChunkReader();
+
+  @Test
+  public void testDownloadFile() throws IOException {
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    byte[] data = write(remote.resolve("heap.hprof"), 1000);
+    Path local = temporaryFolder.getRoot().toPath().resolve("local/heap.hprof");
+
+    new ChunkedDownload(reader, 64, 3).downloadFile(remote.resolve("heap.hprof").toString(), local);
+
+    assertArrayEquals(data, Files.readAllBytes(local));
+    assertThat(reader.getReads(), is(16));
+  }
+
+  @Test
+  public void testDownloadFolder() throws IOException {
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    byte[] log = write(remote.resolve("logs/server.log"), 300);
+    byte[] empty = write(remote.resolve("empty.txt"), 0);
+    byte[] data = write(remote.resolve("data/a/b.data"), 64);
+    Path local = temporaryFolder.getRoot().toPath().resolve("local");
+
+    new ChunkedDownload(reader, 64, 4).downloadFolder(remote.toString(), Arrays.asList(
+        new FileEntry("logs/server.log", 300, 1_000_000L),
+        new FileEntry("empty.txt", 0, 2_000_000L),
+        new FileEntry("data/a/b.data", 64, 3_000_000L)
+    ), local);
+
+    assertArrayEquals(log, Files.readAllBytes(local.resolve("logs/server.log")));
+    assertArrayEquals(empty, Files.readAllBytes(local.resolve("empty.txt")));
+    assertArrayEquals(data, Files.readAllBytes(local.resolve("data/a/b.data")));
+    assertThat(Files.getLastModifiedTime(local.resolve("logs/server.log")).toMillis(), is(1_000_000L));
+    assertThat(reader.getReads(), is(5 + 1));
+  }
+
+  @Test
+  public void testSyncFolder() throws IOException {
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    byte[] data = write(remote.resolve("server.log"), 300);
+    Path local = temporaryFolder.getRoot().toPath().resolve("local");
+    Files.createDirectories(local);
+    Files.write(local.resolve("server.log"), Arrays.copyOf(data, 200));
+
+    new ChunkedDownload(reader, 64, 2).syncFolder(remote.toString(), Arrays.asList(
+        new FileDelta(new FileEntry("server.log", 300, 5_000L), 200)
+    ), local);
+
+    assertArrayEquals(data, Files.readAllBytes(local.resolve("server.log")));
+    assertThat(Files.getLastModifiedTime(local.resolve("server.log")).toMillis(), is(5_000L));
+    // only the appended 100 bytes
+    assertThat(reader.getReads(), is(2));
+  }
+
+  @Test
+  public void testFileShrunkDuringDownload() throws IOException {
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    byte[] data = write(remote.resolve("server.log"), 100);
+    Path local = temporaryFolder.getRoot().toPath().resolve("local");
+
+    // listed with a larger size
+    new ChunkedDownload(reader, 64, 2).downloadFolder(remote.toString(), Arrays.asList(new FileEntry("server.log", 200, 0L)), local);
+
+    assertArrayEquals(data, Files.readAllBytes(local.resolve("server.log")));
+  }
+
+  @Test
+  public void testCorruptedChunk() throws IOException {
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    write(remote.resolve("server.log"), 100);
+    Path local = temporaryFolder.getRoot().toPath().resolve("local");
+
+    ChunkReader corrupting = (file, offset, length) -> {
+      FileChunk chunk = reader.read(file, offset, length);
+      if (offset > 0) {
+        chunk.getBytes()[0]++;
+      }
+      return chunk;
+    };
+    try {
+      new ChunkedDownload(corrupting, 64, 2).downloadFile(remote.resolve("server.log").toString(), local.resolve("server.log"));
+      fail();
+    } catch (IOException e) {
+      assertThat(e.getMessage(), containsString("Corrupted chunk at offset: 64"));
+    }
+  }
+
+  @Test
+  public void testFailedChunkDiscardsIncompleteFile() throws IOException {
+    Path remote = temporaryFolder.newFolder("remote").toPath();
+    byte[] data = write(remote.resolve("ok.txt"), 64);
+    write(remote.resolve("server.log"), 300);
+    Path local = temporaryFolder.getRoot().toPath().resolve("local");
+
+    ChunkReader failing = (file, offset, length) -> {
+      if (file.endsWith("server.log") && offset == 128) {
+        throw new UncheckedIOException(new IOException("Connection lost"));
+      }
+      return reader.read(file, offset, length);
+    };
+    try {
+      new ChunkedDownload(failing, 64, 1).downloadFolder(remote.toString(), Arrays.asList(
+          new FileEntry("ok.txt", 64, 1_000L),
+          new FileEntry("server.log", 300, 2_000L)
+      ), local);
+      fail();
+    } catch (IOException e) {
+      assertThat(e.getMessage(), containsString("Connection lost"));
+    }
+
+    // a full-size file with a hole would be seen as up to date by the next synchronization
+    assertThat(Files.exists(local.resolve("server.log")), is(false));
+    assertArrayEquals(data, Files.readAllBytes(local.resolve("ok.txt")));
+  }
+}
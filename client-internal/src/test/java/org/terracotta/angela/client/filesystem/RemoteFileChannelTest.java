@@ -0,0 +1,181 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.client.filesystem;
+
+import org.apache.ignite.IgniteException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terracotta.angela.agent.com.FileChunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+import static org.terracotta.angela.client.filesystem.AgentChunkReader.write;
+
+public class RemoteFileChannelTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AgentChunkReader reader = new AgentChunkReader();
+
+  @Test
+  public void testSequentialReadsHitTheReadAhead() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("gc.log");
+    byte[] data = write(file, 1000);
+
+    ByteBuffer all = ByteBuffer.allocate(1000);
+    try (RemoteFileChannel channel = new RemoteFileChannel(reader, file.toString(), 256)) {
+      ByteBuffer buffer = ByteBuffer.allocate(10);
+      int read;
+      while ((read = channel.read(buffer)) >= 0) {
+        assertThat(read > 0, is(true));
+        buffer.flip();
+        all.put(buffer);
+        buffer.clear();
+      }
+      assertThat(channel.position(), is(1000L));
+    }
+
+    assertArrayEquals(data, all.array());
+    // 4 ranges, and the read at the end of the file
+    assertThat(reader.getReads(), is(5));
+  }
+
+  @Test
+  public void testRandomAccess() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("heap.hprof");
+    byte[] data = write(file, 1000);
+
+    try (RemoteFileChannel channel = new RemoteFileChannel(reader, file.toString(), 100)) {
+      assertThat(channel.size(), is(1000L));
+
+      ByteBuffer buffer = ByteBuffer.allocate(20);
+      channel.position(900).read(buffer);
+      assertArrayEquals(Arrays.copyOfRange(data, 900, 920), buffer.array());
+
+      // backwards, in the cached range
+      buffer.clear();
+      channel.position(905).read(buffer);
+      assertArrayEquals(Arrays.copyOfRange(data, 905, 925), buffer.array());
+      assertThat(reader.getReads(), is(2));
+
+      // partial read at the end of the file
+      buffer.clear();
+      assertThat(channel.position(990).read(buffer), is(10));
+      assertThat(channel.read(buffer), is(-1));
+      assertThat(channel.position(2000).read(buffer), is(-1));
+    }
+  }
+
+  @Test
+  public void testLargeReadWithoutReadAhead() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("data.bin");
+    byte[] data = write(file, 1000);
+
+    try (RemoteFileChannel channel = new RemoteFileChannel(reader, file.toString(), 0)) {
+      ByteBuffer buffer = ByteBuffer.allocate(500);
+      assertThat(channel.position(100).read(buffer), is(500));
+      assertArrayEquals(Arrays.copyOfRange(data, 100, 600), buffer.array());
+      assertThat(reader.getReads(), is(1));
+    }
+  }
+
+  @Test
+  public void testFileGrowing() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("server.log");
+    write(file, 100);
+
+    try (RemoteFileChannel channel = new RemoteFileChannel(reader, file.toString(), 64)) {
+      ByteBuffer buffer = ByteBuffer.allocate(200);
+      assertThat(channel.read(buffer), is(100));
+      assertThat(channel.read(buffer), is(-1));
+
+      Files.write(file, new byte[50], StandardOpenOption.APPEND);
+      assertThat(channel.size(), is(150L));
+      assertThat(channel.read(buffer), is(50));
+    }
+  }
+
+  @Test
+  public void testReadOnlyAndClosed() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("server.log");
+    write(file, 100);
+
+    RemoteFileChannel channel = new RemoteFileChannel(reader, file.toString(), 64);
+    try {
+      channel.write(ByteBuffer.allocate(1));
+      fail();
+    } catch (NonWritableChannelException e) {
+      // expected
+    }
+    channel.close();
+    assertThat(channel.isOpen(), is(false));
+    try {
+      channel.read(ByteBuffer.allocate(1));
+      fail();
+    } catch (ClosedChannelException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCorruptedChunk() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("server.log");
+    write(file, 100);
+
+    ChunkReader corrupting = (f, offset, length) -> {
+      FileChunk chunk = reader.read(f, offset, length);
+      chunk.getBytes()[0]++;
+      return chunk;
+    };
+    try (RemoteFileChannel channel = new RemoteFileChannel(corrupting, file.toString(), 64)) {
+      channel.read(ByteBuffer.allocate(10));
+      fail();
+    } catch (IOException e) {
+      assertThat(e.getMessage(), containsString("Corrupted chunk at offset: 0"));
+    }
+  }
+
+  @Test
+  public void testAgentFailure() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("server.log");
+
+    ChunkReader failing = (f, offset, length) -> {
+      throw new IgniteException("Agent left the cluster");
+    };
+    try (RemoteFileChannel channel = new RemoteFileChannel(failing, file.toString(), 64)) {
+      channel.read(ByteBuffer.allocate(10));
+      fail();
+    } catch (IOException e) {
+      assertThat(e.getMessage(), is("Error reading remote file '" + file + "'"));
+      assertThat(e.getCause().getMessage(), is("Agent left the cluster"));
+    }
+  }
+}
@@ -59,6 +59,11 @@ public enum AngelaProperties {
   // that changes files in the kit install (e.g. tmc.properties)
   KIT_COPY("angela.kitCopy", "false"),
 
+  // maximum number of threads used to install, start and stop the components of a cluster concurrently
+  LIFECYCLE_PARALLELISM("angela.lifecycle.parallelism", "64"),
+  // maximum time given to the concurrent stop and uninstall of all the components of a cluster
+  TEARDOWN_TIMEOUT_SECONDS("angela.lifecycle.teardownTimeoutSeconds", "300"),
+
   // ssh properties
   SSH_USERNAME("angela.ssh.userName", System.getProperty("user.name")),
   SSH_USERNAME_KEY_PATH("angela.ssh.userName.keyPath", null),
@@ -150,4 +155,8 @@ public enum AngelaProperties {
   public boolean getBooleanValue() {
     return Boolean.parseBoolean(getValue());
   }
+
+  public int getIntValue() {
+    return Integer.parseInt(getValue());
+  }
 }
@@ -18,7 +18,9 @@ package org.terracotta.angela.common;
 
 import org.terracotta.angela.common.distribution.DistributionController;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -57,6 +59,7 @@ public class TerracottaManagementServerInstance {
 
   public static class TerracottaManagementServerInstanceProcess {
     private final Set<Number> pids;
+    private volatile Closeable output;
     private final AtomicReference<TerracottaManagementServerState> state;
 
     public TerracottaManagementServerInstanceProcess(AtomicReference<TerracottaManagementServerState> state, Number... pids) {
@@ -80,6 +83,24 @@ public class TerracottaManagementServerInstance {
     public Set<Number> getPids() {
       return Collections.unmodifiableSet(pids);
     }
+
+    /**
+     * @param output the writer of the process output, closed when the process is stopped
+     */
+    public void setOutput(Closeable output) {
+      this.output = output;
+    }
+
+    public void closeOutput() {
+      Closeable output = this.output;
+      if (output != null) {
+        try {
+          output.close();
+        } catch (IOException e) {
+          // the process is stopped anyway
+        }
+      }
+    }
   }
 
 }
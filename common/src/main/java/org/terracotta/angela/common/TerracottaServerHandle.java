@@ -16,6 +16,8 @@
  */
 package org.terracotta.angela.common;
 
+import java.util.function.Consumer;
+
 /**
  *
  */
@@ -27,4 +29,13 @@ public interface TerracottaServerHandle {
   boolean isAlive();
 
   void stop();
+
+  /**
+   * Registers a listener called each time the state of the server changes
+   *
+   * @return false if this handle cannot notify its state changes, in which case the state has to be polled
+   */
+  default boolean addStateListener(Consumer<TerracottaServerState> listener) {
+    return false;
+  }
 }
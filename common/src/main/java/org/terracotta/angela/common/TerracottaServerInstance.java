@@ -16,6 +16,8 @@
  */
 package org.terracotta.angela.common;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terracotta.angela.common.distribution.Distribution;
 import org.terracotta.angela.common.distribution.DistributionController;
 import org.terracotta.angela.common.net.DisruptionProvider;
@@ -26,6 +28,7 @@ import org.terracotta.angela.common.tcconfig.License;
 import org.terracotta.angela.common.tcconfig.ServerSymbolicName;
 import org.terracotta.angela.common.tcconfig.TerracottaServer;
 import org.terracotta.angela.common.topology.Topology;
+import org.terracotta.angela.common.util.ClusterClock;
 import org.terracotta.angela.common.util.Cmd;
 import org.terracotta.angela.common.util.Jcmd;
 
@@ -38,6 +41,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Terracotta server instance
@@ -45,7 +54,15 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author Aurelien Broszniowski
  */
 public class TerracottaServerInstance implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(TerracottaServerInstance.class);
   private static final DisruptionProvider DISRUPTION_PROVIDER = DisruptionProviderFactory.getDefault();
+  private static final long STATE_POLL_PERIOD_MILLIS = 100;
+  // polls the state of the servers which cannot notify their state changes
+  private static final ScheduledExecutorService STATE_POLLER = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "angela-server-state-poller");
+    thread.setDaemon(true);
+    return thread;
+  });
   private final Map<ServerSymbolicName, Disruptor> disruptionLinks = new ConcurrentHashMap<>();
   private final Map<ServerSymbolicName, Integer> proxiedPorts = new HashMap<>();
   private final TerracottaServer terracottaServer;
@@ -58,6 +75,9 @@ public class TerracottaServerInstance implements Closeable {
   private volatile TerracottaServerHandle serverInstance;
   private final boolean netDisruptionEnabled;
   private final Topology topology;
+  private final List<Consumer<TerracottaServerStateChange>> stateListeners = new CopyOnWriteArrayList<>();
+  private final Object stateMonitor = new Object();
+  private ScheduledFuture<?> statePolling;
 
   public TerracottaServerInstance(TerracottaServer terracottaServer, File kitDir, File workingDir,
                                   License license, Distribution distribution, Topology topology,
@@ -90,7 +110,59 @@ public class TerracottaServerInstance implements Closeable {
   }
 
   public void create(TerracottaCommandLineEnvironment env, Map<String, String> envOverrides, List<String> startUpArgs, Duration inactivityKillerDelay) {
-    setServerHandle(this.distributionController.createTsa(terracottaServer, kitDir, workingDir, topology, proxiedPorts, env, envOverrides, startUpArgs, inactivityKillerDelay));
+    TerracottaServerHandle handle = this.distributionController.createTsa(terracottaServer, kitDir, workingDir, topology, proxiedPorts, env, envOverrides, startUpArgs, inactivityKillerDelay);
+    setServerHandle(handle);
+    if (!handle.addStateListener(this::onStateChange)) {
+      pollState(handle);
+    }
+    // transitions which happened before the listener was registered
+    onStateChange(handle.getState());
+  }
+
+  /**
+   * Registers a listener called each time the state of this server changes, even across restarts.
+   * The listener is called immediately with the current state.
+   */
+  public void addStateListener(Consumer<TerracottaServerStateChange> listener) {
+    stateListeners.add(listener);
+    listener.accept(stateChange(getTerracottaServerState()));
+  }
+
+  public void removeStateListener(Consumer<TerracottaServerStateChange> listener) {
+    stateListeners.remove(listener);
+  }
+
+  private void onStateChange(TerracottaServerState state) {
+    TerracottaServerStateChange stateChange = stateChange(state);
+    for (Consumer<TerracottaServerStateChange> listener : stateListeners) {
+      try {
+        listener.accept(stateChange);
+      } catch (RuntimeException e) {
+        // a listener must not break the output processing of the server
+        logger.warn("State listener of server: {} failed: {}", terracottaServer.getServerSymbolicName(), e.getMessage(), e);
+      }
+    }
+    synchronized (stateMonitor) {
+      stateMonitor.notifyAll();
+    }
+  }
+
+  private TerracottaServerStateChange stateChange(TerracottaServerState state) {
+    return new TerracottaServerStateChange(terracottaServer.getId(), terracottaServer.getServerSymbolicName(), state, ClusterClock.clusterTimeNanos());
+  }
+
+  private synchronized void pollState(TerracottaServerHandle handle) {
+    if (statePolling != null) {
+      statePolling.cancel(false);
+    }
+    TerracottaServerState[] last = {handle.getState()};
+    statePolling = STATE_POLLER.scheduleWithFixedDelay(() -> {
+      TerracottaServerState state = handle.getState();
+      if (state != last[0]) {
+        last[0] = state;
+        onStateChange(state);
+      }
+    }, STATE_POLL_PERIOD_MILLIS, STATE_POLL_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
   }
 
   private synchronized TerracottaServerHandle getServerHandle() {
@@ -125,6 +197,12 @@ public class TerracottaServerInstance implements Closeable {
 
   @Override
   public void close() {
+    synchronized (this) {
+      if (statePolling != null) {
+        statePolling.cancel(false);
+      }
+    }
+    stateListeners.clear();
     removeDisruptionLinks();
   }
 
@@ -137,19 +215,15 @@ public class TerracottaServerInstance implements Closeable {
   }
 
   public void waitForState(Set<TerracottaServerState> terracottaServerStates) {
-    boolean isStateSame = true;
     TerracottaServerHandle handle = getServerHandle();
-    while (isStateSame) {
-      try {
-        Thread.sleep(100);
-
-        isStateSame = handle.isAlive();
-        TerracottaServerState currentState = handle.getState();
-        for (TerracottaServerState terracottaServerState : terracottaServerStates) {
-          isStateSame &= (terracottaServerState != currentState);
+    synchronized (stateMonitor) {
+      // woken up by each state change, the timeout only bounds the detection of a dead process
+      while (handle.isAlive() && !terracottaServerStates.contains(handle.getState())) {
+        try {
+          stateMonitor.wait(STATE_POLL_PERIOD_MILLIS);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
         }
-      } catch (InterruptedException e) {
-        throw new RuntimeException(e);
       }
     }
     if (!handle.isAlive()) {
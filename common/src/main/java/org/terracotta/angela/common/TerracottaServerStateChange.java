@@ -0,0 +1,65 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common;
+
+import org.terracotta.angela.common.tcconfig.ServerSymbolicName;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * A state transition of a Terracotta server, as seen by the agent running it
+ */
+public class TerracottaServerStateChange implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final UUID serverId;
+  private final ServerSymbolicName serverSymbolicName;
+  private final TerracottaServerState state;
+  private final long clusterTimeNanos;
+
+  public TerracottaServerStateChange(UUID serverId, ServerSymbolicName serverSymbolicName, TerracottaServerState state, long clusterTimeNanos) {
+    this.serverId = serverId;
+    this.serverSymbolicName = serverSymbolicName;
+    this.state = state;
+    this.clusterTimeNanos = clusterTimeNanos;
+  }
+
+  public UUID getServerId() {
+    return serverId;
+  }
+
+  public ServerSymbolicName getServerSymbolicName() {
+    return serverSymbolicName;
+  }
+
+  public TerracottaServerState getState() {
+    return state;
+  }
+
+  /**
+   * @return when the transition happened, in cluster time (see {@link org.terracotta.angela.common.util.ClusterClock})
+   */
+  public long getClusterTimeNanos() {
+    return clusterTimeNanos;
+  }
+
+  @Override
+  public String toString() {
+    return serverSymbolicName + ": " + state;
+  }
+}
@@ -19,7 +19,9 @@ package org.terracotta.angela.common;
 import org.terracotta.angela.common.distribution.DistributionController;
 import org.terracotta.angela.common.tcconfig.SecurityRootDirectory;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -61,6 +63,7 @@ public class TerracottaVoterInstance {
 
   public static class TerracottaVoterInstanceProcess {
     private final Set<Number> pids;
+    private volatile Closeable output;
     private final AtomicReference<TerracottaVoterState> state;
 
     public TerracottaVoterInstanceProcess(AtomicReference<TerracottaVoterState> state, Number... pids) {
@@ -80,5 +83,23 @@ public class TerracottaVoterInstance {
     public Set<Number> getPids() {
       return Collections.unmodifiableSet(pids);
     }
+
+    /**
+     * @param output the writer of the process output, closed when the process is stopped
+     */
+    public void setOutput(Closeable output) {
+      this.output = output;
+    }
+
+    public void closeOutput() {
+      Closeable output = this.output;
+      if (output != null) {
+        try {
+          output.close();
+        } catch (IOException e) {
+          // the process is stopped anyway
+        }
+      }
+    }
   }
 }
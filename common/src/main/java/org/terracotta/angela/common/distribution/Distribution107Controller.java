@@ -35,9 +35,11 @@ import org.terracotta.angela.common.tms.security.config.TmsServerSecurityConfig;
 import org.terracotta.angela.common.topology.PackageType;
 import org.terracotta.angela.common.topology.Topology;
 import org.terracotta.angela.common.util.ActivityTracker;
+import org.terracotta.angela.common.util.AsyncLineWriter;
 import org.terracotta.angela.common.util.ExternalLoggers;
 import org.terracotta.angela.common.util.HostPort;
 import org.terracotta.angela.common.util.OS;
+import org.terracotta.angela.common.util.ObservableReference;
 import org.terracotta.angela.common.util.ProcessUtil;
 import org.terracotta.angela.common.util.RetryUtils;
 import org.terracotta.angela.common.util.TriggeringOutputStream;
@@ -45,15 +47,13 @@ import org.zeroturnaround.exec.ProcessExecutor;
 import org.zeroturnaround.exec.ProcessResult;
 import org.zeroturnaround.exec.stream.slf4j.Slf4jStream;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -64,6 +64,7 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.io.File.separator;
@@ -77,7 +78,6 @@ import static org.terracotta.angela.common.AngelaProperties.VOTER_FULL_LOGGING;
 
 public class Distribution107Controller extends DistributionController {
   private final static Logger LOGGER = LoggerFactory.getLogger(Distribution107Controller.class);
-  private static final byte[] LF = "\n".getBytes(StandardCharsets.UTF_8);
   private final boolean tsaFullLogging = TSA_FULL_LOGGING.getBooleanValue();
   private final boolean tmsFullLogging = TMS_FULL_LOGGING.getBooleanValue();
   private final boolean voterFullLogging = VOTER_FULL_LOGGING.getBooleanValue();
@@ -92,7 +92,7 @@ public class Distribution107Controller extends DistributionController {
                                           TerracottaCommandLineEnvironment tcEnv, Map<String, String> envOverrides,
                                           List<String> startUpArgs, Duration inactivityKillerDelay) {
     Map<String, String> env = tcEnv.buildEnv(envOverrides);
-    AtomicReference<TerracottaServerState> stateRef = new AtomicReference<>(TerracottaServerState.STOPPED);
+    ObservableReference<TerracottaServerState> stateRef = new ObservableReference<>(TerracottaServerState.STOPPED);
     AtomicInteger javaPid = new AtomicInteger(-1);
 
     TriggeringOutputStream serverLogOutputStream = TriggeringOutputStream
@@ -115,23 +115,23 @@ public class Distribution107Controller extends DistributionController {
               stateRef.compareAndSet(TerracottaServerState.STOPPED, TerracottaServerState.STARTING);
             });
 
-    final AtomicReference<OutputStream> stdout = new AtomicReference<>();
+    final String serverName = terracottaServer.getServerSymbolicName().getSymbolicName();
+    AsyncLineWriter stdoutWriter;
     try {
-      stdout.set(Files.newOutputStream(workingDir.toPath().resolve("stdout.txt"), StandardOpenOption.CREATE, StandardOpenOption.APPEND));
-      serverLogOutputStream = serverLogOutputStream.andForward(line -> {
-        try {
-          stdout.get().write(line.getBytes(StandardCharsets.UTF_8));
-          stdout.get().write(LF);
-          stdout.get().flush();
-        } catch (IOException io) {
-          LOGGER.warn("failed to write to stdout file", io);
-        }
-      });
+      stdoutWriter = AsyncLineWriter.toFile(serverName, workingDir.toPath().resolve("stdout.txt"));
     } catch (IOException io) {
       LOGGER.warn("failed to create stdout file", io);
+      stdoutWriter = null;
+    }
+    final AsyncLineWriter stdout;
+    if (stdoutWriter != null) {
+      stdout = stdoutWriter;
+      serverLogOutputStream = serverLogOutputStream.andForward(stdout);
+    } else {
+      stdout = AsyncLineWriter.to(serverName, line -> ExternalLoggers.tsaLogger.info("[{}] {}", serverName, line));
       serverLogOutputStream = tsaFullLogging ?
-          serverLogOutputStream.andForward(line -> ExternalLoggers.tsaLogger.info("[{}] {}", terracottaServer.getServerSymbolicName().getSymbolicName(), line)) :
-          serverLogOutputStream.andTriggerOn(compile("^.*(WARN|ERROR).*$"), mr -> ExternalLoggers.tsaLogger.info("[{}] {}", terracottaServer.getServerSymbolicName().getSymbolicName(), mr.group()));
+          serverLogOutputStream.andForward(stdout) :
+          serverLogOutputStream.andTriggerOn(compile("^.*(WARN|ERROR).*$"), mr -> stdout.accept(mr.group()));
     }
 
     final ActivityTracker activityTracker = ActivityTracker.of(inactivityKillerDelay);
@@ -143,7 +143,7 @@ public class Distribution107Controller extends DistributionController {
             .environment(env)
             .redirectErrorStream(true)
             .redirectOutput(new TrackedOutputStream(activityTracker, serverLogOutputStream)),
-        stateRef,
+        stateRef::set,
         TerracottaServerState.STOPPED);
 
     activityTracker.start();
@@ -157,6 +157,7 @@ public class Distribution107Controller extends DistributionController {
     }
 
     if (!watchedProcess.isAlive()) {
+      closeQuietly(stdout);
       throw new RuntimeException("Terracotta server process died in its infancy : " + terracottaServer.getServerSymbolicName());
     }
     final TerracottaServerHandle handle = new TerracottaServerHandle() {
@@ -165,6 +166,12 @@ public class Distribution107Controller extends DistributionController {
         return stateRef.get();
       }
 
+      @Override
+      public boolean addStateListener(Consumer<TerracottaServerState> listener) {
+        stateRef.addListener(listener);
+        return true;
+      }
+
       @Override
       public int getJavaPid() {
         return javaPid.get();
@@ -200,11 +207,9 @@ public class Distribution107Controller extends DistributionController {
               )
           );
         }
-        if (stdout.get() != null) {
-          try {
-            stdout.get().close();
-          } catch (IOException ignored) {
-          }
+        try {
+          stdout.close();
+        } catch (IOException ignored) {
         }
       }
     };
@@ -221,6 +226,14 @@ public class Distribution107Controller extends DistributionController {
     return handle;
   }
 
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      LOGGER.debug("Unable to close: {}", closeable, e);
+    }
+  }
+
   @Override
   public TerracottaManagementServerInstanceProcess startTms(File kitDir, File workingDir, TerracottaCommandLineEnvironment tcEnv, Map<String, String> envOverrides) {
     Map<String, String> env = tcEnv.buildEnv(envOverrides);
@@ -235,16 +248,17 @@ public class Distribution107Controller extends DistributionController {
         .andTriggerOn(
             compile("^.*\\QStarting TmsApplication\\E.*with PID (\\d+).*$"),
             mr -> javaPid.set(parseInt(mr.group(1))));
+    AsyncLineWriter output = AsyncLineWriter.to("tms", ExternalLoggers.tmsLogger::info);
     outputStream = tmsFullLogging ?
-        outputStream.andForward(ExternalLoggers.tmsLogger::info) :
-        outputStream.andTriggerOn(compile("^.*(WARN|ERROR).*$"), mr -> ExternalLoggers.tmsLogger.info(mr.group()));
+        outputStream.andForward(output) :
+        outputStream.andTriggerOn(compile("^.*(WARN|ERROR).*$"), mr -> output.accept(mr.group()));
 
     WatchedProcess<TerracottaManagementServerState> watchedProcess = new WatchedProcess<>(new ProcessExecutor()
         .command(startTmsCommand(workingDir, kitDir))
         .directory(workingDir)
         .environment(env)
         .redirectErrorStream(true)
-        .redirectOutput(outputStream), stateRef, TerracottaManagementServerState.STOPPED);
+        .redirectOutput(outputStream), stateRef::set, TerracottaManagementServerState.STOPPED);
 
     while ((javaPid.get() == -1 || stateRef.get() == TerracottaManagementServerState.STOPPED) && watchedProcess.isAlive()) {
       try {
@@ -254,12 +268,15 @@ public class Distribution107Controller extends DistributionController {
       }
     }
     if (!watchedProcess.isAlive()) {
+      closeQuietly(output);
       throw new RuntimeException("TMS process died before reaching STARTED state");
     }
 
     int wrapperPid = watchedProcess.getPid();
     int javaProcessPid = javaPid.get();
-    return new TerracottaManagementServerInstanceProcess(stateRef, wrapperPid, javaProcessPid);
+    TerracottaManagementServerInstanceProcess process = new TerracottaManagementServerInstanceProcess(stateRef, wrapperPid, javaProcessPid);
+    process.setOutput(output);
+    return process;
   }
 
   @Override
@@ -274,6 +291,7 @@ public class Distribution107Controller extends DistributionController {
         LOGGER.error("Could not destroy TMS process {}", pid, e);
       }
     }
+    terracottaServerInstanceProcess.closeOutput();
   }
 
   @Override
@@ -283,6 +301,7 @@ public class Distribution107Controller extends DistributionController {
 
     AtomicReference<TerracottaVoterState> stateRef = new AtomicReference<>(TerracottaVoterState.STOPPED);
     AtomicInteger javaPid = new AtomicInteger(-1);
+    AsyncLineWriter output = AsyncLineWriter.to(terracottaVoter.getId(), line -> ExternalLoggers.voterLogger.info("[{}] {}", terracottaVoter.getId(), line));
 
     TriggeringOutputStream outputStream = TriggeringOutputStream
         .triggerOn(
@@ -295,7 +314,7 @@ public class Distribution107Controller extends DistributionController {
             compile("^.*\\QVote owner state: ACTIVE-COORDINATOR\\E.*$"),
             mr -> stateRef.compareAndSet(TerracottaVoterState.STARTED, TerracottaVoterState.CONNECTED_TO_ACTIVE))
         .andTriggerOn(voterFullLogging ? compile("^.*$") : compile("^.*(WARN|ERROR).*$"),
-            mr -> ExternalLoggers.voterLogger.info("[{}] {}", terracottaVoter.getId(), mr.group()));
+            mr -> output.accept(mr.group()));
 
     WatchedProcess<TerracottaVoterState> watchedProcess = new WatchedProcess<>(
         new ProcessExecutor()
@@ -304,7 +323,7 @@ public class Distribution107Controller extends DistributionController {
             .environment(env)
             .redirectErrorStream(true)
             .redirectOutput(outputStream),
-        stateRef,
+        stateRef::set,
         TerracottaVoterState.STOPPED);
 
     while ((javaPid.get() == -1 || stateRef.get() == TerracottaVoterState.STOPPED) && watchedProcess.isAlive()) {
@@ -315,12 +334,15 @@ public class Distribution107Controller extends DistributionController {
       }
     }
     if (!watchedProcess.isAlive()) {
+      closeQuietly(output);
       throw new RuntimeException("Voter process died before reaching STARTED state");
     }
 
     int wrapperPid = watchedProcess.getPid();
     int javaProcessPid = javaPid.get();
-    return new TerracottaVoterInstanceProcess(stateRef, wrapperPid, javaProcessPid);
+    TerracottaVoterInstanceProcess process = new TerracottaVoterInstanceProcess(stateRef, wrapperPid, javaProcessPid);
+    process.setOutput(output);
+    return process;
   }
 
   @Override
@@ -333,6 +355,7 @@ public class Distribution107Controller extends DistributionController {
         LOGGER.error("Could not destroy voter process {}", pid, e);
       }
     }
+    terracottaVoterInstanceProcess.closeOutput();
   }
 
   @Override
@@ -40,6 +40,7 @@ import org.terracotta.angela.common.util.ExternalLoggers;
 import org.terracotta.angela.common.util.HostPort;
 import org.terracotta.angela.common.util.JavaBinaries;
 import org.terracotta.angela.common.util.OS;
+import org.terracotta.angela.common.util.ObservableReference;
 import org.terracotta.angela.common.util.ProcessUtil;
 import org.terracotta.angela.common.util.RetryUtils;
 import org.terracotta.angela.common.util.TriggeringOutputStream;
@@ -59,6 +60,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -95,7 +97,7 @@ public class Distribution43Controller extends DistributionController {
                                           Topology topology, Map<ServerSymbolicName, Integer> proxiedPorts,
                                           TerracottaCommandLineEnvironment tcEnv, Map<String, String> envOverrides,
                                           List<String> startUpArgs, Duration inactivityKillerDelay) {
-    AtomicReference<TerracottaServerState> stateRef = new AtomicReference<>(STOPPED);
+    ObservableReference<TerracottaServerState> stateRef = new ObservableReference<>(STOPPED);
 
     TriggeringOutputStream serverLogOutputStream = getServerLogOutputStream(stateRef);
     serverLogOutputStream = tsaFullLogging ?
@@ -116,7 +118,7 @@ public class Distribution43Controller extends DistributionController {
             .environment(env)
             .redirectErrorStream(true)
             .redirectOutput(serverLogOutputStream),
-        stateRef,
+        stateRef::set,
         STOPPED);
 
     Number javaPid = findWithJcmdJavaPidOf(terracottaServer.getId().toString(), tcEnv);
@@ -126,6 +128,12 @@ public class Distribution43Controller extends DistributionController {
         return stateRef.get();
       }
 
+      @Override
+      public boolean addStateListener(Consumer<TerracottaServerState> listener) {
+        stateRef.addListener(listener);
+        return true;
+      }
+
       @Override
       public int getJavaPid() {
         return javaPid.intValue();
@@ -164,7 +172,7 @@ public class Distribution43Controller extends DistributionController {
     };
   }
 
-  TriggeringOutputStream getServerLogOutputStream(AtomicReference<TerracottaServerState> stateRef) {
+  TriggeringOutputStream getServerLogOutputStream(ObservableReference<TerracottaServerState> stateRef) {
     AtomicReference<TerracottaServerState> tempStateRef = new AtomicReference<>(STOPPED);
     AtomicBoolean isManagementServerStarted = new AtomicBoolean(false);
 
@@ -23,7 +23,7 @@ import org.zeroturnaround.exec.listener.ProcessListener;
 import org.zeroturnaround.process.PidUtil;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 
 class WatchedProcess<S extends Enum<S>> {
@@ -31,16 +31,19 @@ class WatchedProcess<S extends Enum<S>> {
   private final StartedProcess startedProcess;
   private final int pid;
 
-  public WatchedProcess(ProcessExecutor processExecutor, final AtomicReference<S> stateRef, final S deadState) {
+  /**
+   * @param stateSetter sets the state of the process, called with the dead state once the process is over
+   */
+  public WatchedProcess(ProcessExecutor processExecutor, final Consumer<? super S> stateSetter, final S deadState) {
     processExecutor.addListener(new ProcessListener() {
       @Override
       public void afterFinish(Process process, ProcessResult result) {
-        stateRef.set(deadState);
+        stateSetter.accept(deadState);
       }
 
       @Override
       public void afterStop(Process process) {
-        stateRef.set(deadState);
+        stateSetter.accept(deadState);
       }
     });
 
@@ -19,6 +19,7 @@ package org.terracotta.angela.common.metrics;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terracotta.angela.common.util.ClusterClock;
 import org.terracotta.angela.common.util.ProcessUtil;
 import org.zeroturnaround.exec.ProcessExecutor;
 import org.zeroturnaround.exec.StartedProcess;
@@ -42,6 +43,7 @@ import java.util.Map;
 public class HardwareMetricsCollector {
   private final static Logger LOGGER = LoggerFactory.getLogger(HardwareMetricsCollector.class);
   public final static String METRICS_DIRECTORY = "metrics";
+  public final static String CLOCK_FILE = "clock.log";
 
   private OutputStream outputStream;
   private final Map<HardwareMetric, StartedProcess> processes = new HashMap<>();
@@ -56,6 +58,8 @@ public class HardwareMetricsCollector {
       throw new UncheckedIOException(e);
     }
 
+    writeClock(statsDirectory);
+
     commands.forEach((hardwareMetric, command) -> {
       Path statsFile = statsDirectory.resolve(hardwareMetric.name().toLowerCase() + "-stats.log");
       LOGGER.debug("HardwareMetric log file: {}", statsFile.toAbsolutePath());
@@ -88,6 +92,24 @@ public class HardwareMetricsCollector {
     });
   }
 
+  /**
+   * The metrics tools timestamp their output with the local clock: record the offset of this clock
+   * to the orchestrator's one so that the metrics of different hosts can be aligned.
+   */
+  private static void writeClock(Path statsDirectory) {
+    ClusterClock.Offset offset = ClusterClock.getOffset();
+    long localTimeNanos = ClusterClock.localTimeNanos();
+    String clock = "local.time.nanos=" + localTimeNanos + System.lineSeparator() +
+        "cluster.time.nanos=" + ClusterClock.toClusterTimeNanos(localTimeNanos) + System.lineSeparator() +
+        "offset.nanos=" + offset.getOffsetNanos() + System.lineSeparator() +
+        "rtt.nanos=" + offset.getRoundTripNanos() + System.lineSeparator();
+    try {
+      Files.write(statsDirectory.resolve(CLOCK_FILE), clock.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      LOGGER.warn("Unable to write clock offset: {}", e.getMessage(), e);
+    }
+  }
+
   public boolean isMonitoringRunning(HardwareMetric hardwareMetric) {
     final StartedProcess process = processes.get(hardwareMetric);
     if (process == null) {
@@ -23,17 +23,15 @@ import java.io.Closeable;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TransferQueue;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Tracker of inactivity
+ * <p>
+ * The deadlines of all the trackers are checked by a single shared watchdog thread, so that recording some activity
+ * is only a volatile write.
  *
  * @author Mathieu Carbou
  */
@@ -42,14 +40,20 @@ public class ActivityTracker implements Closeable {
   private static final Logger logger = LoggerFactory.getLogger(ActivityTracker.class);
 
   private final Duration inactivityDelay;
+  private final long inactivityDelayNanos;
   private final Map<String, Collection<Runnable>> listeners = new ConcurrentHashMap<>();
-  private final TransferQueue<Boolean> activity = new LinkedTransferQueue<>();
   private final boolean enabled;
-  private final AtomicReference<Thread> monitor = new AtomicReference<>();
+  // held while the inactivity listeners run, so that they never overlap and are not running anymore once stopped
+  private final ReentrantLock inactivityLock = new ReentrantLock();
+  private final Object lifecycleLock = new Object();
+  private volatile long lastActivityNanos;
+  // incremented on each start and stop, the watchdog ignores the deadlines of a previous run
+  private volatile long generation;
 
   private ActivityTracker(Duration inactivityDelay) {
     this.enabled = !inactivityDelay.equals(Duration.ZERO);
     this.inactivityDelay = inactivityDelay;
+    this.inactivityDelayNanos = inactivityDelay.toNanos();
   }
 
 
@@ -85,81 +89,86 @@ public class ActivityTracker implements Closeable {
    */
   public void touch() {
     if (enabled) {
-      activity.tryTransfer(Boolean.TRUE);
+      lastActivityNanos = System.nanoTime();
     }
   }
 
   public boolean isRunning() {
-    return monitor.get() != null;
+    return (generation & 1) == 1;
   }
 
+  /**
+   * Stops tracking, the stop listeners are run by the calling thread.
+   * Can be called from an inactivity listener, otherwise waits for the inactivity listeners which may be running.
+   */
   public void stop() {
-    internalStop()
-        .filter(thread -> thread != Thread.currentThread())
-        .ifPresent(thread -> {
-          try {
-            thread.join();
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
-          }
-        });
+    synchronized (lifecycleLock) {
+      if (!isRunning()) {
+        return;
+      }
+      generation++;
+    }
+    // wait for an ongoing inactivity notification, reentrant when stopped from an inactivity listener
+    inactivityLock.lock();
+    inactivityLock.unlock();
+    fire("stop");
   }
 
+  /**
+   * Starts tracking, the start listeners are run by the calling thread
+   */
   public void start() {
     if (enabled) {
-      CountDownLatch started = new CountDownLatch(1);
-      Thread thread = new Thread(() -> {
-        Thread currentThread = Thread.currentThread();
-        try {
-          getListeners("start").forEach(runnable -> {
-            try {
-              runnable.run();
-            } catch (RuntimeException e) {
-              logger.error(e.getMessage(), e);
-            }
-          });
-          started.countDown();
-          while (monitor.get() == currentThread) {
-            if (activity.poll(inactivityDelay.toMillis(), TimeUnit.MILLISECONDS) == null) {
-              // timeout and no new element => inactivity
-              getListeners("inactivity").forEach(runnable -> {
-                try {
-                  runnable.run();
-                } catch (RuntimeException e) {
-                  logger.error(e.getMessage(), e);
-                }
-              });
-            }
-          }
-        } catch (InterruptedException ignored) {
-        } finally {
-          getListeners("stop").forEach(runnable -> {
-            try {
-              runnable.run();
-            } catch (RuntimeException e) {
-              logger.error(e.getMessage(), e);
-            }
-          });
-          monitor.compareAndSet(currentThread, null);
-        }
-      });
-      thread.setName("ActivityTracker:" + inactivityDelay + ":" + thread.hashCode());
-      thread.setDaemon(true);
-
-      if (monitor.compareAndSet(null, thread)) {
-        thread.start();
-        try {
-          started.await();
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
+      long started;
+      synchronized (lifecycleLock) {
+        if (isRunning()) {
+          return;
         }
+        lastActivityNanos = System.nanoTime();
+        started = ++generation;
       }
+      fire("start");
+      InactivityWatchdog.INSTANCE.schedule(this, started, lastActivityNanos + inactivityDelayNanos);
     }
   }
 
-  private Optional<Thread> internalStop() {
-    return Optional.ofNullable(monitor.getAndSet(null));
+  boolean isRunning(long generation) {
+    return this.generation == generation;
+  }
+
+  long getLastActivityNanos() {
+    return lastActivityNanos;
+  }
+
+  long getInactivityDelayNanos() {
+    return inactivityDelayNanos;
+  }
+
+  /**
+   * Called by the watchdog when no activity was recorded during the inactivity delay
+   */
+  void fireInactivity(long generation) {
+    if (!inactivityLock.tryLock()) {
+      // still notifying a previous inactivity
+      return;
+    }
+    try {
+      if (isRunning(generation)) {
+        fire("inactivity");
+      }
+    } finally {
+      inactivityLock.unlock();
+    }
+  }
+
+  private void fire(String event) {
+    getListeners(event).forEach(runnable -> {
+      try {
+        runnable.run();
+      } catch (RuntimeException e) {
+        logger.error(e.getMessage(), e);
+      }
+    });
   }
 
   private Collection<Runnable> getListeners(String event) {
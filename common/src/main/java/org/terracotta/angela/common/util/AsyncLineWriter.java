@@ -0,0 +1,277 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the output lines of a process from a background thread, so that a slow disk or logger
+ * never blocks the thread pumping the output of the process, and thus the process itself.
+ * <p>
+ * The lines are queued in a bounded buffer: when it is full, the new lines are dropped and counted.
+ * The writes are flushed as soon as the writer is idle, otherwise when enough data was written or after a short delay,
+ * and on close.
+ * The target is closed once all the lines are written: by {@link #close()}, or by the writer thread itself
+ * if it is still writing when {@link #close()} gives up waiting for it.
+ */
+public class AsyncLineWriter implements Consumer<String>, Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncLineWriter.class);
+
+  public static final int DEFAULT_CAPACITY = 64 * 1024;
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+  public static final int DEFAULT_FLUSH_SIZE = 64 * 1024;
+
+  private static final int MAX_BATCH = 1024;
+  private static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 10_000;
+
+  // queued on close to wake up the writer, compared by reference
+  @SuppressWarnings("StringOperationCanBeSimplified")
+  private static final String WAKE_UP = new String("");
+
+  /**
+   * Who closes the target: whichever of {@link #close()} and the writer thread does not win the hand-off
+   */
+  private enum Handoff {
+    OPEN,
+    /**
+     * The writer thread is done with the target
+     */
+    WRITER_DONE,
+    /**
+     * {@link #close()} stopped waiting for the writer thread, which closes the target once done
+     */
+    CLOSE_DELEGATED
+  }
+
+  /**
+   * Where the lines end up
+   */
+  public interface Target extends Closeable {
+    void write(String line) throws IOException;
+
+    void flush() throws IOException;
+  }
+
+  private final String name;
+  private final Target target;
+  private final BlockingQueue<String> queue;
+  private final long flushIntervalNanos;
+  private final int flushSize;
+  private final long closeTimeoutMillis;
+  private final AtomicLong droppedLines = new AtomicLong();
+  private final AtomicReference<Handoff> handoff = new AtomicReference<>(Handoff.OPEN);
+  private final Thread writer;
+  private volatile boolean closed;
+  private volatile boolean failed;
+
+  /**
+   * Appends the lines to a file
+   */
+  public static AsyncLineWriter toFile(String name, Path file) throws IOException {
+    Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), UTF_8), DEFAULT_FLUSH_SIZE);
+    return new AsyncLineWriter(name, new Target() {
+      @Override
+      public void write(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+      }
+
+      @Override
+      public void flush() throws IOException {
+        out.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        out.close();
+      }
+    }, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_FLUSH_SIZE);
+  }
+
+  /**
+   * Passes the lines to a consumer, typically a logger
+   */
+  public static AsyncLineWriter to(String name, Consumer<String> consumer) {
+    return new AsyncLineWriter(name, new Target() {
+      @Override
+      public void write(String line) {
+        consumer.accept(line);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    }, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_FLUSH_SIZE);
+  }
+
+  /**
+   * @param capacity the maximum number of lines waiting to be written
+   * @param flushIntervalMillis the maximum time during which written lines may stay unflushed
+   * @param flushSize the number of written characters after which the target is flushed
+   */
+  public AsyncLineWriter(String name, Target target, int capacity, long flushIntervalMillis, int flushSize) {
+    this(name, target, capacity, flushIntervalMillis, flushSize, DEFAULT_CLOSE_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param closeTimeoutMillis how long {@link #close()} waits for the queued lines to be written
+   */
+  AsyncLineWriter(String name, Target target, int capacity, long flushIntervalMillis, int flushSize, long closeTimeoutMillis) {
+    this.name = name;
+    this.target = target;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.flushSize = flushSize;
+    this.closeTimeoutMillis = closeTimeoutMillis;
+    this.writer = new Thread(this::drain, "angela-output-writer-" + name);
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Queues a line, without ever blocking: the line is dropped if the buffer is full.
+   * The lines received once the writer is closed are ignored.
+   */
+  @Override
+  public void accept(String line) {
+    if (closed || failed) {
+      return;
+    }
+    if (!queue.offer(line)) {
+      droppedLines.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return the number of lines dropped because the buffer was full
+   */
+  public long getDroppedLines() {
+    return droppedLines.get();
+  }
+
+  /**
+   * Writes the queued lines, flushes and closes the target.
+   * If the lines are not written within the close timeout, the target is left to the writer thread to close,
+   * so that it is never closed while being written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    // if the queue is full, the writer is busy and does not need to be woken up
+    queue.offer(WAKE_UP);
+    try {
+      // not interrupted: an interrupted write to a file channel would close it
+      writer.join(closeTimeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    long dropped = droppedLines.get();
+    if (dropped > 0) {
+      logger.warn("Output writer: {} dropped {} line(s) because the output was produced faster than it could be written", name, dropped);
+    }
+    if (handoff.compareAndSet(Handoff.OPEN, Handoff.CLOSE_DELEGATED)) {
+      logger.warn("Output writer: {} did not complete within: {}ms, it closes its output once done", name, closeTimeoutMillis);
+      return;
+    }
+    target.close();
+  }
+
+  private void drain() {
+    List<String> batch = new ArrayList<>(MAX_BATCH);
+    long unflushed = 0;
+    long lastFlush = System.nanoTime();
+    long reportedDrops = 0;
+    try {
+      while ((!closed || !queue.isEmpty()) && !failed) {
+        String line = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        // the lines dropped so far were dropped after the lines still queued
+        long dropped = droppedLines.get();
+        if (line != null) {
+          batch.add(line);
+          queue.drainTo(batch, MAX_BATCH - 1);
+          for (String l : batch) {
+            if (l == WAKE_UP) {
+              continue;
+            }
+            target.write(l);
+            unflushed += l.length() + 1;
+          }
+          batch.clear();
+        }
+        if (dropped != reportedDrops) {
+          // leave a trace of the gap in the output itself
+          target.write("[angela] " + (dropped - reportedDrops) + " line(s) dropped");
+          reportedDrops = dropped;
+          unflushed++;
+        }
+        long now = System.nanoTime();
+        if (unflushed > 0 && (unflushed >= flushSize || now - lastFlush >= flushIntervalNanos || queue.isEmpty())) {
+          target.flush();
+          unflushed = 0;
+          lastFlush = now;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Output writer: {} failed, the next lines are ignored", name, e);
+      failed = true;
+      queue.clear();
+    } finally {
+      try {
+        target.flush();
+      } catch (IOException | RuntimeException e) {
+        logger.debug("Unable to flush output writer: {}", name, e);
+      }
+      if (!handoff.compareAndSet(Handoff.OPEN, Handoff.WRITER_DONE)) {
+        try {
+          target.close();
+        } catch (IOException | RuntimeException e) {
+          logger.warn("Unable to close output writer: {}", name, e);
+        }
+      }
+    }
+  }
+}
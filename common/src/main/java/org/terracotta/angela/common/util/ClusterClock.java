@@ -0,0 +1,151 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The clock of this JVM, aligned on the orchestrator's timebase.
+ * <p>
+ * The orchestrator measures the offset of each agent's clock with an NTP-style ping exchange
+ * and pushes it to the agent. The orchestrator itself always has a zero offset.
+ */
+public class ClusterClock {
+
+  // wall clock anchored once, then moved forward with the monotonic high-resolution clock
+  private static final long EPOCH_ANCHOR_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+  private static final long NANO_ANCHOR = System.nanoTime();
+
+  // below this delay, we spin instead of parking to avoid the wake-up latency of the OS scheduler
+  private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+  private static volatile Offset offset = Offset.NONE;
+
+  /**
+   * @return the local wall-clock time in nanoseconds since the epoch
+   */
+  public static long localTimeNanos() {
+    return EPOCH_ANCHOR_NANOS + (System.nanoTime() - NANO_ANCHOR);
+  }
+
+  /**
+   * @return the time in nanoseconds since the epoch, corrected to the orchestrator's timebase
+   */
+  public static long clusterTimeNanos() {
+    return localTimeNanos() - offset.getOffsetNanos();
+  }
+
+  /**
+   * @return the cluster time corresponding to a local time
+   */
+  public static long toClusterTimeNanos(long localTimeNanos) {
+    return localTimeNanos - offset.getOffsetNanos();
+  }
+
+  /**
+   * @return the local time corresponding to a cluster time
+   */
+  public static long toLocalTimeNanos(long clusterTimeNanos) {
+    return clusterTimeNanos + offset.getOffsetNanos();
+  }
+
+  public static long toEpochNanos(Instant instant) {
+    return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+  }
+
+  public static Instant toInstant(long epochNanos) {
+    return Instant.ofEpochSecond(0L, epochNanos);
+  }
+
+  /**
+   * Blocks until the cluster time reaches the given time: the thread is parked until shortly before
+   * the deadline, then spins so that it is released as close as possible to the deadline.
+   */
+  public static void sleepUntil(long clusterTimeNanos) throws InterruptedException {
+    while (true) {
+      long remaining = clusterTimeNanos - clusterTimeNanos();
+      if (remaining <= 0L) {
+        return;
+      }
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (remaining > SPIN_THRESHOLD_NANOS) {
+        LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+      }
+    }
+  }
+
+  public static Offset getOffset() {
+    return offset;
+  }
+
+  public static void setOffset(Offset newOffset) {
+    offset = newOffset;
+  }
+
+  /**
+   * The offset of a clock compared to a reference clock, measured by a request / response exchange
+   */
+  public static class Offset implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final Offset NONE = new Offset(0L, 0L);
+
+    private final long offsetNanos;
+    private final long roundTripNanos;
+
+    public Offset(long offsetNanos, long roundTripNanos) {
+      this.offsetNanos = offsetNanos;
+      this.roundTripNanos = roundTripNanos;
+    }
+
+    /**
+     * Estimates the offset of a remote clock, assuming a symmetric network delay.
+     *
+     * @param sentNanos     the reference time when the request was sent
+     * @param remoteNanos   the remote time when the request was handled
+     * @param receivedNanos the reference time when the response was received
+     */
+    public static Offset estimate(long sentNanos, long remoteNanos, long receivedNanos) {
+      long roundTrip = receivedNanos - sentNanos;
+      return new Offset(remoteNanos - (sentNanos + roundTrip / 2), roundTrip);
+    }
+
+    /**
+     * @return how much the clock is ahead of the reference clock
+     */
+    public long getOffsetNanos() {
+      return offsetNanos;
+    }
+
+    /**
+     * @return the round-trip time of the exchange, which bounds the error of the offset
+     */
+    public long getRoundTripNanos() {
+      return roundTripNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "offset=" + offsetNanos + "ns, rtt=" + roundTripNanos + "ns";
+    }
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Searches the lines matching a pattern in the files of a folder, for the agents to only send back the matching lines
+ * instead of whole log folders.
+ * <p>
+ * The files are scanned in parallel and memory-mapped region by region. When the pattern requires a literal
+ * (see {@link LiteralMatcher#requiredLiteral(Pattern)}), it is searched in the raw bytes first, and only the lines
+ * containing it are decoded and matched. The files are expected to be encoded in UTF-8.
+ */
+public final class Grep {
+
+  static final long DEFAULT_REGION_SIZE = 64L * 1024 * 1024;
+
+  private Grep() {
+  }
+
+  /**
+   * @return the matching lines, ordered by file and offset. When the maximum number of matches is reached,
+   * the search stops and the result only contains the matches found so far in each file
+   */
+  public static GrepResult grep(Path folder, Pattern pattern, GrepOptions options) throws IOException {
+    return grep(folder, pattern, options, DEFAULT_REGION_SIZE);
+  }
+
+  static GrepResult grep(Path folder, Pattern pattern, GrepOptions options, long regionSize) throws IOException {
+    List<Path> files = listFiles(folder, options.getFileGlob());
+    if (files.isEmpty()) {
+      return new GrepResult(Collections.emptyList(), 0, false);
+    }
+    String literal = LiteralMatcher.requiredLiteral(pattern);
+    Search search = new Search(folder, pattern, literal == null ? null : literal.getBytes(UTF_8), options, regionSize);
+
+    int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+    AtomicInteger threadCounter = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "angela-grep-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<List<GrepResult.Match>>> futures = new ArrayList<>(files.size());
+      for (Path file : files) {
+        futures.add(executor.submit(() -> search.scan(file)));
+      }
+      List<GrepResult.Match> matches = new ArrayList<>();
+      for (Future<List<GrepResult.Match>> future : futures) {
+        matches.addAll(future.get());
+      }
+      boolean truncated = search.truncated.get() || matches.size() > options.getMaxMatches();
+      if (matches.size() > options.getMaxMatches()) {
+        matches = new ArrayList<>(matches.subList(0, options.getMaxMatches()));
+      }
+      return new GrepResult(matches, search.scannedFiles.get(), truncated);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while searching: " + folder, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      throw new IOException("Unable to search: " + folder, cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static List<Path> listFiles(Path folder, String glob) throws IOException {
+    PathMatcher matcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    try (Stream<Path> stream = Files.walk(folder)) {
+      return stream
+          .filter(Files::isRegularFile)
+          .filter(file -> matcher == null || matcher.matches(file.getFileName()))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static class Search {
+    final Path folder;
+    final Pattern pattern;
+    final byte[] literal;
+    final GrepOptions options;
+    final long regionSize;
+    final AtomicInteger found = new AtomicInteger();
+    final AtomicInteger scannedFiles = new AtomicInteger();
+    final AtomicBoolean truncated = new AtomicBoolean();
+
+    Search(Path folder, Pattern pattern, byte[] literal, GrepOptions options, long regionSize) {
+      this.folder = folder;
+      this.pattern = pattern;
+      this.literal = literal;
+      this.options = options;
+      this.regionSize = regionSize;
+    }
+
+    List<GrepResult.Match> scan(Path file) {
+      if (found.get() >= options.getMaxMatches()) {
+        truncated.set(true);
+        return Collections.emptyList();
+      }
+      scannedFiles.incrementAndGet();
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        return new FileScan(this, folder.relativize(file).toString().replace('\\', '/'), channel).scan();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static class FileScan {
+    final Search search;
+    final String name;
+    final FileChannel channel;
+    final List<GrepResult.Match> matches = new ArrayList<>();
+    // the offsets of the last lines, for the context before the matching lines
+    final Deque<long[]> previousLines = new ArrayDeque<>();
+    // the matching lines waiting for their context after
+    final List<Pending> pending = new ArrayList<>();
+    long lineNumber;
+    boolean accepting = true;
+
+    FileScan(Search search, String name, FileChannel channel) {
+      this.search = search;
+      this.name = name;
+      this.channel = channel;
+    }
+
+    List<GrepResult.Match> scan() throws IOException {
+      long size = channel.size();
+      long regionStart = 0;
+      while (regionStart < size && (accepting || !pending.isEmpty())) {
+        int length = (int) Math.min(search.regionSize, size - regionStart);
+        boolean lastRegion = regionStart + length >= size;
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, length);
+        int lineStart = 0;
+        while (lineStart < length && (accepting || !pending.isEmpty())) {
+          int newLine = indexOf(region, (byte) '\n', lineStart, length);
+          if (newLine < 0 && !lastRegion && lineStart > 0) {
+            // incomplete line: the next region starts with it
+            break;
+          }
+          // otherwise the last line of the file, or a line longer than a region which is split
+          int lineEnd = newLine < 0 ? length : newLine;
+          visit(region, regionStart, lineStart, lineEnd);
+          lineStart = newLine < 0 ? length : newLine + 1;
+        }
+        regionStart += lineStart;
+      }
+      for (Pending p : pending) {
+        matches.add(p.toMatch(name));
+      }
+      return matches;
+    }
+
+    private void visit(ByteBuffer region, long regionStart, int start, int end) throws IOException {
+      lineNumber++;
+      if (!pending.isEmpty()) {
+        String line = truncate(decode(region, start, end));
+        for (Iterator<Pending> it = pending.iterator(); it.hasNext(); ) {
+          Pending p = it.next();
+          p.after.add(line);
+          if (p.after.size() >= search.options.getAfter()) {
+            matches.add(p.toMatch(name));
+            it.remove();
+          }
+        }
+      }
+
+      if (accepting && (search.literal == null || contains(region, start, end, search.literal))) {
+        String line = decode(region, start, end);
+        if (search.pattern.matcher(line).find()) {
+          if (search.found.incrementAndGet() > search.options.getMaxMatches()) {
+            search.truncated.set(true);
+            accepting = false;
+          } else {
+            List<String> before = new ArrayList<>(previousLines.size());
+            for (long[] previous : previousLines) {
+              before.add(truncate(read(previous[0], previous[1])));
+            }
+            Pending p = new Pending(lineNumber, regionStart + start, truncate(line), before);
+            if (search.options.getAfter() > 0) {
+              pending.add(p);
+            } else {
+              matches.add(p.toMatch(name));
+            }
+          }
+        }
+      }
+
+      if (search.options.getBefore() > 0) {
+        if (previousLines.size() == search.options.getBefore()) {
+          previousLines.removeFirst();
+        }
+        previousLines.addLast(new long[]{regionStart + start, regionStart + end});
+      }
+    }
+
+    private String read(long start, long end) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - start, search.options.getMaxLineLength() * 4L));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          break;
+        }
+      }
+      buffer.flip();
+      return decode(buffer, 0, buffer.limit());
+    }
+
+    private String truncate(String line) {
+      int max = search.options.getMaxLineLength();
+      return line.length() <= max ? line : line.substring(0, max);
+    }
+  }
+
+  private static class Pending {
+    final long lineNumber;
+    final long offset;
+    final String line;
+    final List<String> before;
+    final List<String> after = new ArrayList<>();
+
+    Pending(long lineNumber, long offset, String line, List<String> before) {
+      this.lineNumber = lineNumber;
+      this.offset = offset;
+      this.line = line;
+      this.before = before;
+    }
+
+    GrepResult.Match toMatch(String file) {
+      return new GrepResult.Match(file, lineNumber, offset, line, before, after);
+    }
+  }
+
+  static int indexOf(ByteBuffer buffer, byte b, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  static boolean contains(ByteBuffer buffer, int from, int to, byte[] literal) {
+    byte first = literal[0];
+    int last = to - literal.length;
+    outer:
+    for (int i = from; i <= last; i++) {
+      if (buffer.get(i) != first) {
+        continue;
+      }
+      for (int j = 1; j < literal.length; j++) {
+        if (buffer.get(i + j) != literal[j]) {
+          continue outer;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static String decode(ByteBuffer buffer, int start, int end) {
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    byte[] bytes = new byte[end - start];
+    ByteBuffer line = buffer.duplicate();
+    line.limit(end);
+    line.position(start);
+    line.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.io.Serializable;
+
+/**
+ * Options of a search of the lines matching a pattern in the files of a folder, see {@link Grep}
+ */
+public class GrepOptions implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final int DEFAULT_MAX_MATCHES = 1000;
+  public static final int DEFAULT_MAX_LINE_LENGTH = 4096;
+
+  private int before;
+  private int after;
+  private int maxMatches = DEFAULT_MAX_MATCHES;
+  private int maxLineLength = DEFAULT_MAX_LINE_LENGTH;
+  private String fileGlob;
+
+  public static GrepOptions defaults() {
+    return new GrepOptions();
+  }
+
+  /**
+   * @param lines the number of lines to return before and after each matching line
+   */
+  public GrepOptions context(int lines) {
+    return context(lines, lines);
+  }
+
+  public GrepOptions context(int before, int after) {
+    if (before < 0 || after < 0) {
+      throw new IllegalArgumentException("Invalid context: " + before + ", " + after);
+    }
+    this.before = before;
+    this.after = after;
+    return this;
+  }
+
+  /**
+   * @param maxMatches the maximum number of matching lines to return, the search stops once reached
+   */
+  public GrepOptions maxMatches(int maxMatches) {
+    if (maxMatches < 1) {
+      throw new IllegalArgumentException("Invalid max matches: " + maxMatches);
+    }
+    this.maxMatches = maxMatches;
+    return this;
+  }
+
+  /**
+   * @param maxLineLength the length beyond which the returned lines are truncated
+   */
+  public GrepOptions maxLineLength(int maxLineLength) {
+    if (maxLineLength < 1) {
+      throw new IllegalArgumentException("Invalid max line length: " + maxLineLength);
+    }
+    this.maxLineLength = maxLineLength;
+    return this;
+  }
+
+  /**
+   * @param glob the files to search, matched on their name, like {@code *.log}
+   */
+  public GrepOptions files(String glob) {
+    this.fileGlob = glob;
+    return this;
+  }
+
+  public int getBefore() {
+    return before;
+  }
+
+  public int getAfter() {
+    return after;
+  }
+
+  public int getMaxMatches() {
+    return maxMatches;
+  }
+
+  public int getMaxLineLength() {
+    return maxLineLength;
+  }
+
+  public String getFileGlob() {
+    return fileGlob;
+  }
+
+  @Override
+  public String toString() {
+    return "GrepOptions{" +
+        "before=" + before +
+        ", after=" + after +
+        ", maxMatches=" + maxMatches +
+        ", maxLineLength=" + maxLineLength +
+        ", fileGlob='" + fileGlob + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The lines matching a pattern in the files of a folder, see {@link Grep}
+ */
+public class GrepResult implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final List<Match> matches;
+  private final int scannedFiles;
+  private final boolean truncated;
+
+  public GrepResult(List<Match> matches, int scannedFiles, boolean truncated) {
+    this.matches = matches;
+    this.scannedFiles = scannedFiles;
+    this.truncated = truncated;
+  }
+
+  /**
+   * @return the matching lines, ordered by file and offset
+   */
+  public List<Match> getMatches() {
+    return matches;
+  }
+
+  public boolean isEmpty() {
+    return matches.isEmpty();
+  }
+
+  public int getScannedFiles() {
+    return scannedFiles;
+  }
+
+  /**
+   * @return true if the search stopped because the maximum number of matches was reached:
+   * other files or lines may match
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(matches.size()).append(" match(es) in ").append(scannedFiles).append(" file(s)");
+    if (truncated) {
+      sb.append(" (truncated)");
+    }
+    for (Match match : matches) {
+      sb.append('\n').append(match);
+    }
+    return sb.toString();
+  }
+
+  public static class Match implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String file;
+    private final long lineNumber;
+    private final long offset;
+    private final String line;
+    private final List<String> before;
+    private final List<String> after;
+
+    public Match(String file, long lineNumber, long offset, String line, List<String> before, List<String> after) {
+      this.file = file;
+      this.lineNumber = lineNumber;
+      this.offset = offset;
+      this.line = line;
+      this.before = before;
+      this.after = after;
+    }
+
+    /**
+     * @return the path of the file, relative to the searched folder
+     */
+    public String getFile() {
+      return file;
+    }
+
+    /**
+     * @return the number of the line in the file, starting at 1
+     */
+    public long getLineNumber() {
+      return lineNumber;
+    }
+
+    /**
+     * @return the offset of the line in the file, in bytes
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    public String getLine() {
+      return line;
+    }
+
+    public List<String> getBefore() {
+      return before;
+    }
+
+    public List<String> getAfter() {
+      return after;
+    }
+
+    @Override
+    public String toString() {
+      return file + ":" + lineNumber + ": " + line;
+    }
+  }
+}
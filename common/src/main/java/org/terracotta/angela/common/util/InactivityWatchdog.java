@@ -0,0 +1,153 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single thread checking the inactivity deadlines of all the {@link ActivityTracker}s of this JVM,
+ * with a hashed timing wheel: each tick only looks at the trackers which deadline falls in the current slot.
+ * <p>
+ * The inactivity listeners are run on a separate pool, so that a slow listener (which typically kills a process)
+ * does not delay the checks of the other trackers.
+ */
+final class InactivityWatchdog {
+
+  private static final Logger logger = LoggerFactory.getLogger(InactivityWatchdog.class);
+
+  static final InactivityWatchdog INSTANCE = new InactivityWatchdog();
+
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+  private final Deque<Timeout>[] wheel;
+  private final ExecutorService listenerExecutor;
+  private final long startNanos = System.nanoTime();
+  private Thread thread;
+
+  // only used by the watchdog thread
+  private long tick;
+
+  @SuppressWarnings("unchecked")
+  private InactivityWatchdog() {
+    wheel = new Deque[WHEEL_SIZE];
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel[i] = new ArrayDeque<>();
+    }
+    AtomicInteger threadCounter = new AtomicInteger();
+    listenerExecutor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "angela-inactivity-listener-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Checks the tracker once the deadline is reached
+   *
+   * @param generation the generation of the tracker when it was started, to ignore the deadlines of a previous run
+   */
+  void schedule(ActivityTracker tracker, long generation, long deadlineNanos) {
+    newTimeouts.add(new Timeout(tracker, generation, deadlineNanos));
+    startIfNeeded();
+  }
+
+  private synchronized void startIfNeeded() {
+    if (thread == null) {
+      thread = new Thread(this::run, "angela-inactivity-watchdog");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private void run() {
+    while (true) {
+      long nextTick = startNanos + (tick + 1) * TICK_NANOS;
+      long sleep;
+      while ((sleep = nextTick - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(this, sleep);
+      }
+      tick++;
+      try {
+        transferNewTimeouts();
+        expire(System.nanoTime());
+      } catch (RuntimeException e) {
+        logger.error("Inactivity watchdog failure: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  private void transferNewTimeouts() {
+    Timeout timeout;
+    while ((timeout = newTimeouts.poll()) != null) {
+      // rounded up: a tracker is never checked before its deadline
+      long deadlineTick = (timeout.deadlineNanos - startNanos + TICK_NANOS - 1) / TICK_NANOS;
+      timeout.deadlineTick = Math.max(deadlineTick, tick);
+      wheel[(int) (timeout.deadlineTick & WHEEL_MASK)].add(timeout);
+    }
+  }
+
+  private void expire(long now) {
+    Iterator<Timeout> iterator = wheel[(int) (tick & WHEEL_MASK)].iterator();
+    while (iterator.hasNext()) {
+      Timeout timeout = iterator.next();
+      if (timeout.deadlineTick > tick) {
+        // due in a later round of the wheel
+        continue;
+      }
+      iterator.remove();
+      ActivityTracker tracker = timeout.tracker;
+      if (!tracker.isRunning(timeout.generation)) {
+        continue;
+      }
+      long deadline = tracker.getLastActivityNanos() + tracker.getInactivityDelayNanos();
+      if (now - deadline >= 0) {
+        listenerExecutor.execute(() -> tracker.fireInactivity(timeout.generation));
+        // still inactive after another delay: fired again
+        deadline = now + tracker.getInactivityDelayNanos();
+      }
+      newTimeouts.add(new Timeout(tracker, timeout.generation, deadline));
+    }
+  }
+
+  private static class Timeout {
+    final ActivityTracker tracker;
+    final long generation;
+    final long deadlineNanos;
+    long deadlineTick;
+
+    Timeout(ActivityTracker tracker, long generation, long deadlineNanos) {
+      this.tracker = tracker;
+      this.generation = generation;
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+}
@@ -20,10 +20,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
@@ -33,9 +30,12 @@ import java.util.zip.GZIPInputStream;
 import static org.terracotta.angela.common.util.FileUtils.setCorrectPermissions;
 
 public class KitUtils {
+  /**
+   * Extracts a zip archive on several threads, see {@link ParallelExtractor}
+   */
   public static void extractZip(Path kitInstaller, Path kitDest) {
-    try (ArchiveInputStream archiveIs = new ZipArchiveInputStream(new BufferedInputStream(Files.newInputStream(kitInstaller)))) {
-      extractArchive(archiveIs, kitDest);
+    try {
+      ParallelExtractor.extractZip(kitInstaller, kitDest, ParallelExtractor.defaultThreads());
     } catch (IOException ioe) {
       ioe.printStackTrace();
       throw new UncheckedIOException("Error when extracting installer package", ioe);
@@ -62,10 +62,13 @@ public class KitUtils {
     }
   }
 
+  /**
+   * Extracts a tar.gz archive, the files being written on several threads while the archive is decompressed,
+   * see {@link ParallelExtractor}
+   */
   public static void extractTarGz(Path kitInstaller, Path kitDest) {
-    try (ArchiveInputStream archiveIs = new TarArchiveInputStream(new GzipCompressorInputStream(new BufferedInputStream(Files
-        .newInputStream(kitInstaller))))) {
-      extractArchive(archiveIs, kitDest);
+    try {
+      ParallelExtractor.extractTarGz(kitInstaller, kitDest, ParallelExtractor.defaultThreads());
     } catch (IOException ioe) {
       ioe.printStackTrace();
       throw new UncheckedIOException("Error when extracting installer package", ioe);
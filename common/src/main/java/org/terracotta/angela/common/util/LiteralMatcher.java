@@ -0,0 +1,333 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Pattern;
+
+/**
+ * Finds which of a set of literals occur in a text, in a single pass over the text (Aho-Corasick automaton).
+ * <p>
+ * The transitions on ASCII characters are precomputed for all the states, the other characters follow the failure links.
+ */
+final class LiteralMatcher {
+
+  static final int MAX_LITERALS = Long.SIZE;
+
+  private static final int ASCII = 128;
+
+  private final int[][] asciiTransitions;
+  private final Map<Character, Integer>[] otherTransitions;
+  private final int[] failures;
+  private final long[] outputs;
+
+  /**
+   * @param literals at most {@link #MAX_LITERALS} non-empty literals, the index of each one is its bit in the result of {@link #find(CharSequence)}
+   */
+  @SuppressWarnings("unchecked")
+  LiteralMatcher(List<String> literals) {
+    if (literals.size() > MAX_LITERALS) {
+      throw new IllegalArgumentException("At most " + MAX_LITERALS + " literals are supported, got: " + literals.size());
+    }
+    List<int[]> ascii = new ArrayList<>();
+    List<Map<Character, Integer>> other = new ArrayList<>();
+    List<Long> out = new ArrayList<>();
+    newState(ascii, other, out);
+
+    // trie of the literals
+    for (int id = 0; id < literals.size(); id++) {
+      String literal = literals.get(id);
+      if (literal.isEmpty()) {
+        throw new IllegalArgumentException("Empty literal at index: " + id);
+      }
+      int state = 0;
+      for (int i = 0; i < literal.length(); i++) {
+        char c = literal.charAt(i);
+        Integer next = c < ASCII ? (ascii.get(state)[c] < 0 ? null : ascii.get(state)[c]) : other.get(state).get(c);
+        if (next == null) {
+          next = newState(ascii, other, out);
+          if (c < ASCII) {
+            ascii.get(state)[c] = next;
+          } else {
+            other.get(state).put(c, next);
+          }
+        }
+        state = next;
+      }
+      out.set(state, out.get(state) | 1L << id);
+    }
+
+    int size = ascii.size();
+    this.asciiTransitions = ascii.toArray(new int[size][]);
+    this.otherTransitions = other.toArray(new Map[size]);
+    this.failures = new int[size];
+    this.outputs = new long[size];
+    for (int i = 0; i < size; i++) {
+      outputs[i] = out.get(i);
+    }
+
+    // failure links, breadth first so that the links of the shorter prefixes are known
+    Queue<Integer> queue = new ArrayDeque<>();
+    int[] root = asciiTransitions[0];
+    for (int c = 0; c < ASCII; c++) {
+      if (root[c] < 0) {
+        root[c] = 0;
+      } else {
+        queue.add(root[c]);
+      }
+    }
+    queue.addAll(otherTransitions[0].values());
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      int failure = failures[state];
+      outputs[state] |= outputs[failure];
+      int[] transitions = asciiTransitions[state];
+      for (int c = 0; c < ASCII; c++) {
+        if (transitions[c] < 0) {
+          transitions[c] = asciiTransitions[failure][c];
+        } else {
+          failures[transitions[c]] = state == 0 ? 0 : asciiTransitions[failure][c];
+          queue.add(transitions[c]);
+        }
+      }
+      for (Map.Entry<Character, Integer> entry : otherTransitions[state].entrySet()) {
+        failures[entry.getValue()] = state == 0 ? 0 : otherTransition(failure, entry.getKey());
+        queue.add(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * @return a bit mask of the literals found in the text
+   */
+  long find(CharSequence text) {
+    long found = 0L;
+    int state = 0;
+    for (int i = 0, length = text.length(); i < length; i++) {
+      char c = text.charAt(i);
+      state = c < ASCII ? asciiTransitions[state][c] : otherTransition(state, c);
+      found |= outputs[state];
+    }
+    return found;
+  }
+
+  private int otherTransition(int state, char c) {
+    while (true) {
+      Integer next = otherTransitions[state].get(c);
+      if (next != null) {
+        return next;
+      }
+      if (state == 0) {
+        return 0;
+      }
+      state = failures[state];
+    }
+  }
+
+  private static int newState(List<int[]> ascii, List<Map<Character, Integer>> other, List<Long> out) {
+    int[] transitions = new int[ASCII];
+    Arrays.fill(transitions, -1);
+    ascii.add(transitions);
+    other.add(new HashMap<>());
+    out.add(0L);
+    return ascii.size() - 1;
+  }
+
+  /**
+   * Finds a literal that any text matched by the pattern must contain, like the {@code \Q...\E} part of {@code ^.*\QServer started\E.*$}.
+   *
+   * @return the longest literal found, or null if the pattern does not require any literal or cannot be analyzed
+   */
+  static String requiredLiteral(Pattern pattern) {
+    int flags = pattern.flags();
+    if ((flags & (Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+      return null;
+    }
+    String regex = pattern.pattern();
+    if ((flags & Pattern.LITERAL) != 0) {
+      return regex.isEmpty() ? null : regex;
+    }
+
+    String best = "";
+    StringBuilder run = new StringBuilder();
+    int depth = 0;
+    int i = 0;
+    int length = regex.length();
+    while (i < length) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 >= length) {
+          return null;
+        }
+        char next = regex.charAt(i + 1);
+        if (next == 'Q') {
+          int end = regex.indexOf("\\E", i + 2);
+          String quoted = regex.substring(i + 2, end < 0 ? length : end);
+          i = end < 0 ? length : end + 2;
+          if (depth == 0) {
+            if (isQuantifier(regex, i)) {
+              // the quantifier only applies to the last quoted character
+              run.append(quoted, 0, Math.max(0, quoted.length() - 1));
+              best = longest(best, run);
+            } else {
+              run.append(quoted);
+            }
+          }
+          continue;
+        }
+        if (Character.isLetterOrDigit(next)) {
+          // character class, back reference or escaped character: not analyzed
+          best = longest(best, run);
+          i += 2;
+          if (i < length && (regex.charAt(i) == '{' || regex.charAt(i) == '<') && "pPxNk".indexOf(next) >= 0) {
+            int end = regex.indexOf(regex.charAt(i) == '{' ? '}' : '>', i);
+            if (end < 0) {
+              return null;
+            }
+            i = end + 1;
+          }
+          continue;
+        }
+        // escaped meta character
+        i += 2;
+        best = appendLiteral(regex, i, next, depth, run, best);
+        continue;
+      }
+      switch (c) {
+        case '[': {
+          best = longest(best, run);
+          i = skipCharacterClass(regex, i);
+          if (i < 0) {
+            return null;
+          }
+          break;
+        }
+        case '(': {
+          best = longest(best, run);
+          if (regex.startsWith("(?", i) && i + 2 < length && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+            // inline flags, which may change how the literals match
+            return null;
+          }
+          depth++;
+          i++;
+          break;
+        }
+        case ')': {
+          depth--;
+          i++;
+          break;
+        }
+        case '|': {
+          if (depth == 0) {
+            // alternatives at the top level: no literal is required
+            return null;
+          }
+          i++;
+          break;
+        }
+        case '{': {
+          best = longest(best, run);
+          int end = regex.indexOf('}', i);
+          if (end < 0) {
+            return null;
+          }
+          i = end + 1;
+          break;
+        }
+        case '.':
+        case '^':
+        case '$':
+        case '*':
+        case '+':
+        case '?': {
+          best = longest(best, run);
+          i++;
+          break;
+        }
+        default: {
+          i++;
+          best = appendLiteral(regex, i, c, depth, run, best);
+        }
+      }
+    }
+    best = longest(best, run);
+    return best.isEmpty() ? null : best;
+  }
+
+  private static String appendLiteral(String regex, int nextIndex, char c, int depth, StringBuilder run, String best) {
+    if (depth > 0) {
+      return best;
+    }
+    if (isQuantifier(regex, nextIndex)) {
+      // the character may be absent or repeated
+      return longest(best, run);
+    }
+    run.append(c);
+    return best;
+  }
+
+  private static boolean isQuantifier(String regex, int index) {
+    return index < regex.length() && "*+?{".indexOf(regex.charAt(index)) >= 0;
+  }
+
+  /**
+   * @return the longest of the best literal and the current run, the run being reset
+   */
+  private static String longest(String best, StringBuilder run) {
+    String candidate = run.toString();
+    run.setLength(0);
+    return candidate.length() > best.length() ? candidate : best;
+  }
+
+  /**
+   * @return the index after the character class starting at the index, or -1 if it cannot be parsed
+   */
+  private static int skipCharacterClass(String regex, int index) {
+    int depth = 0;
+    int i = index;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i += 2;
+        continue;
+      }
+      if (c == '[') {
+        depth++;
+        // a closing bracket right after the opening one (or after ^) is a literal
+        if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+          i++;
+        }
+        if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+          i++;
+        }
+      } else if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+}
@@ -16,10 +16,10 @@
  */
 package org.terracotta.angela.common.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Base class to connect a logging system to the output and/or
@@ -32,15 +32,19 @@ public abstract class LogOutputStream extends OutputStream {
   /** Initial buffer size. */
   private static final int INTIAL_SIZE = 132;
 
+  /** Above this size, the buffer is released once the line is processed, to not keep a huge line in memory. */
+  private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
   /** Carriage return */
   private static final int CR = 0x0d;
 
   /** Linefeed */
   private static final int LF = 0x0a;
 
-  /** the internal buffer */
-  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
-      INTIAL_SIZE);
+  /** the internal buffer, holding the beginning of a line split across several writes */
+  private byte[] buffer = new byte[INTIAL_SIZE];
+
+  private int size;
 
   byte lastReceivedByte;
 
@@ -61,18 +65,61 @@ public abstract class LogOutputStream extends OutputStream {
         processBuffer();
       }
     } else {
-      buffer.write(cc);
+      append(c);
     }
     lastReceivedByte = c;
   }
 
+  /**
+   * Write a block of characters to the output stream.
+   * The block is scanned for line separators, and the lines fully contained in the block are decoded
+   * straight from it, without being copied to the internal buffer.
+   *
+   * @param b the array containing the data
+   * @param off the offset into the array where data starts
+   * @param len the length of block
+   * @throws java.io.IOException if the data cannot be written into the stream.
+   * @see java.io.OutputStream#write(byte[], int, int)
+   */
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + b.length);
+    }
+    final int end = off + len;
+    int lineStart = off;
+    for (int i = off; i < end; i++) {
+      final byte c = b[i];
+      if (c != LF && c != CR) {
+        continue;
+      }
+      if (i > lineStart) {
+        // the line ends in this block
+        if (size == 0) {
+          processLine(new String(b, lineStart, i - lineStart, UTF_8));
+        } else {
+          append(b, lineStart, i - lineStart);
+          processBuffer();
+        }
+      } else if (c == CR || lastReceivedByte != CR && lastReceivedByte != LF) {
+        // same rules as write(int)
+        processBuffer();
+      }
+      lastReceivedByte = c;
+      lineStart = i + 1;
+    }
+    if (lineStart < end) {
+      append(b, lineStart, end - lineStart);
+      lastReceivedByte = b[end - 1];
+    }
+  }
+
   /**
    * Flush this log stream.
    *
    * @see java.io.OutputStream#flush()
    */
   public void flush() {
-    if (buffer.size() > 0) {
+    if (size > 0) {
       processBuffer();
     }
   }
@@ -83,57 +130,41 @@ public abstract class LogOutputStream extends OutputStream {
    * @see java.io.OutputStream#close()
    */
   public void close() throws IOException {
-    if (buffer.size() > 0) {
+    if (size > 0) {
       processBuffer();
     }
     super.close();
   }
 
-//  /**
-//   * Write a block of characters to the output stream
-//   *
-//   * @param b the array containing the data
-//   * @param off the offset into the array where data starts
-//   * @param len the length of block
-//   * @throws java.io.IOException if the data cannot be written into the stream.
-//   * @see java.io.OutputStream#write(byte[], int, int)
-//   */
-//  public void write(final byte[] b, final int off, final int len)
-//      throws IOException {
-//    // find the line breaks and pass other chars through in blocks
-//    int offset = off;
-//    int blockStartOffset = offset;
-//    int remaining = len;
-//    while (remaining > 0) {
-//      while (remaining > 0 && b[offset] != LF && b[offset] != CR) {
-//        offset++;
-//        remaining--;
-//      }
-//      // either end of buffer or a line separator char
-//      int blockLength = offset - blockStartOffset;
-//      if (blockLength > 0) {
-//        buffer.write(b, blockStartOffset, blockLength);
-//        lastReceivedByte = 0;
-//      }
-//      while (remaining > 0 && (b[offset] == LF || b[offset] == CR)) {
-//        write(b[offset]);
-//        offset++;
-//        remaining--;
-//      }
-//      blockStartOffset = offset;
-//    }
-//  }
-
   /**
    * Converts the buffer to a string and sends it to <code>processLine</code>.
    */
   protected void processBuffer() {
-    try {
-      processLine(buffer.toString("UTF-8"));
-    } catch (UnsupportedEncodingException e) {
-      throw new AssertionError(e);
+    String line = new String(buffer, 0, size, UTF_8);
+    size = 0;
+    if (buffer.length > MAX_RETAINED_SIZE) {
+      buffer = new byte[INTIAL_SIZE];
+    }
+    processLine(line);
+  }
+
+  private void append(byte c) {
+    ensureCapacity(size + 1);
+    buffer[size++] = c;
+  }
+
+  private void append(byte[] b, int off, int len) {
+    ensureCapacity(size + len);
+    System.arraycopy(b, off, buffer, size, len);
+    size += len;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > buffer.length) {
+      byte[] newBuffer = new byte[Math.max(capacity, buffer.length * 2)];
+      System.arraycopy(buffer, 0, newBuffer, 0, size);
+      buffer = newBuffer;
     }
-    buffer.reset();
   }
 
   /**
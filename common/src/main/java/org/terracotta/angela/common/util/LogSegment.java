@@ -0,0 +1,57 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Lines appended to a file followed by an agent, pushed to the subscriber of a log stream
+ */
+public class LogSegment implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String streamId;
+  private final long sequence;
+  private final List<String> lines;
+
+  public LogSegment(String streamId, long sequence, List<String> lines) {
+    this.streamId = streamId;
+    this.sequence = sequence;
+    this.lines = lines;
+  }
+
+  public String getStreamId() {
+    return streamId;
+  }
+
+  /**
+   * @return the position of this segment in the stream, starting at 0
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public List<String> getLines() {
+    return lines;
+  }
+
+  @Override
+  public String toString() {
+    return streamId + "#" + sequence + " (" + lines.size() + " line(s))";
+  }
+}
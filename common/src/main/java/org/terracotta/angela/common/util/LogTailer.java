@@ -0,0 +1,218 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Follows a log file which is being written, each call only reading and decoding the data appended since the previous one.
+ * <p>
+ * The file is kept open between the calls, so that the end of a log file which gets rotated (renamed, then recreated)
+ * is still read before switching to the new file. A file truncated below the current offset is read again from its start.
+ * A file which does not exist yet is waited for.
+ */
+public class LogTailer implements Closeable {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final Path file;
+  private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+  // the beginning of a line spanning several chunks, or the last line which is not terminated yet
+  private byte[] partial = new byte[256];
+  private int partialLength;
+
+  private FileChannel channel;
+  private Object fileKey;
+  private long position;
+
+  public LogTailer(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the lines appended since the last call, until one matches.
+   * <p>
+   * The last line of the file is also tested when it is not terminated yet, like {@link Files#readAllLines(Path)} would.
+   *
+   * @return the first matching line, or null if none of the new lines matches
+   */
+  public String next(Predicate<String> matcher) throws IOException {
+    return read(matcher, true);
+  }
+
+  /**
+   * Reads the complete lines appended since the last call, passing them to the visitor until it returns true:
+   * the next call starts right after the line on which the visitor stopped.
+   * <p>
+   * Unlike {@link #next(Predicate)}, the last line is only read once terminated, so that each line is read once.
+   *
+   * @return the line on which the visitor stopped, or null if all the complete lines were read
+   */
+  public String readLines(Predicate<String> visitor) throws IOException {
+    return read(visitor, false);
+  }
+
+  /**
+   * @return the offset up to which the current file was read
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * Closes the file: the next call to {@link #next(Predicate)} reads it again from its start
+   */
+  @Override
+  public void close() throws IOException {
+    closeChannel();
+  }
+
+  private boolean open() throws IOException {
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    } catch (NoSuchFileException e) {
+      closeChannel();
+      return false;
+    }
+    position = 0;
+    partialLength = 0;
+    return true;
+  }
+
+  private void closeChannel() throws IOException {
+    FileChannel channel = this.channel;
+    this.channel = null;
+    this.fileKey = null;
+    this.position = 0;
+    this.partialLength = 0;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private String read(Predicate<String> visitor, boolean unterminated) throws IOException {
+    if (channel == null && !open()) {
+      return null;
+    }
+    String found = drain(visitor, unterminated);
+    if (found == null && rotated()) {
+      if (!unterminated && partialLength > 0) {
+        // the previous file will not be completed anymore
+        String line = decode(partial, 0, partialLength);
+        partialLength = 0;
+        if (visitor.test(line)) {
+          return line;
+        }
+      }
+      closeChannel();
+      if (open()) {
+        found = drain(visitor, unterminated);
+      }
+    }
+    return found;
+  }
+
+  private String drain(Predicate<String> visitor, boolean unterminated) throws IOException {
+    if (channel.size() < position) {
+      // truncated
+      position = 0;
+      partialLength = 0;
+    }
+    int read;
+    while ((read = channel.read((ByteBuffer) chunk.clear(), position)) > 0) {
+      position += read;
+      byte[] bytes = chunk.array();
+      int start = 0;
+      for (int i = 0; i < read; i++) {
+        if (bytes[i] != '\n') {
+          continue;
+        }
+        String line;
+        if (partialLength > 0) {
+          append(bytes, start, i - start);
+          line = decode(partial, 0, partialLength);
+          partialLength = 0;
+        } else {
+          line = decode(bytes, start, i - start);
+        }
+        start = i + 1;
+        if (visitor.test(line)) {
+          // the next call starts right after this line
+          position -= read - start;
+          return line;
+        }
+      }
+      append(bytes, start, read - start);
+    }
+    if (unterminated && partialLength > 0) {
+      // the line may still be completed later on, it will be tested again
+      String line = decode(partial, 0, partialLength);
+      if (visitor.test(line)) {
+        return line;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return true if the path now designates another file, typically after a rotation
+   */
+  private boolean rotated() throws IOException {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      // being rotated: the new file is not created yet
+      return false;
+    }
+    Object key = attributes.fileKey();
+    if (key != null) {
+      return !Objects.equals(key, fileKey);
+    }
+    // no file identity on this platform, a new file is only noticed once smaller than the current one
+    return attributes.size() < position;
+  }
+
+  private void append(byte[] bytes, int offset, int length) {
+    if (partialLength + length > partial.length) {
+      partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+    }
+    System.arraycopy(bytes, offset, partial, partialLength, length);
+    partialLength += length;
+  }
+
+  private static String decode(byte[] bytes, int offset, int length) {
+    if (length > 0 && bytes[offset + length - 1] == '\r') {
+      length--;
+    }
+    return new String(bytes, offset, length, UTF_8);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A reference notifying its listeners each time its value changes.
+ * <p>
+ * It wraps an {@link AtomicReference} and only exposes the operations which notify the listeners.
+ * Listeners are called synchronously by the thread changing the value, so they must be fast.
+ */
+public class ObservableReference<V> {
+
+  private static final Logger logger = LoggerFactory.getLogger(ObservableReference.class);
+
+  private final AtomicReference<V> value;
+  private final List<Consumer<? super V>> listeners = new CopyOnWriteArrayList<>();
+
+  public ObservableReference(V initialValue) {
+    this.value = new AtomicReference<>(initialValue);
+  }
+
+  public void addListener(Consumer<? super V> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<? super V> listener) {
+    listeners.remove(listener);
+  }
+
+  public V get() {
+    return value.get();
+  }
+
+  public void set(V newValue) {
+    getAndSet(newValue);
+  }
+
+  public boolean compareAndSet(V expect, V update) {
+    boolean set = value.compareAndSet(expect, update);
+    if (set && expect != update) {
+      fire(update);
+    }
+    return set;
+  }
+
+  public V getAndSet(V newValue) {
+    V oldValue = value.getAndSet(newValue);
+    if (oldValue != newValue) {
+      fire(newValue);
+    }
+    return oldValue;
+  }
+
+  private void fire(V value) {
+    for (Consumer<? super V> listener : listeners) {
+      try {
+        listener.accept(value);
+      } catch (RuntimeException e) {
+        logger.warn("State listener failed on: {}: {}", value, e.getMessage(), e);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(value.get());
+  }
+}
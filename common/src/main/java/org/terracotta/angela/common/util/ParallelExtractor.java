@@ -0,0 +1,189 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts the kit archives on several threads.
+ * <p>
+ * The zip entries are read with random access and inflated in parallel, the largest ones first so that a big jar
+ * extracted last does not leave the other threads idle.
+ * A tar.gz archive can only be read sequentially: the entries are decompressed by the calling thread
+ * and written by the other ones. The entries larger than {@link #MAX_BUFFERED_ENTRY} are written by the calling
+ * thread, and the memory of the entries waiting to be written is bounded by {@link #MAX_BUFFERED_BYTES}.
+ */
+final class ParallelExtractor {
+
+  static final int MAX_BUFFERED_ENTRY = 8 * 1024 * 1024;
+  static final int MAX_BUFFERED_BYTES = 64 * 1024 * 1024;
+
+  private ParallelExtractor() {
+  }
+
+  static int defaultThreads() {
+    return Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+  }
+
+  static void extractZip(Path archive, Path dest, int threads) throws IOException {
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      List<ZipEntry> files = new ArrayList<>();
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        Path path = resolve(dest, entry.getName());
+        if (entry.isDirectory()) {
+          Files.createDirectories(path);
+        } else {
+          files.add(entry);
+        }
+      }
+      files.sort(Comparator.comparingLong(ZipEntry::getCompressedSize).reversed());
+      Queue<ZipEntry> queue = new ConcurrentLinkedQueue<>(files);
+      run(Math.min(threads, files.size()), executor -> {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, files.size()); i++) {
+          futures.add(executor.submit(() -> {
+            ZipEntry entry;
+            while ((entry = queue.poll()) != null) {
+              try (InputStream in = zipFile.getInputStream(entry)) {
+                write(in, resolve(dest, entry.getName()));
+              }
+            }
+            return null;
+          }));
+        }
+        return futures;
+      });
+    }
+  }
+
+  static void extractTarGz(Path archive, Path dest, int threads) throws IOException {
+    try (TarArchiveInputStream tar = new TarArchiveInputStream(new GzipCompressorInputStream(new BufferedInputStream(Files.newInputStream(archive), 64 * 1024)))) {
+      Semaphore buffered = new Semaphore(MAX_BUFFERED_BYTES);
+      run(threads, executor -> {
+        List<Future<Void>> futures = new ArrayList<>();
+        ArchiveEntry entry;
+        while ((entry = tar.getNextEntry()) != null) {
+          Path path = resolve(dest, entry.getName());
+          if (entry.isDirectory()) {
+            Files.createDirectories(path);
+            continue;
+          }
+          long size = entry.getSize();
+          if (size < 0 || size > MAX_BUFFERED_ENTRY) {
+            write(tar, path);
+            continue;
+          }
+          byte[] bytes = IOUtils.toByteArray(tar);
+          buffered.acquire(bytes.length);
+          futures.add(executor.submit(() -> {
+            try {
+              createParent(path);
+              Files.write(path, bytes, StandardOpenOption.CREATE_NEW);
+            } finally {
+              buffered.release(bytes.length);
+            }
+            return null;
+          }));
+        }
+        return futures;
+      });
+    }
+  }
+
+  private static void write(InputStream in, Path path) throws IOException {
+    createParent(path);
+    try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW)) {
+      IOUtils.copy(in, out, 64 * 1024);
+    }
+  }
+
+  private static void createParent(Path path) throws IOException {
+    Path parent = path.getParent();
+    if (parent != null && !Files.isDirectory(parent)) {
+      Files.createDirectories(parent);
+    }
+  }
+
+  /**
+   * @throws IOException if the entry would be extracted outside of the destination, like {@code ../../etc/passwd}
+   */
+  private static Path resolve(Path dest, String entryName) throws IOException {
+    Path root = dest.toAbsolutePath().normalize();
+    Path path = root.resolve(entryName).normalize();
+    if (!path.startsWith(root)) {
+      throw new IOException("Archive entry outside of the destination folder: " + entryName);
+    }
+    return path;
+  }
+
+  private static void run(int threads, Work work) throws IOException {
+    AtomicInteger threadCounter = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+      Thread thread = new Thread(r, "angela-extract-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      for (Future<Void> future : work.submit(executor)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while extracting", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Extraction failed: " + cause.getMessage(), cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @FunctionalInterface
+  private interface Work {
+    List<Future<Void>> submit(ExecutorService executor) throws IOException, InterruptedException;
+  }
+}
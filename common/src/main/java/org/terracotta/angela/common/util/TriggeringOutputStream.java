@@ -16,56 +16,123 @@
  */
 package org.terracotta.angela.common.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Splits the output of a process into lines, and runs actions on the lines matching patterns.
+ * <p>
+ * The triggers are checked in a single pass over each line: the literals that the patterns require
+ * (like the {@code \Q...\E} part of {@code ^.*\QServer started\E.*$}) are searched all at once,
+ * and a pattern is only evaluated on the lines containing its literal.
+ * The patterns without a required literal are evaluated on all the lines.
+ */
 public class TriggeringOutputStream extends LogOutputStream {
 
-  private final Consumer<String> consumer;
+  private final List<Rule> rules;
+  private final LiteralMatcher literalMatcher;
 
   public static final TriggeringOutputStream triggerOn(Pattern pattern, Consumer<MatchResult> action) {
-    return new TriggeringOutputStream(line -> {
-      Matcher matcher = pattern.matcher(line);
-      if (matcher.matches()) {
-        action.accept(matcher.toMatchResult());
-      }
-    });
+    return new TriggeringOutputStream(Collections.singletonList(Rule.trigger(pattern, action)));
   }
 
   public final TriggeringOutputStream andTriggerOn(Pattern pattern, Consumer<MatchResult> action) {
-    return new TriggeringOutputStream(
-        line -> {
-          try {
-            consumer.accept(line);
-          } finally {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher
-                .matches()) {
-              action.accept(matcher.toMatchResult());
-            }
-          }
-        });
+    return and(Rule.trigger(pattern, action));
   }
 
   public final TriggeringOutputStream andForward(Consumer<String> action) {
-    return new TriggeringOutputStream(
-        line -> {
-          try {
-            consumer.accept(line);
-          } finally {
-            action.accept(line);
-          }
-        });
+    return and(Rule.forward(action));
+  }
+
+  private TriggeringOutputStream and(Rule rule) {
+    List<Rule> rules = new ArrayList<>(this.rules);
+    rules.add(rule);
+    return new TriggeringOutputStream(rules);
   }
 
-  private TriggeringOutputStream(Consumer<String> consumer) {
-    this.consumer = consumer;
+  private TriggeringOutputStream(List<Rule> rules) {
+    Map<String, Integer> literals = new LinkedHashMap<>();
+    List<Rule> indexed = new ArrayList<>(rules.size());
+    for (Rule rule : rules) {
+      String literal = rule.pattern == null ? null : LiteralMatcher.requiredLiteral(rule.pattern);
+      int literalIndex = -1;
+      if (literal != null && (literals.containsKey(literal) || literals.size() < LiteralMatcher.MAX_LITERALS)) {
+        literalIndex = literals.computeIfAbsent(literal, l -> literals.size());
+      }
+      indexed.add(rule.withLiteralIndex(literalIndex));
+    }
+    this.rules = Collections.unmodifiableList(indexed);
+    this.literalMatcher = literals.isEmpty() ? null : new LiteralMatcher(new ArrayList<>(literals.keySet()));
   }
 
   @Override
   protected void processLine(final String line) {
-    consumer.accept(line);
+    long foundLiterals = literalMatcher == null ? 0L : literalMatcher.find(line);
+    // like a chain of try / finally: all the actions run, and the last failure is thrown
+    Throwable failure = null;
+    for (Rule rule : rules) {
+      try {
+        rule.apply(line, foundLiterals);
+      } catch (RuntimeException | Error e) {
+        if (failure != null) {
+          e.addSuppressed(failure);
+        }
+        failure = e;
+      }
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+  }
+
+  private static class Rule {
+    final Pattern pattern;
+    final Consumer<MatchResult> trigger;
+    final Consumer<String> forward;
+    final int literalIndex;
+
+    private Rule(Pattern pattern, Consumer<MatchResult> trigger, Consumer<String> forward, int literalIndex) {
+      this.pattern = pattern;
+      this.trigger = trigger;
+      this.forward = forward;
+      this.literalIndex = literalIndex;
+    }
+
+    static Rule trigger(Pattern pattern, Consumer<MatchResult> action) {
+      return new Rule(pattern, action, null, -1);
+    }
+
+    static Rule forward(Consumer<String> action) {
+      return new Rule(null, null, action, -1);
+    }
+
+    Rule withLiteralIndex(int literalIndex) {
+      return new Rule(pattern, trigger, forward, literalIndex);
+    }
+
+    void apply(String line, long foundLiterals) {
+      if (forward != null) {
+        forward.accept(line);
+        return;
+      }
+      if (literalIndex >= 0 && (foundLiterals & 1L << literalIndex) == 0L) {
+        // the line does not contain the literal required by the pattern
+        return;
+      }
+      Matcher matcher = pattern.matcher(line);
+      if (matcher.matches()) {
+        trigger.accept(matcher.toMatchResult());
+      }
+    }
   }
 }
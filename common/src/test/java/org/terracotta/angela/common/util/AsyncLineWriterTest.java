@@ -0,0 +1,172 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AsyncLineWriterTest {
+
+  @Test
+  public void testLinesWrittenAndFlushedOnClose() throws IOException {
+    RecordingTarget target = new RecordingTarget(null);
+    AsyncLineWriter writer = new AsyncLineWriter("test", target, 16, 60_000, 1024 * 1024);
+    for (int i = 0; i < 10; i++) {
+      writer.accept("line " + i);
+    }
+    writer.close();
+    writer.accept("after close");
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      expected.add("line " + i);
+    }
+    assertThat(target.flushed, is(expected));
+    assertThat(target.closed, is(true));
+    assertThat(writer.getDroppedLines(), is(0L));
+  }
+
+  @Test
+  public void testLinesDroppedWhenFull() throws Exception {
+    CountDownLatch unblock = new CountDownLatch(1);
+    RecordingTarget target = new RecordingTarget(unblock);
+    AsyncLineWriter writer = new AsyncLineWriter("test", target, 2, 10, 1024);
+
+    writer.accept("first");
+    // the writer thread is now blocked writing the first line
+    target.blocked.await();
+    writer.accept("a");
+    writer.accept("b");
+    writer.accept("c");
+    writer.accept("d");
+    unblock.countDown();
+    writer.close();
+
+    assertThat(writer.getDroppedLines(), is(2L));
+    assertThat(target.flushed, is(asList("first", "a", "b", "[angela] 2 line(s) dropped")));
+  }
+
+  @Test
+  public void testTargetClosedByWriterAfterCloseTimeout() throws Exception {
+    CountDownLatch unblock = new CountDownLatch(1);
+    RecordingTarget target = new RecordingTarget(unblock);
+    AsyncLineWriter writer = new AsyncLineWriter("test", target, 16, 10, 1024, 100);
+
+    writer.accept("first");
+    target.blocked.await();
+    writer.close();
+    // still being written
+    assertThat(target.closed, is(false));
+
+    unblock.countDown();
+    assertThat(target.closedLatch.await(10, TimeUnit.SECONDS), is(true));
+    assertThat(target.flushed, is(asList("first")));
+  }
+
+  @Test
+  public void testSlowTargetClosedOnceWhenCloseTimesOut() throws Exception {
+    // the writer completes around the close timeout: either close() or the writer closes the target, exactly once
+    for (int i = 0; i < 200; i++) {
+      SlowTarget target = new SlowTarget(TimeUnit.MICROSECONDS.toNanos(i * 25 % 3000));
+      AsyncLineWriter writer = new AsyncLineWriter("test", target, 16, 10, 1024, 1);
+      writer.accept("line");
+      writer.close();
+
+      assertThat(target.closedLatch.await(10, TimeUnit.SECONDS), is(true));
+      assertThat(target.closes.get(), is(1));
+    }
+  }
+
+  private static class RecordingTarget implements AsyncLineWriter.Target {
+    final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    final List<String> flushed = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch unblock;
+    final CountDownLatch closedLatch = new CountDownLatch(1);
+    volatile boolean closed;
+
+    RecordingTarget(CountDownLatch unblock) {
+      this.unblock = unblock;
+    }
+
+    @Override
+    public void write(String line) {
+      written.add(line);
+      if (unblock != null && blocked.getCount() > 0) {
+        blocked.countDown();
+        try {
+          unblock.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public void flush() {
+      synchronized (written) {
+        flushed.addAll(written);
+        written.clear();
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      closedLatch.countDown();
+    }
+  }
+
+  private static class SlowTarget implements AsyncLineWriter.Target {
+    final long flushNanos;
+    final AtomicInteger closes = new AtomicInteger();
+    final CountDownLatch closedLatch = new CountDownLatch(1);
+
+    SlowTarget(long flushNanos) {
+      this.flushNanos = flushNanos;
+    }
+
+    @Override
+    public void write(String line) {
+    }
+
+    @Override
+    public void flush() {
+      long end = System.nanoTime() + flushNanos;
+      while (System.nanoTime() - end < 0) {
+        Thread.yield();
+      }
+    }
+
+    @Override
+    public void close() {
+      closes.incrementAndGet();
+      closedLatch.countDown();
+    }
+  }
+}
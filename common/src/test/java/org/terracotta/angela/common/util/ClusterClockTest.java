@@ -0,0 +1,71 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.number.OrderingComparison.greaterThanOrEqualTo;
+
+public class ClusterClockTest {
+
+  @After
+  public void tearDown() {
+    ClusterClock.setOffset(ClusterClock.Offset.NONE);
+  }
+
+  @Test
+  public void testEstimate() {
+    ClusterClock.Offset offset = ClusterClock.Offset.estimate(1_000L, 6_050L, 1_100L);
+    assertThat(offset.getRoundTripNanos(), is(100L));
+    assertThat(offset.getOffsetNanos(), is(5_000L));
+  }
+
+  @Test
+  public void testEstimate_remoteBehind() {
+    ClusterClock.Offset offset = ClusterClock.Offset.estimate(10_000L, 4_020L, 10_040L);
+    assertThat(offset.getRoundTripNanos(), is(40L));
+    assertThat(offset.getOffsetNanos(), is(-6_000L));
+  }
+
+  @Test
+  public void testConversions() {
+    ClusterClock.setOffset(new ClusterClock.Offset(5_000L, 100L));
+    assertThat(ClusterClock.toClusterTimeNanos(12_000L), is(7_000L));
+    assertThat(ClusterClock.toLocalTimeNanos(7_000L), is(12_000L));
+  }
+
+  @Test
+  public void testInstantConversions() {
+    Instant instant = Instant.ofEpochSecond(1_700_000_000L, 123_456_789L);
+    assertThat(ClusterClock.toEpochNanos(instant), is(1_700_000_000_123_456_789L));
+    assertThat(ClusterClock.toInstant(1_700_000_000_123_456_789L), is(instant));
+  }
+
+  @Test
+  public void testSleepUntil() throws Exception {
+    ClusterClock.setOffset(new ClusterClock.Offset(-TimeUnit.SECONDS.toNanos(1), 100L));
+    long deadline = ClusterClock.clusterTimeNanos() + TimeUnit.MILLISECONDS.toNanos(20);
+    ClusterClock.sleepUntil(deadline);
+    assertThat(ClusterClock.clusterTimeNanos(), is(greaterThanOrEqualTo(deadline)));
+  }
+}
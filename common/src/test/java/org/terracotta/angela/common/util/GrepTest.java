@@ -0,0 +1,114 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class GrepTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testMatchesWithContext() throws IOException {
+    Path folder = temporaryFolder.getRoot().toPath();
+    write(folder.resolve("server.log"), "INFO a\r\nINFO b\nERROR c\nINFO d\nINFO e\n");
+
+    GrepResult result = Grep.grep(folder, Pattern.compile("ERROR"), GrepOptions.defaults().context(1, 2));
+
+    assertThat(result.getScannedFiles(), is(1));
+    assertThat(result.isTruncated(), is(false));
+    assertThat(result.getMatches().size(), is(1));
+    GrepResult.Match match = result.getMatches().get(0);
+    assertThat(match.getFile(), is("server.log"));
+    assertThat(match.getLineNumber(), is(3L));
+    assertThat(match.getOffset(), is(15L));
+    assertThat(match.getLine(), is("ERROR c"));
+    assertThat(match.getBefore(), is(Collections.singletonList("INFO b")));
+    assertThat(match.getAfter(), is(Arrays.asList("INFO d", "INFO e")));
+  }
+
+  @Test
+  public void testContextAtTheEndOfTheFile() throws IOException {
+    Path folder = temporaryFolder.getRoot().toPath();
+    write(folder.resolve("server.log"), "ERROR a\nERROR b");
+
+    GrepResult result = Grep.grep(folder, Pattern.compile("ERROR"), GrepOptions.defaults().context(2));
+
+    assertThat(result.getMatches().size(), is(2));
+    assertThat(result.getMatches().get(0).getAfter(), is(Collections.singletonList("ERROR b")));
+    assertThat(result.getMatches().get(1).getBefore(), is(Collections.singletonList("ERROR a")));
+    assertThat(result.getMatches().get(1).getAfter(), is(Collections.<String>emptyList()));
+  }
+
+  @Test
+  public void testSeveralFilesAndRegions() throws IOException {
+    Path folder = temporaryFolder.getRoot().toPath();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= 100; i++) {
+      sb.append(i % 10 == 0 ? "Server started " : "line ").append(i).append('\n');
+    }
+    write(folder.resolve("a.log"), sb.toString());
+    write(folder.resolve("sub/b.log"), sb.toString());
+    write(folder.resolve("sub/b.txt"), sb.toString());
+
+    // small regions: some lines span two regions
+    GrepResult result = Grep.grep(folder, Pattern.compile("^\\QServer started\\E \\d+0$"), GrepOptions.defaults().files("*.log"), 40);
+
+    assertThat(result.getScannedFiles(), is(2));
+    assertThat(result.getMatches().size(), is(20));
+    assertThat(result.getMatches().get(0).getFile(), is("a.log"));
+    assertThat(result.getMatches().get(0).getLine(), is("Server started 10"));
+    assertThat(result.getMatches().get(0).getLineNumber(), is(10L));
+    assertThat(result.getMatches().get(19).getFile(), is("sub/b.log"));
+    assertThat(result.getMatches().get(19).getLine(), is("Server started 100"));
+  }
+
+  @Test
+  public void testMaxMatches() throws IOException {
+    Path folder = temporaryFolder.getRoot().toPath();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      sb.append("ERROR ").append(i).append('\n');
+    }
+    write(folder.resolve("server.log"), sb.toString());
+
+    GrepResult result = Grep.grep(folder, Pattern.compile("ERROR"), GrepOptions.defaults().maxMatches(5).maxLineLength(3));
+
+    assertThat(result.isTruncated(), is(true));
+    assertThat(result.getMatches().size(), is(5));
+    assertThat(result.getMatches().get(4).getLine(), is("ERR"));
+  }
+
+  private static void write(Path file, String text) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, text.getBytes(UTF_8));
+  }
+}
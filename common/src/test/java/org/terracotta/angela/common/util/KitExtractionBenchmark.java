@@ -0,0 +1,159 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sequential extraction of the kit archives, which {@link KitUtils} did until {@link ParallelExtractor}
+ * was introduced, with the parallel one.
+ * <p>
+ * The archives are generated with the layout of a kit: a couple thousand files, mostly small, and a few big jars,
+ * about 200MB in total. Real kits can be used instead with {@code -Dangela.benchmark.zip=<path>}
+ * and {@code -Dangela.benchmark.tarGz=<path>}.
+ * <p>
+ * Run with: {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.terracotta.angela.common.util.KitExtractionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KitExtractionBenchmark {
+
+  @Param({"zip", "tarGz"})
+  String format;
+
+  private Path workDir;
+  private Path archive;
+  private Path dest;
+
+  @Setup(Level.Trial)
+  public void createArchive() throws IOException {
+    workDir = Files.createTempDirectory("angela-extraction-benchmark");
+    String kit = System.getProperty("angela.benchmark." + format);
+    if (kit != null) {
+      archive = Paths.get(kit);
+      return;
+    }
+    archive = workDir.resolve(format.equals("zip") ? "kit.zip" : "kit.tar.gz");
+    try (ArchiveOutputStream out = format.equals("zip") ?
+        new ZipArchiveOutputStream(archive.toFile()) :
+        new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+      Random random = new Random(0);
+      for (int i = 0; i < 2000; i++) {
+        // mostly small files, the largest ones being a few jars of several MBs
+        int size = i % 200 == 0 ? 8 * 1024 * 1024 + random.nextInt(16 * 1024 * 1024) : random.nextInt(64 * 1024);
+        String name = "kit/module-" + i % 40 + "/lib/file-" + i + (i % 3 == 0 ? ".xml" : ".jar");
+        byte[] data = content(random, size);
+        ArchiveEntry entry;
+        if (format.equals("zip")) {
+          entry = new ZipArchiveEntry(name);
+        } else {
+          TarArchiveEntry tarEntry = new TarArchiveEntry(name);
+          tarEntry.setSize(size);
+          entry = tarEntry;
+        }
+        out.putArchiveEntry(entry);
+        out.write(data);
+        out.closeArchiveEntry();
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void createDest() throws IOException {
+    dest = Files.createTempDirectory(workDir, "dest");
+  }
+
+  @TearDown(Level.Invocation)
+  public void deleteDest() {
+    FileUtils.deleteTree(dest);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWorkDir() {
+    FileUtils.deleteTree(workDir);
+  }
+
+  @Benchmark
+  public void sequential() throws IOException {
+    BufferedInputStream in = new BufferedInputStream(Files.newInputStream(archive));
+    try (ArchiveInputStream archiveIs = format.equals("zip") ? new ZipArchiveInputStream(in) : new TarArchiveInputStream(new GzipCompressorInputStream(in))) {
+      KitUtils.extractArchive(archiveIs, dest);
+    }
+  }
+
+  @Benchmark
+  public void parallel() throws IOException {
+    if (format.equals("zip")) {
+      ParallelExtractor.extractZip(archive, dest, ParallelExtractor.defaultThreads());
+    } else {
+      ParallelExtractor.extractTarGz(archive, dest, ParallelExtractor.defaultThreads());
+    }
+  }
+
+  /**
+   * @return data about as compressible as the classes of a jar
+   */
+  private static byte[] content(Random random, int size) {
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : 'a' + random.nextInt(8));
+    }
+    return data;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(KitExtractionBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the byte per byte path of {@link LogOutputStream}, which was used for all the process output
+ * before {@code write(byte[], int, int)} was implemented, with the bulk path.
+ * <p>
+ * Run with: {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.terracotta.angela.common.util.LogOutputStreamBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogOutputStreamBenchmark {
+
+  /**
+   * Size of the writes, 8192 is what the process output pumpers use
+   */
+  @Param({"128", "8192"})
+  int chunkSize;
+
+  private byte[] output;
+  private LogOutputStream stream;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    StringBuilder sb = new StringBuilder();
+    Random random = new Random(0);
+    while (sb.length() < 1024 * 1024) {
+      sb.append("2024-01-01 12:00:00,000 INFO - [").append(random.nextInt(1000)).append("] Moved to State[ PASSIVE-STANDBY ] ");
+      int length = random.nextInt(120);
+      for (int i = 0; i < length; i++) {
+        sb.append((char) ('a' + random.nextInt(26)));
+      }
+      sb.append('\n');
+    }
+    output = sb.toString().getBytes(UTF_8);
+    stream = new LogOutputStream() {
+      @Override
+      protected void processLine(String line) {
+        blackhole.consume(line);
+      }
+    };
+  }
+
+  @Benchmark
+  public void bytePerByte() throws IOException {
+    for (byte b : output) {
+      stream.write(b);
+    }
+  }
+
+  @Benchmark
+  public void bulk() throws IOException {
+    for (int off = 0; off < output.length; off += chunkSize) {
+      stream.write(output, off, Math.min(chunkSize, output.length - off));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(LogOutputStreamBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LogOutputStreamTest {
+
+  @Test
+  public void testLineSeparators() throws IOException {
+    byte[] data = "a\nb\r\nc\rd\n\ne\u00e9\u20ac\r\n\r\nlast".getBytes(UTF_8);
+    List<String> expected = asList("a", "b", "c", "d", "e\u00e9\u20ac", "", "last");
+
+    assertThat(byteByByte(data), is(expected));
+    assertThat(bulk(data, data.length), is(expected));
+  }
+
+  @Test
+  public void testBulkWritesSplitAnywhere() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    Random random = new Random(42);
+    String[] separators = {"\n", "\r", "\r\n", "\n\n", "\r\n\r\n"};
+    for (int i = 0; i < 500; i++) {
+      int length = random.nextInt(300);
+      for (int j = 0; j < length; j++) {
+        sb.append(j % 50 == 49 ? '\u00e9' : (char) ('a' + random.nextInt(26)));
+      }
+      sb.append(separators[random.nextInt(separators.length)]);
+    }
+    byte[] data = sb.toString().getBytes(UTF_8);
+    List<String> expected = byteByByte(data);
+
+    for (int chunk : new int[]{1, 2, 7, 64, 1000, 8192, data.length}) {
+      assertThat("chunk size: " + chunk, bulk(data, chunk), is(expected));
+    }
+  }
+
+  private static List<String> byteByByte(byte[] data) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (LogOutputStream out = collector(lines)) {
+      for (byte b : data) {
+        out.write(b);
+      }
+    }
+    return lines;
+  }
+
+  private static List<String> bulk(byte[] data, int chunk) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (LogOutputStream out = collector(lines)) {
+      for (int off = 0; off < data.length; off += chunk) {
+        out.write(data, off, Math.min(chunk, data.length - off));
+      }
+    }
+    return lines;
+  }
+
+  private static LogOutputStream collector(List<String> lines) {
+    return new LogOutputStream() {
+      @Override
+      protected void processLine(String line) {
+        lines.add(line);
+      }
+    };
+  }
+}
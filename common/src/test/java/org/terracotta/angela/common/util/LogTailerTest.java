@@ -0,0 +1,140 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LogTailerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testMissingFile() throws IOException {
+    Path log = temporaryFolder.getRoot().toPath().resolve("server.log");
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.next(line -> true), is(nullValue()));
+
+      append(log, "started\n");
+      assertThat(tailer.next(line -> line.contains("start")), is("started"));
+    }
+  }
+
+  @Test
+  public void testOnlyReadsAppendedData() throws IOException {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "line 1\r\nline 2\n");
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.next(line -> line.contains("line 1")), is("line 1"));
+      assertThat(tailer.next(line -> line.contains("line 1")), is(nullValue()));
+      assertThat(tailer.getPosition(), is(Files.size(log)));
+
+      append(log, "line 3\n");
+      assertThat(tailer.next(line -> line.startsWith("line")), is("line 3"));
+    }
+  }
+
+  @Test
+  public void testLineSpanningSeveralWrites() throws IOException {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    StringBuilder longLine = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      longLine.append(i % 10);
+    }
+    append(log, longLine + "Server ");
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.next(line -> line.endsWith("Server started")), is(nullValue()));
+
+      append(log, "started\n");
+      assertThat(tailer.next(line -> line.endsWith("Server started")), is(longLine + "Server started"));
+    }
+  }
+
+  @Test
+  public void testUnterminatedLastLine() throws IOException {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "first\nlast");
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.next(line -> line.equals("last")), is("last"));
+    }
+  }
+
+  @Test
+  public void testReadLinesWaitsForTerminatedLines() throws IOException {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "line 1\nline 2\nline");
+    List<String> lines = new ArrayList<>();
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.readLines(line -> lines.add(line) && lines.size() == 1), is("line 1"));
+      assertThat(tailer.readLines(lines::add), is("line 2"));
+      assertThat(tailer.readLines(lines::add), is(nullValue()));
+      assertThat(lines, is(Arrays.asList("line 1", "line 2")));
+
+      append(log, " 3\n");
+      assertThat(tailer.readLines(line -> !lines.add(line)), is(nullValue()));
+      assertThat(lines, is(Arrays.asList("line 1", "line 2", "line 3")));
+    }
+  }
+
+  @Test
+  public void testRotation() throws IOException {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "before rotation\n");
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.next(line -> line.contains("rotation")), is("before rotation"));
+
+      // written just before the rotation, and not read yet
+      append(log, "end of old file\n");
+      Files.move(log, log.resolveSibling("server.log.1"));
+      append(log, "new file\n");
+
+      assertThat(tailer.next(line -> line.contains("old")), is("end of old file"));
+      assertThat(tailer.next(line -> line.contains("new")), is("new file"));
+    }
+  }
+
+  @Test
+  public void testTruncation() throws IOException {
+    Path log = temporaryFolder.newFile("server.log").toPath();
+    append(log, "a rather long line before the truncation\n");
+    try (LogTailer tailer = new LogTailer(log)) {
+      assertThat(tailer.next(line -> false), is(nullValue()));
+
+      Files.write(log, "short\n".getBytes(UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+      assertThat(tailer.next(line -> line.equals("short")), is("short"));
+    }
+  }
+
+  private static void append(Path file, String text) throws IOException {
+    Files.write(file, text.getBytes(UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+}
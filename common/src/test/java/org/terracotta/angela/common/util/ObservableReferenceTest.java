@@ -0,0 +1,79 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.Test;
+import org.terracotta.angela.common.TerracottaServerState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_ACTIVE;
+import static org.terracotta.angela.common.TerracottaServerState.STARTING;
+import static org.terracotta.angela.common.TerracottaServerState.STOPPED;
+
+public class ObservableReferenceTest {
+
+  @Test
+  public void testListenerCalledOnChange() {
+    ObservableReference<TerracottaServerState> ref = new ObservableReference<>(STOPPED);
+    List<TerracottaServerState> changes = new ArrayList<>();
+    ref.addListener(changes::add);
+
+    ref.set(STOPPED);
+    assertThat(changes.isEmpty(), is(true));
+
+    assertThat(ref.compareAndSet(STOPPED, STARTING), is(true));
+    assertThat(ref.compareAndSet(STOPPED, STARTING), is(false));
+    ref.set(STARTED_AS_ACTIVE);
+    assertThat(ref.getAndSet(STOPPED), is(STARTED_AS_ACTIVE));
+
+    assertThat(changes, is(asList(STARTING, STARTED_AS_ACTIVE, STOPPED)));
+  }
+
+  @Test
+  public void testFailingListener() {
+    ObservableReference<TerracottaServerState> ref = new ObservableReference<>(STOPPED);
+    List<TerracottaServerState> changes = new ArrayList<>();
+    ref.addListener(state -> {
+      throw new IllegalStateException("boom");
+    });
+    ref.addListener(changes::add);
+
+    ref.set(STARTING);
+
+    assertThat(ref.get(), is(STARTING));
+    assertThat(changes, is(asList(STARTING)));
+  }
+
+  @Test
+  public void testRemoveListener() {
+    ObservableReference<TerracottaServerState> ref = new ObservableReference<>(STOPPED);
+    List<TerracottaServerState> changes = new ArrayList<>();
+    Consumer<TerracottaServerState> listener = changes::add;
+    ref.addListener(listener);
+    ref.set(STARTING);
+    ref.removeListener(listener);
+    ref.set(STOPPED);
+
+    assertThat(changes, is(asList(STARTING)));
+  }
+}
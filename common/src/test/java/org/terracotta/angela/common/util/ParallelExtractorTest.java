@@ -0,0 +1,136 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+public class ParallelExtractorTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testExtractZip() throws IOException {
+    Map<String, byte[]> files = kitFiles();
+    Path archive = temporaryFolder.getRoot().toPath().resolve("kit.zip");
+    try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(archive.toFile())) {
+      zip.putArchiveEntry(new ZipArchiveEntry("kit/"));
+      zip.closeArchiveEntry();
+      zip.putArchiveEntry(new ZipArchiveEntry("kit/empty-dir/"));
+      zip.closeArchiveEntry();
+      for (Map.Entry<String, byte[]> file : files.entrySet()) {
+        write(zip, new ZipArchiveEntry(file.getKey()), file.getValue());
+      }
+    }
+    Path dest = temporaryFolder.newFolder("dest").toPath();
+
+    ParallelExtractor.extractZip(archive, dest, 4);
+
+    assertExtracted(dest, files);
+    assertThat(Files.isDirectory(dest.resolve("kit/empty-dir")), is(true));
+  }
+
+  @Test
+  public void testExtractTarGz() throws IOException {
+    Map<String, byte[]> files = kitFiles();
+    // written by the thread decompressing the archive
+    files.put("kit/server/lib/big.jar", random(ParallelExtractor.MAX_BUFFERED_ENTRY + 1));
+    Path archive = temporaryFolder.getRoot().toPath().resolve("kit.tar.gz");
+    try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+      tar.putArchiveEntry(new TarArchiveEntry("kit/"));
+      tar.closeArchiveEntry();
+      for (Map.Entry<String, byte[]> file : files.entrySet()) {
+        TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+        entry.setSize(file.getValue().length);
+        write(tar, entry, file.getValue());
+      }
+    }
+    Path dest = temporaryFolder.newFolder("dest").toPath();
+
+    ParallelExtractor.extractTarGz(archive, dest, 4);
+
+    assertExtracted(dest, files);
+  }
+
+  @Test
+  public void testEntryOutsideOfTheDestination() throws IOException {
+    Path archive = temporaryFolder.getRoot().toPath().resolve("kit.zip");
+    try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(archive.toFile())) {
+      write(zip, new ZipArchiveEntry("../evil.sh"), new byte[1]);
+    }
+    Path dest = temporaryFolder.newFolder("dest").toPath();
+
+    try {
+      ParallelExtractor.extractZip(archive, dest, 2);
+      fail();
+    } catch (IOException e) {
+      assertThat(e.getMessage(), containsString("../evil.sh"));
+    }
+    assertThat(Files.exists(temporaryFolder.getRoot().toPath().resolve("evil.sh")), is(false));
+  }
+
+  private static Map<String, byte[]> kitFiles() {
+    Map<String, byte[]> files = new LinkedHashMap<>();
+    files.put("kit/server/bin/start-tc-server.sh", random(1000));
+    files.put("kit/empty.txt", new byte[0]);
+    for (int i = 0; i < 50; i++) {
+      files.put("kit/server/plugins/lib/plugin-" + i + ".jar", random(i * 1000));
+    }
+    files.put("kit/client/lib/ehcache.jar", random(2 * 1024 * 1024));
+    return files;
+  }
+
+  private static void assertExtracted(Path dest, Map<String, byte[]> files) throws IOException {
+    for (Map.Entry<String, byte[]> file : files.entrySet()) {
+      assertArrayEquals(file.getKey(), file.getValue(), Files.readAllBytes(dest.resolve(file.getKey())));
+    }
+  }
+
+  private static void write(ArchiveOutputStream out, ArchiveEntry entry, byte[] data) throws IOException {
+    out.putArchiveEntry(entry);
+    out.write(data);
+    out.closeArchiveEntry();
+  }
+
+  private static byte[] random(int size) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    return data;
+  }
+}
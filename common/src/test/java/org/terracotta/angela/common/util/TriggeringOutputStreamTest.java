@@ -0,0 +1,98 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela.common.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.regex.Pattern.compile;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TriggeringOutputStreamTest {
+
+  @Test
+  public void testRequiredLiteral() {
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*\\QMoved to State[ PASSIVE-STANDBY ]\\E.*$")), is("Moved to State[ PASSIVE-STANDBY ]"));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*\\QStarting TmsApplication\\E.*with PID (\\d+).*$")), is("Starting TmsApplication"));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*PID is (\\d+).*$")), is("PID is "));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*\\[main\\] started.*$")), is("[main] started"));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*colou?r.*$")), is("colo"));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*\\Qab\\E+.*$")), is("a"));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*(WARN|ERROR).*$")), is(nullValue()));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*WARN.*$|^.*ERROR.*$")), is(nullValue()));
+    assertThat(LiteralMatcher.requiredLiteral(compile("(?i)^.*started.*$")), is(nullValue()));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*started.*$", Pattern.CASE_INSENSITIVE)), is(nullValue()));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^.*$")), is(nullValue()));
+    assertThat(LiteralMatcher.requiredLiteral(compile("^[a-z\\]]+ done$")), is(" done"));
+  }
+
+  @Test
+  public void testLiteralMatcher() {
+    LiteralMatcher matcher = new LiteralMatcher(asList("he", "she", "his", "hers", "\u00e9t\u00e9"));
+    assertThat(matcher.find("ushers"), is(0b1011L));
+    assertThat(matcher.find("this"), is(0b0100L));
+    assertThat(matcher.find("nothing"), is(0L));
+    assertThat(matcher.find("l'\u00e9t\u00e9"), is(0b10000L));
+  }
+
+  @Test
+  public void testTriggers() throws IOException {
+    List<String> events = new ArrayList<>();
+    TriggeringOutputStream out = TriggeringOutputStream
+        .triggerOn(compile("^.*\\QServer started\\E on port (\\d+).*$"), mr -> events.add("port " + mr.group(1)))
+        .andTriggerOn(compile("^.*PID is (\\d+).*$"), mr -> events.add("pid " + mr.group(1)))
+        .andForward(line -> events.add("line " + line))
+        .andTriggerOn(compile("^.*(WARN|ERROR).*$"), mr -> events.add("log " + mr.group(1)));
+
+    out.write(("PID is 42\n" +
+        "Server started elsewhere\n" +
+        "ERROR Server started on port 9410\n").getBytes(UTF_8));
+    out.close();
+
+    assertThat(events, is(asList(
+        "pid 42", "line PID is 42",
+        "line Server started elsewhere",
+        "port 9410", "line ERROR Server started on port 9410", "log ERROR")));
+  }
+
+  @Test
+  public void testAllActionsRunWhenOneFails() throws IOException {
+    List<String> events = new ArrayList<>();
+    TriggeringOutputStream out = TriggeringOutputStream
+        .triggerOn(compile("^.*\\Qboom\\E.*$"), mr -> {
+          throw new IllegalStateException("first");
+        })
+        .andForward(events::add);
+
+    try {
+      out.write("boom\n".getBytes(UTF_8));
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("first"));
+    }
+    assertThat(events, is(asList("boom")));
+  }
+}
@@ -30,6 +30,9 @@ import org.terracotta.angela.common.cluster.AtomicCounter;
 import org.terracotta.angela.common.cluster.AtomicReference;
 import org.terracotta.angela.common.cluster.Barrier;
 import org.terracotta.angela.common.cluster.Cluster;
+import org.terracotta.angela.common.cluster.SharedMap;
+import org.terracotta.angela.common.cluster.Topic;
+import org.terracotta.angela.common.cluster.WorkQueue;
 import org.terracotta.angela.common.distribution.Distribution;
 import org.terracotta.angela.common.metrics.HardwareMetric;
 import org.terracotta.angela.common.metrics.MonitoringCommand;
@@ -46,14 +49,20 @@ import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.Thread.sleep;
@@ -63,6 +72,8 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.number.OrderingComparison.greaterThan;
+import static org.hamcrest.number.OrderingComparison.greaterThanOrEqualTo;
+import static org.hamcrest.number.OrderingComparison.lessThan;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
@@ -507,6 +518,36 @@ public class ClientIT extends BaseIT {
     }
   }
 
+  @Test
+  public void testBarrierAwaitStart() throws Exception {
+    assumeFalse("Cannot run without Ignite when using client jobs", agentID.isLocal());
+
+    ConfigurationContext configContext = customConfigurationContext()
+        .clientArray(clientArray -> clientArray.clientArrayTopology(new ClientArrayTopology(newClientArrayConfig().hostSerie(2, hostname))));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("ClientTest::testBarrierAwaitStart", configContext)) {
+      ClientArrayFuture f = factory.clientArray(0).executeOnAll((cluster) -> {
+        Duration lead = Duration.ofSeconds(1);
+        // the agreed start time is the latest of the proposals, each being made after this instant
+        long earliestProposal = cluster.clusterTimeNanos() + lead.toNanos();
+        int index = cluster.barrier("start", 2).awaitStart(lead);
+        long startedAt = cluster.clusterTimeNanos();
+        cluster.atomicCounter("earliestProposal-" + index, 0L).getAndSet(earliestProposal);
+        cluster.atomicCounter("startedAt-" + index, 0L).getAndSet(startedAt);
+      });
+      f.get();
+
+      long agreedAtLeast = Math.max(
+          factory.cluster().atomicCounter("earliestProposal-0", 0L).get(),
+          factory.cluster().atomicCounter("earliestProposal-1", 0L).get());
+      long startedAt0 = factory.cluster().atomicCounter("startedAt-0", 0L).get();
+      long startedAt1 = factory.cluster().atomicCounter("startedAt-1", 0L).get();
+      assertThat(startedAt0, is(greaterThanOrEqualTo(agreedAtLeast)));
+      assertThat(startedAt1, is(greaterThanOrEqualTo(agreedAtLeast)));
+      assertThat(Math.abs(startedAt0 - startedAt1), is(lessThan(TimeUnit.MILLISECONDS.toNanos(5))));
+    }
+  }
+
   @Test
   public void testUploadClientJars() throws Exception {
     assumeFalse("Cannot run without Ignite when using client jobs", agentID.isLocal());
@@ -568,6 +609,120 @@ public class ClientIT extends BaseIT {
     }
   }
 
+  @Test
+  public void testWorkQueue() throws Exception {
+    assumeFalse("Cannot run without Ignite when using client jobs", agentID.isLocal());
+
+    ConfigurationContext configContext = customConfigurationContext()
+        .clientArray(clientArray -> clientArray.clientArrayTopology(new ClientArrayTopology(newClientArrayConfig().hostSerie(2, hostname))));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("ClientTest::testWorkQueue", configContext)) {
+      try (ClientArray clientArray = factory.clientArray(0)) {
+        WorkQueue workQueue = factory.cluster().workQueue("work");
+        workQueue.enqueue(0, 100_000, 10_000);
+        workQueue.seal();
+
+        ClientArrayFuture f = clientArray.executeOnAll((cluster) -> {
+          AtomicCounter processed = cluster.atomicCounter("processed", 0L);
+          AtomicCounter sum = cluster.atomicCounter("sum", 0L);
+          cluster.workQueue("work").drain(range -> {
+            long s = 0;
+            for (long i = range.getStart(); i < range.getEnd(); i++) {
+              s += i;
+            }
+            add(processed, range.size());
+            add(sum, s);
+          });
+        });
+        f.get();
+
+        assertThat(factory.cluster().atomicCounter("processed", 0L).get(), is(100_000L));
+        assertThat(factory.cluster().atomicCounter("sum", 0L).get(), is(99_999L * 100_000L / 2));
+      }
+    }
+  }
+
+  @Test
+  public void testSharedMap() throws Exception {
+    assumeFalse("Cannot run without Ignite when using client jobs", agentID.isLocal());
+
+    ConfigurationContext configContext = customConfigurationContext()
+        .clientArray(clientArray -> clientArray.clientArrayTopology(new ClientArrayTopology(newClientArrayConfig().hostSerie(2, hostname))));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("ClientTest::testSharedMap", configContext)) {
+      try (ClientArray clientArray = factory.clientArray(0)) {
+        SharedMap<String, String> fixtures = factory.cluster().sharedMap("fixtures");
+        Map<String, String> entries = new HashMap<>();
+        entries.put("a", "A");
+        entries.put("b", "B");
+        fixtures.putAll(entries);
+
+        clientArray.executeOnAll((cluster) -> {
+          SharedMap<String, String> map = cluster.sharedMap("fixtures");
+          assertThat(map.get("a"), is("A"));
+          assertThat(map.getAll(Arrays.asList("a", "b")).size(), is(2));
+        }).get();
+
+        fixtures.put("a", "AA");
+
+        clientArray.executeOnAll((cluster) -> {
+          SharedMap<String, String> map = cluster.sharedMap("fixtures");
+          assertThat(map.get("a"), is("AA"));
+          assertThat(map.get("b"), is("B"));
+        }).get();
+
+        assertThat(fixtures.getVersion(), is(2L));
+
+        fixtures.close();
+        // fetched again, into a new near-cache
+        assertThat(fixtures.get("a"), is("AA"));
+      }
+    }
+  }
+
+  @Test
+  public void testTopic() throws Exception {
+    assumeFalse("Cannot run without Ignite when using client jobs", agentID.isLocal());
+
+    ConfigurationContext configContext = customConfigurationContext()
+        .clientArray(clientArray -> clientArray.clientArrayTopology(new ClientArrayTopology(newClientArrayConfig().hostSerie(2, hostname))));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("ClientTest::testTopic", configContext)) {
+      try (ClientArray clientArray = factory.clientArray(0)) {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        Topic<String> topic = factory.cluster().topic("events");
+        try (Topic.Subscription ignored = topic.subscribe(received::add)) {
+          clientArray.executeOnAll((cluster) -> {
+            Topic<String> events = cluster.topic("events");
+            String publisher = cluster.getClientId().getSymbolicName().getSymbolicName();
+            for (int i = 0; i < 100; i++) {
+              events.publish(publisher + ":" + i);
+            }
+            events.flush();
+          }).get();
+
+          Map<String, List<Integer>> messagesByPublisher = new HashMap<>();
+          for (int i = 0; i < 200; i++) {
+            String message = received.poll(30, TimeUnit.SECONDS);
+            assertNotNull(message);
+            int separator = message.lastIndexOf(':');
+            messagesByPublisher.computeIfAbsent(message.substring(0, separator), publisher -> new ArrayList<>())
+                .add(Integer.parseInt(message.substring(separator + 1)));
+          }
+          // the messages of each publisher are received in the order in which they were published
+          List<Integer> expected = new ArrayList<>();
+          for (int i = 0; i < 100; i++) {
+            expected.add(i);
+          }
+          assertThat(messagesByPublisher.size(), is(2));
+          for (List<Integer> messages : messagesByPublisher.values()) {
+            assertThat(messages, is(expected));
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void testClientArrayHostNames() throws Exception {
     assumeFalse("Cannot run without Ignite when using client jobs", agentID.isLocal());
@@ -702,6 +857,13 @@ public class ClientIT extends BaseIT {
     }
   }
 
+  private static void add(AtomicCounter counter, long delta) {
+    long current;
+    do {
+      current = counter.get();
+    } while (!counter.compareAndSet(current, current + delta));
+  }
+
   private void assertMetricsFile(Path path) throws IOException {
     assertThat(Files.exists(path), is(true));
     assertThat(Files.readAllLines(path).size(), is(greaterThan(0)));
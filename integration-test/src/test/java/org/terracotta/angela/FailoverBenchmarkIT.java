@@ -0,0 +1,81 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela;
+
+import org.junit.Test;
+import org.terracotta.angela.client.ClusterFactory;
+import org.terracotta.angela.client.FailoverBenchmark;
+import org.terracotta.angela.client.Tsa;
+import org.terracotta.angela.client.config.ConfigurationContext;
+import org.terracotta.angela.common.tcconfig.TcConfig;
+import org.terracotta.angela.common.topology.Topology;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.terracotta.angela.client.config.custom.CustomConfigurationContext.customConfigurationContext;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_ACTIVE;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_PASSIVE;
+import static org.terracotta.angela.common.tcconfig.TcConfig.tcConfig;
+import static org.terracotta.angela.common.topology.Version.version;
+import static org.terracotta.angela.util.TestUtils.TC_CONFIG_AP;
+import static org.terracotta.angela.util.Versions.EHCACHE_VERSION_XML;
+
+public class FailoverBenchmarkIT extends BaseIT {
+
+  public FailoverBenchmarkIT(String mode, String hostname, boolean inline, boolean ssh) {
+    super(mode, hostname, inline, ssh);
+  }
+
+  @Test
+  public void testKillFailover() throws Exception {
+    TcConfig tcConfig = tcConfig(version(EHCACHE_VERSION_XML), TC_CONFIG_AP);
+    tcConfig.updateServerHost(0, hostname);
+    tcConfig.updateServerHost(1, hostname);
+
+    ConfigurationContext configContext = customConfigurationContext()
+        .tsa(tsa -> tsa.topology(new Topology(getOldDistribution(), tcConfig)));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("FailoverBenchmarkTest::testKillFailover", configContext)) {
+      Tsa tsa = factory.tsa().spawnAll();
+      tsa.waitForActive();
+      tsa.waitForPassives(1);
+
+      FailoverBenchmark.Report report = new FailoverBenchmark(tsa)
+          .repetitions(3)
+          .failure(FailoverBenchmark.Failure.KILL)
+          .timeout(Duration.ofMinutes(1))
+          .run();
+
+      assertThat(report.getFailure(), is(FailoverBenchmark.Failure.KILL));
+      assertThat(report.getRuns().size(), is(3));
+      assertThat(report.getElectionTime().getCount(), is(3));
+      for (FailoverBenchmark.Run run : report.getRuns()) {
+        assertThat(run.getNewActive(), is(not(run.getLostServer())));
+      }
+      // each repetition loses the active elected by the previous one
+      assertThat(report.getRuns().get(1).getLostServer(), is(report.getRuns().get(0).getNewActive()));
+
+      // the lost server of the last repetition is restored as a passive
+      FailoverBenchmark.Run last = report.getRuns().get(2);
+      assertThat(tsa.getState(last.getNewActive()), is(STARTED_AS_ACTIVE));
+      assertThat(tsa.getState(last.getLostServer()), is(STARTED_AS_PASSIVE));
+    }
+  }
+}
@@ -31,6 +31,9 @@ import org.terracotta.angela.common.tcconfig.TerracottaServer;
 import org.terracotta.angela.common.topology.Topology;
 import org.terracotta.angela.common.util.IpUtils;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -222,4 +225,85 @@ public class InstallIT extends BaseIT {
       await().atMost(15, SECONDS).until(() -> tsa.getState(passive), is(TerracottaServerState.STARTED_AS_ACTIVE));
     }
   }
+
+  @Test
+  public void testStopAll() throws Exception {
+    TcConfig tcConfig = tcConfig(version(EHCACHE_VERSION_XML), TC_CONFIG_AP);
+    tcConfig.updateServerHost(0, hostname);
+    tcConfig.updateServerHost(1, hostname);
+
+    ConfigurationContext config = CustomConfigurationContext.customConfigurationContext()
+        .tsa(tsa -> tsa.topology(new Topology(getOldDistribution(), tcConfig))
+        );
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("InstallTest::testStopAll", config)) {
+      Tsa tsa = factory.tsa();
+      tsa.spawnAll();
+      tsa.waitForActive();
+      tsa.waitForPassives(1);
+
+      // the servers are stopped concurrently
+      tsa.stopAll();
+
+      for (TerracottaServer server : tcConfig.getServers()) {
+        assertThat(tsa.getState(server), is(STOPPED));
+        assertThat(isListening(server), is(false));
+      }
+    }
+  }
+
+  @Test
+  public void testStartedTsa() throws Exception {
+    TcConfig tcConfig = tcConfig(version(EHCACHE_VERSION_XML), TC_CONFIG_AP);
+    tcConfig.updateServerHost(0, hostname);
+    tcConfig.updateServerHost(1, hostname);
+
+    ConfigurationContext config = CustomConfigurationContext.customConfigurationContext()
+        .tsa(tsa -> tsa.topology(new Topology(getOldDistribution(), tcConfig))
+        );
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("InstallTest::testStartedTsa", config)) {
+      Tsa tsa = factory.startedTsa();
+      tsa.waitForActive();
+      tsa.waitForPassives(1);
+
+      assertThat(tsa.getStarted().size(), is(2));
+      for (TerracottaServer server : tcConfig.getServers()) {
+        assertThat(isListening(server), is(true));
+      }
+    }
+  }
+
+  @Test
+  public void testFailedStartedTsaStopsServers() throws Exception {
+    TcConfig tcConfig = tcConfig(version(EHCACHE_VERSION_XML), TC_CONFIG_AP);
+    tcConfig.updateServerHost(0, hostname);
+    tcConfig.updateServerHost(1, hostname);
+
+    ConfigurationContext config = CustomConfigurationContext.customConfigurationContext()
+        .tsa(tsa -> tsa.topology(new Topology(getOldDistribution(), tcConfig))
+        );
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("InstallTest::testFailedStartedTsaStopsServers", config)) {
+      try {
+        // Server start-up must fail due to unknown argument passed
+        factory.startedTsa("--some-unknown-argument");
+        fail("Expected RuntimeException");
+      } catch (RuntimeException e) {
+        // the TSA was never returned: its servers must not be left running
+        for (TerracottaServer server : tcConfig.getServers()) {
+          await().atMost(15, SECONDS).until(() -> isListening(server), is(false));
+        }
+      }
+    }
+  }
+
+  private static boolean isListening(TerracottaServer server) {
+    try (Socket socket = new Socket()) {
+      socket.connect(new InetSocketAddress(server.getHostName(), server.getTsaPort()), 1000);
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.angela;
+
+import org.junit.Test;
+import org.terracotta.angela.client.ClusterFactory;
+import org.terracotta.angela.client.ConfigTool;
+import org.terracotta.angela.client.RollingReport;
+import org.terracotta.angela.client.RollingReport.Step;
+import org.terracotta.angela.client.RollingReport.StepType;
+import org.terracotta.angela.client.Tsa;
+import org.terracotta.angela.client.config.ConfigurationContext;
+import org.terracotta.angela.common.distribution.Distribution;
+import org.terracotta.angela.common.tcconfig.TcConfig;
+import org.terracotta.angela.common.tcconfig.TerracottaServer;
+import org.terracotta.angela.common.topology.Topology;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.terracotta.angela.client.RollingReport.StepType.FAILOVER;
+import static org.terracotta.angela.client.RollingReport.StepType.PREPARE_KIT;
+import static org.terracotta.angela.client.RollingReport.StepType.START;
+import static org.terracotta.angela.client.RollingReport.StepType.STOP;
+import static org.terracotta.angela.client.RollingReport.StepType.SYNC;
+import static org.terracotta.angela.client.RollingReport.StepType.UPGRADE;
+import static org.terracotta.angela.client.config.custom.CustomConfigurationContext.customConfigurationContext;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_ACTIVE;
+import static org.terracotta.angela.common.TerracottaServerState.STARTED_AS_PASSIVE;
+import static org.terracotta.angela.common.TerracottaConfigTool.configTool;
+import static org.terracotta.angela.common.dynamic_cluster.Stripe.stripe;
+import static org.terracotta.angela.common.provider.DynamicConfigManager.dynamicCluster;
+import static org.terracotta.angela.common.tcconfig.TcConfig.tcConfig;
+import static org.terracotta.angela.common.tcconfig.TerracottaServer.server;
+import static org.terracotta.angela.common.topology.Version.version;
+import static org.terracotta.angela.util.TestUtils.TC_CONFIG_AP;
+import static org.terracotta.angela.util.Versions.EHCACHE_VERSION_XML;
+
+public class RollingIT extends BaseIT {
+  private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+  public RollingIT(String mode, String hostname, boolean inline, boolean ssh) {
+    super(mode, hostname, inline, ssh);
+  }
+
+  @Test
+  public void testRollingRestart() throws Exception {
+    ConfigurationContext configContext = customConfigurationContext()
+        .tsa(tsa -> tsa
+            .topology(
+                new Topology(
+                    getDistribution(),
+                    dynamicCluster(
+                        stripe(
+                            server("server-1", hostname)
+                                .configRepo("terracotta1/repository")
+                                .logs("terracotta1/logs")
+                                .metaData("terracotta1/metadata")
+                                .failoverPriority("availability"),
+                            server("server-2", hostname)
+                                .configRepo("terracotta2/repository")
+                                .logs("terracotta2/logs")
+                                .metaData("terracotta2/metadata")
+                                .failoverPriority("availability")
+                        ),
+                        stripe(
+                            server("server-3", hostname)
+                                .configRepo("terracotta3/repository")
+                                .logs("terracotta3/logs")
+                                .metaData("terracotta3/metadata")
+                                .failoverPriority("availability"),
+                            server("server-4", hostname)
+                                .configRepo("terracotta4/repository")
+                                .logs("terracotta4/logs")
+                                .metaData("terracotta4/metadata")
+                                .failoverPriority("availability")
+                        )
+                    )
+                )
+            )
+        ).configTool(context -> context.configTool(configTool("configTool", hostname)).distribution(getDistribution()));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("RollingTest::testRollingRestart", configContext)) {
+      Tsa tsa = factory.tsa();
+      tsa.spawnAll();
+      ConfigTool configTool = factory.configTool();
+      configTool.attachAll();
+      configTool.activate();
+      await().atMost(TIMEOUT).until(() -> tsa.getActives().size(), is(2));
+      await().atMost(TIMEOUT).until(() -> tsa.getPassives().size(), is(2));
+
+      List<List<TerracottaServer>> stripes = tsa.getTsaConfigurationContext().getTopology().getStripes();
+      List<TerracottaServer> actives = new ArrayList<>(tsa.getActives());
+
+      RollingReport report = tsa.rollingRestart();
+
+      assertThat(report.getOperation(), is("restart"));
+      assertThat(report.getSteps().size(), is(14));
+      for (int stripeIndex = 0; stripeIndex < stripes.size(); stripeIndex++) {
+        TerracottaServer active = activeOf(stripes.get(stripeIndex), actives);
+        TerracottaServer passive = stripes.get(stripeIndex).stream().filter(server -> !server.equals(active)).findFirst().get();
+        List<Step> steps = stripeSteps(report, stripeIndex);
+
+        // the passive is restarted first, then the active fails over to it and is restarted as a passive
+        assertThat(types(steps), contains(STOP, START, SYNC, FAILOVER, STOP, START, SYNC));
+        assertThat(servers(steps), contains(passive, passive, passive, active, active, active, active));
+        assertSequential(steps);
+        assertThat(tsa.getState(passive), is(STARTED_AS_ACTIVE));
+        assertThat(tsa.getState(active), is(STARTED_AS_PASSIVE));
+      }
+    }
+  }
+
+  @Test
+  public void testRollingUpgrade() throws Exception {
+    TcConfig tcConfig = tcConfig(version(EHCACHE_VERSION_XML), TC_CONFIG_AP);
+    tcConfig.updateServerHost(0, hostname);
+    tcConfig.updateServerHost(1, hostname);
+    Distribution distribution = getOldDistribution();
+
+    ConfigurationContext configContext = customConfigurationContext()
+        .tsa(tsa -> tsa.topology(new Topology(distribution, tcConfig)));
+
+    try (ClusterFactory factory = angelaOrchestrator.newClusterFactory("RollingTest::testRollingUpgrade", configContext)) {
+      Tsa tsa = factory.tsa();
+      tsa.spawnAll();
+      tsa.waitForPassives(1);
+      TerracottaServer active = tsa.getActive();
+      TerracottaServer passive = tsa.getPassive();
+
+      RollingReport report = tsa.rollingUpgrade(distribution);
+
+      assertThat(report.getOperation(), is("upgrade to " + distribution));
+      // the kit is prepared once, before any server is stopped
+      Step prepareKit = report.getSteps().get(0);
+      assertThat(prepareKit.getType(), is(PREPARE_KIT));
+      assertThat(prepareKit.getStripeIndex(), is(-1));
+      assertThat(prepareKit.getServer(), is(nullValue()));
+      assertThat(report.getSteps(PREPARE_KIT).size(), is(1));
+
+      List<Step> steps = stripeSteps(report, 0);
+      assertThat(types(steps), contains(STOP, UPGRADE, START, SYNC, FAILOVER, STOP, UPGRADE, START, SYNC));
+      assertThat(servers(steps), contains(passive, passive, passive, passive, active, active, active, active, active));
+      assertSequential(steps);
+      assertThat(report.getTotal(), is(greaterThanOrEqualTo(steps.get(0).getDuration())));
+      assertThat(tsa.getActive(), is(passive));
+      assertThat(tsa.getPassive(), is(active));
+    }
+  }
+
+  private static TerracottaServer activeOf(List<TerracottaServer> stripe, List<TerracottaServer> actives) {
+    return stripe.stream().filter(actives::contains).findFirst().get();
+  }
+
+  private static List<Step> stripeSteps(RollingReport report, int stripeIndex) {
+    return report.getSteps().stream().filter(step -> step.getStripeIndex() == stripeIndex).collect(Collectors.toList());
+  }
+
+  private static List<StepType> types(List<Step> steps) {
+    return steps.stream().map(Step::getType).collect(Collectors.toList());
+  }
+
+  private static List<TerracottaServer> servers(List<Step> steps) {
+    return steps.stream().map(Step::getServer).collect(Collectors.toList());
+  }
+
+  /**
+   * Checks that each step of a stripe starts once the previous one is over
+   */
+  private static void assertSequential(List<Step> steps) {
+    for (int i = 1; i < steps.size(); i++) {
+      Step previous = steps.get(i - 1);
+      long previousEnd = previous.getStartClusterTimeNanos() + previous.getDuration().toNanos();
+      assertThat(steps.get(i).getStartClusterTimeNanos(), is(greaterThanOrEqualTo(previousEnd)));
+    }
+  }
+}